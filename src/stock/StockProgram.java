@@ -6,6 +6,8 @@ import stock.controller.BasicStockController;
 import stock.controller.FeaturesStockController;
 import stock.controller.StockController;
 import stock.model.AlphaVantageDataSource;
+import stock.model.CachingPortfolioStockModel;
+import stock.model.DataSource;
 import stock.model.PortfolioStockModel;
 import stock.model.PortfolioStockModelImpl;
 import stock.model.StockModel;
@@ -45,7 +47,9 @@ public class StockProgram {
       // TUI
 
       StockView view = new BasicPortfolioStockView(System.out);
-      StockModel model = new PortfolioStockModelImpl(new AlphaVantageDataSource(), "res/portfolio");
+      DataSource dataSource = new AlphaVantageDataSource();
+      StockModel model = new CachingPortfolioStockModel(
+              new PortfolioStockModelImpl(dataSource, "res/portfolio"), dataSource);
       StockController controller = new BasicStockController(view, model,
               new InputStreamReader(System.in));
 
@@ -54,8 +58,9 @@ public class StockProgram {
       // GUI
 
       SimpleFeaturesStockView view = new SimpleFeaturesStockView("Stock Program");
-      PortfolioStockModel model = new PortfolioStockModelImpl(new AlphaVantageDataSource(), "res"
-              + "/portfolio");
+      DataSource dataSource = new AlphaVantageDataSource();
+      PortfolioStockModel model = new CachingPortfolioStockModel(
+              new PortfolioStockModelImpl(dataSource, "res/portfolio"), dataSource);
       FeaturesStockController controller = new FeaturesStockController(view, model);
     }
   }
@@ -6,6 +6,7 @@ import stock.controller.commands.CalculateAverage;
 import stock.controller.commands.CalculateCrossover;
 import stock.controller.commands.CalculateGain;
 import stock.controller.commands.Command;
+import stock.controller.commands.ScreenStocks;
 import stock.controller.commands.ViewPortfolios;
 import stock.model.StockModel;
 import stock.view.BasicPortfolioMenuOptions;
@@ -46,6 +47,7 @@ public class BasicStockController implements StockController {
     commands.put("2", new CalculateAverage(view, model, scanner));
     commands.put("3", new CalculateCrossover(view, model, scanner));
     commands.put("4", new ViewPortfolios(view, model, scanner));
+    commands.put("5", new ScreenStocks(view, model, scanner));
   }
 
 
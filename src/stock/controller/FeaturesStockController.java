@@ -37,7 +37,7 @@ public class FeaturesStockController implements PortfolioStockFeatures {
     }
 
     name = name.toUpperCase();
-    if (model.getPortfolios().contains(name)) {
+    if (model.portfolioExists(name)) {
       view.displayErrorMessage("Portfolio name already exists!");
     } else {
       model.createNewPortfolio(name);
@@ -66,7 +66,7 @@ public class FeaturesStockController implements PortfolioStockFeatures {
 
   @Override
   public void choosePortfolio(String name) {
-    if (name != null && !name.isBlank() && model.getPortfolios().contains(name)) {
+    if (name != null && !name.isBlank() && model.portfolioExists(name)) {
       view.displayEditPortfolio(name);
     } else {
       view.displayErrorMessage("Please create a new portfolio or load one from a save first.");
@@ -132,7 +132,7 @@ public class FeaturesStockController implements PortfolioStockFeatures {
       return;
     }
 
-    if (!model.getPortfolios().contains(portfolio)) {
+    if (!model.portfolioExists(portfolio)) {
       view.displayErrorMessage("Portfolio does not exist.");
       return;
     }
@@ -153,7 +153,7 @@ public class FeaturesStockController implements PortfolioStockFeatures {
       return;
     }
 
-    if (!model.getPortfolios().contains(portfolio)) {
+    if (!model.portfolioExists(portfolio)) {
       view.displayErrorMessage("Portfolio does not exist.");
       return;
     }
@@ -169,7 +169,7 @@ public class FeaturesStockController implements PortfolioStockFeatures {
   public void savePortfolio(String portfolio) {
     portfolio = portfolio.toUpperCase();
 
-    if (!model.getPortfolios().contains(portfolio)) {
+    if (!model.portfolioExists(portfolio)) {
       view.displayErrorMessage("Portfolio does not exist.");
       return;
     }
@@ -190,7 +190,7 @@ public class FeaturesStockController implements PortfolioStockFeatures {
     day = day.toUpperCase().stripLeading().stripTrailing();
     year = year.toUpperCase().stripLeading().stripTrailing();
 
-    if (!model.getPortfolios().contains(portfolio)) {
+    if (!model.portfolioExists(portfolio)) {
       view.displayErrorMessage("Portfolio with that name does not exist.");
       return false;
     }
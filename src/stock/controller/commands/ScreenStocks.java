@@ -0,0 +1,113 @@
+package stock.controller.commands;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import stock.model.StockModel;
+import stock.model.StockScreener;
+import stock.view.StockView;
+
+/**
+ * Command to screen every loaded stock at once and display the best-ranked ones that pass. The
+ * user can screen for stocks that recently crossed above a moving average, or for stocks that
+ * gained more than a percentage over a period of time.
+ */
+public class ScreenStocks extends Command {
+
+  /**
+   * Constructs a screen stocks command with a stock's view,
+   * model, and source of input.
+   *
+   * @param view the view of the stock program.
+   * @param model the model of the stock program.
+   * @param scanner the input of the stock program.
+   */
+  public ScreenStocks(StockView view, StockModel model, Scanner scanner) {
+    super(view, model, scanner);
+  }
+
+  /**
+   * Executes the command. Prompts the user for what to screen the stocks for and the details of
+   * that screen, then for the number of stocks to show.
+   * If the user inputs an invalid number or date, an error message is displayed and the user is
+   * prompted again.
+   * If the end date of a gain screen is not after its start date, an error message is displayed
+   * and the command stops.
+   * If an error occurs while fetching data from the model, an error message is displayed.
+   */
+  @Override
+  public void apply() {
+    view.printMessage("Please enter the number of what you would like to screen the stocks for:");
+    view.printMessage("1. Crossed above their x-day moving average in the last few days");
+    view.printMessage("2. Gained more than a percentage over a period of time");
+    int choice = getPositiveFromUser(2);
+
+    StockScreener.Screen screen;
+    String description;
+    if (choice == 1) {
+      view.printMessage("Please enter the number of days in the moving average.");
+      int days = getPositiveFromUser(Integer.MAX_VALUE);
+
+      view.printMessage("Please enter the ending date!");
+      LocalDate endDate = getDateFromUser();
+
+      view.printMessage("Please enter how many days before the ending date to look for a "
+              + "crossover.");
+      int within = getPositiveFromUser(Integer.MAX_VALUE);
+
+      screen = StockScreener.crossedAboveAverage(days, endDate, within);
+      description = String.format("crossed above their %d-day moving average in the %d days "
+              + "before %s", days, within, endDate);
+    } else {
+      view.printMessage("Please enter the starting date (inclusive)!");
+      LocalDate startDate = getDateFromUser();
+
+      view.printMessage("Please enter the ending date (inclusive)!");
+      LocalDate endDate = getDateFromUser();
+
+      if (!endDate.isAfter(startDate)) {
+        view.printMessage("Invalid input: The end date must be after the start date.");
+        return;
+      }
+
+      view.printMessage("Please enter the percentage the gain has to be over.");
+      double percent = getPercentFromUser();
+
+      screen = StockScreener.gainAbove(startDate, endDate, percent);
+      description = String.format("gained more than %.2f%% from %s to %s", percent, startDate,
+              endDate);
+    }
+
+    view.printMessage("Please enter the most stocks to show.");
+    int limit = getPositiveFromUser(Integer.MAX_VALUE);
+
+    try {
+      List<StockScreener.Result> results = model.screenStocks(screen, limit);
+      Map<String, Double> ranked = new LinkedHashMap<>();
+      for (StockScreener.Result result : results) {
+        ranked.put(result.getTicker(), result.getScore());
+      }
+      view.printScreenResults(description, ranked);
+    } catch (IOException e) {
+      view.printMessage("Error while fetching data: " + e.getMessage());
+    }
+  }
+
+  // Any number, including negative ones (IE: to find stocks that lost less than 5%)
+  private double getPercentFromUser() {
+    while (true) {
+      try {
+        double percent = scanner.nextDouble();
+        scanner.nextLine();
+        return percent;
+      } catch (InputMismatchException e) {
+        view.printMessage("Invalid input: not a number, please try again.");
+        scanner.nextLine();
+      }
+    }
+  }
+}
@@ -31,7 +31,7 @@ public class CreatePortfolio extends PortfolioCommand {
   public void apply() {
     view.printMessage("What is the name of the portfolio you would like to create?");
     String name = scanner.nextLine().toUpperCase();
-    if (model.getPortfolios().contains(name)) {
+    if (model.portfolioExists(name)) {
       view.printMessage("A portfolio with that name already exists!");
       return;
     }
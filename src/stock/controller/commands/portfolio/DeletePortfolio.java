@@ -31,7 +31,7 @@ public class DeletePortfolio extends PortfolioCommand {
   public void apply() {
     view.printMessage("What portfolio would you like to delete?");
     String name = scanner.nextLine().toUpperCase();
-    if (!model.getPortfolios().contains(name)) {
+    if (!model.portfolioExists(name)) {
       view.printMessage("A portfolio with that name does not exist!");
       return;
     }
@@ -31,7 +31,7 @@ public class RenamePortfolio extends PortfolioCommand {
   public void apply() {
     view.printMessage("What portfolio would you like to rename? (Please enter the name).");
     String oldName = scanner.nextLine().toUpperCase();
-    if (!model.getPortfolios().contains(oldName)) {
+    if (!model.portfolioExists(oldName)) {
       view.printMessage("A portfolio with that name does not exist!");
       return;
     }
@@ -39,7 +39,7 @@ public class RenamePortfolio extends PortfolioCommand {
     view.printMessage("What would you like to rename this portfolio to?");
     String newName = scanner.nextLine().toUpperCase();
 
-    if (model.getPortfolios().contains(newName)) {
+    if (model.portfolioExists(newName)) {
       view.printMessage("A portfolio with that name already exists!");
       return;
     }
@@ -2,6 +2,7 @@ package stock.controller.commands.portfoliostock.advanceportfolio;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Map;
 import java.util.Scanner;
 import stock.controller.commands.portfoliostock.StockPortfolioCommand;
 import stock.model.PortfolioStockModel;
@@ -44,9 +45,10 @@ public class PerformanceOverTime extends StockPortfolioCommand {
     portfolioView.printMessage(String.format("Performance of portfolio %s from %s to %s",
             portfolio, startDate, endDate));
     try {
-      portfolioView.printPortfolioPerformance(portfolioModel
-              .getPortfolioPerformance(portfolio, startDate, endDate), startDate, endDate);
-      if (portfolioModel.getPortfolioPerformance(portfolio, startDate, endDate).isEmpty()) {
+      Map<LocalDate, Double> performance = portfolioModel.getPortfolioPerformance(portfolio,
+              startDate, endDate);
+      portfolioView.printPortfolioPerformance(performance, startDate, endDate);
+      if (performance.isEmpty()) {
         return;
       }
       portfolioView.printMessage("");
@@ -1,47 +1,136 @@
 package stock.model;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 
 /**
  * A data source class that retrieves the data from AlphaVantage API.
  * This class handles initialization of the stock data, manages ticker symbols, and
  * facilitates downloading and processing stock data from the API.
+ *
+ * <p>Downloaded files are kept in a {@link DownloadCache} between runs. A stock whose file is
+ * still fresh is read from disk without contacting the API; an older file is downloaded again,
+ * and is only used as-is if the download fails.</p>
+ *
+ * <p>When an older file is only missing the last few months, just the most recent 100 trading
+ * days are requested (AlphaVantage's compact output) and the new rows are merged into the file,
+ * instead of downloading the stock's whole history again.</p>
+ *
+ * <p>Downloads go through a {@link FetchScheduler}, which keeps within the API's per-minute and
+ * per-day request quotas. A lookup that needs a download waits for it, ahead of any prefetches
+ * that are queued; {@link #prefetch} queues stocks to be downloaded in the background.</p>
+ *
+ * <p>The data source can be used from several threads at once. It is initialized exactly once,
+ * and each stock is loaded exactly once: if several threads ask for a stock that has not been
+ * loaded yet, the first one loads it and the others wait for that result.</p>
  */
 public class AlphaVantageDataSource extends CSVDataSource {
   private static final String API_KEY = "XVLMEBWYJ9X5CYWJ";
+  // Compact output holds the last 100 trading days, which is a little over 140 calendar days
+  private static final int COMPACT_WINDOW_DAYS = 130;
+  // The free API key's quotas
+  private static final int REQUESTS_PER_MINUTE = 5;
+  private static final int REQUESTS_PER_DAY = 25;
 
   //  3FKL0E8WUDB1EOMS
 
-  private Set<String> tickerList = new HashSet<>();
+  private Set<String> tickerList = ConcurrentHashMap.newKeySet();
   String folderName = "res/APIData";
 
-  private boolean checkInitialization = false;
+  private volatile boolean checkInitialization = false;
+  private final Object initLock = new Object();
+  private final Map<String, CompletableFuture<PriceSeries>> loading = new ConcurrentHashMap<>();
+  private final Duration freshFor;
+  private final long maxCacheBytes;
+  private final int requestsPerMinute;
+  private final int requestsPerDay;
+  private final Set<String> needsFullDownload = ConcurrentHashMap.newKeySet();
+  private DownloadCache cache;
+  private FetchScheduler scheduler;
 
   /**
-   * Initialized the class by inherent the CSVDataSource class.
+   * Initialized the class by inherent the CSVDataSource class. Downloaded stock data is reused
+   * for a day, at most 500 MB of it is kept on disk, and the free API key's quotas (5 requests a
+   * minute, 25 a day) are kept to.
    */
   // throw IOException
   public AlphaVantageDataSource() {
+    this(Duration.ofDays(1), 500L * 1024 * 1024);
+  }
+
+  /**
+   * Initialized the class by inherent the CSVDataSource class, with a custom download cache.
+   *
+   * @param freshFor      how long downloaded stock data is used before it is downloaded again.
+   * @param maxCacheBytes the most disk space downloaded stock data may take up.
+   * @throws IllegalArgumentException if freshFor is negative or maxCacheBytes is not positive.
+   */
+  public AlphaVantageDataSource(Duration freshFor, long maxCacheBytes) {
+    this(freshFor, maxCacheBytes, REQUESTS_PER_MINUTE, REQUESTS_PER_DAY);
+  }
+
+  /**
+   * Initialized the class by inherent the CSVDataSource class, with a custom download cache and
+   * custom API quotas (IE: for a premium API key).
+   *
+   * @param freshFor          how long downloaded stock data is used before it is downloaded
+   *                          again.
+   * @param maxCacheBytes     the most disk space downloaded stock data may take up.
+   * @param requestsPerMinute the most requests the API key may make per minute.
+   * @param requestsPerDay    the most requests the API key may make per day.
+   * @throws IllegalArgumentException if freshFor is negative, or maxCacheBytes or either quota is
+   *                                  not positive.
+   */
+  public AlphaVantageDataSource(Duration freshFor, long maxCacheBytes, int requestsPerMinute,
+                                int requestsPerDay) {
     super();
+    if (freshFor.isNegative() || maxCacheBytes <= 0) {
+      throw new IllegalArgumentException("Cache freshness cannot be negative and cache size must "
+              + "be positive.");
+    }
+    if (requestsPerMinute < 1 || requestsPerDay < 1) {
+      throw new IllegalArgumentException("Request quotas must be at least 1.");
+    }
+    this.freshFor = freshFor;
+    this.maxCacheBytes = maxCacheBytes;
+    this.requestsPerMinute = requestsPerMinute;
+    this.requestsPerDay = requestsPerDay;
   }
 
   protected void init() throws IOException {
     File folder = new File(folderName);
-    deleteFolder(folder);
     folder.mkdirs();
+    cache = new DownloadCache(Paths.get(folderName), freshFor, maxCacheBytes);
+    scheduler = new FetchScheduler(this::download, requestsPerMinute, requestsPerDay,
+            Paths.get(folderName, "quota.txt"));
     generateTickerList(new File("res/stocksData"));
   }
 
@@ -87,37 +176,48 @@ public class AlphaVantageDataSource extends CSVDataSource {
    *                     or any kind of error that the API encounters.
    */
   protected void generateStockCSV(File folder, String ticker) throws IOException {
-    URL url;
+    downloadStockData(folder, ticker);
+  }
+
+  /**
+   * Downloads a stock's CSV file from the API into a folder, and returns the prices in it. The
+   * response is read over a single connection, and is parsed from memory as it is written to
+   * disk rather than being read back from the file. The file is only replaced once the whole
+   * response has been received and parsed, so a failed download leaves any older copy intact.
+   *
+   * @param folder the folder to write the stock's CSV file to.
+   * @param ticker the ticker of the stock.
+   * @return the prices in the downloaded file.
+   * @throws IOException when the user reached the maximum of request, the API needs time to load,
+   *                     when the link is malformed, when the link cannot be read,
+   *                     when the API does not send back stock data,
+   *                     or any kind of error that the API encounters.
+   */
+  protected PriceSeries downloadStockData(File folder, String ticker) throws IOException {
     HttpURLConnection connection = null;
     try {
-      // Constructing the URL
-      // url = new URL("https://www.alphavantage.co/query?function=TIME_SERIES_DAILY_ADJUSTED"
-      //        + "&outputsize=full"
-      //        + "&symbol=" + ticker
-      //        + "&apikey=" + API_KEY
-      //        + "&datatype=csv");
-      url = createStockDataURL(ticker);
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod("GET");
-
-      int responseCode = connection.getResponseCode();
-      if (responseCode == 429) {
-        throw new IOException("API rate limit exceeded for " + ticker);
-      } else if (responseCode != 200) {
-        throw new IOException("Failed to download data for " + ticker
-                + ". HTTP response code: " + responseCode);
-      }
+      connection = connect(createStockDataURL(ticker), ticker);
 
-      // Opening a stream from the URL
-      try (InputStream in = url.openStream();
-          BufferedInputStream bis = new BufferedInputStream(in);
-          FileOutputStream fos = new FileOutputStream(new File(folder, ticker + ".csv"))) {
-
-        byte[] dataBuffer = new byte[1024];
-        int bytesRead;
-        while ((bytesRead = bis.read(dataBuffer, 0, 1024)) != -1) {
-          fos.write(dataBuffer, 0, bytesRead);
+      Path temp = Files.createTempFile(folder.toPath(), ticker, ".tmp");
+      try {
+        // write each chunk to disk and keep it in memory for the parser
+        ByteArrayOutputStream received = new ByteArrayOutputStream(1 << 16);
+        try (InputStream in = connection.getInputStream();
+             OutputStream out = Files.newOutputStream(temp)) {
+          byte[] dataBuffer = new byte[8192];
+          int bytesRead;
+          while ((bytesRead = in.read(dataBuffer)) != -1) {
+            out.write(dataBuffer, 0, bytesRead);
+            received.write(dataBuffer, 0, bytesRead);
+          }
         }
+
+        PriceSeries prices = PriceCsvParser.parse(ByteBuffer.wrap(received.toByteArray()));
+        Files.move(temp, new File(folder, ticker + ".csv").toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return prices;
+      } finally {
+        Files.deleteIfExists(temp);
       }
     } catch (MalformedURLException e) {
       throw new IOException("The URL is malformed, please check the API endpoint and parameters: "
@@ -125,12 +225,36 @@ public class AlphaVantageDataSource extends CSVDataSource {
     } catch (IOException e) {
       throw new IOException("Failed to download or write data for " + ticker + ": "
               + e.getMessage(), e);
+    } catch (IllegalArgumentException | DateTimeException e) {
+      // the API answers some errors with a message instead of a CSV file
+      throw new IOException("The API did not send back stock data for " + ticker + ": "
+              + e.getMessage(), e);
     } catch (Exception e) {
       throw new IOException("An unexpected error occurred while accessing the API for "
               + ticker + ": " + e.getMessage(), e);
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
     }
   }
 
+  // Open a GET connection to a URL, checking the response code before anything is read
+  private HttpURLConnection connect(URL url, String ticker) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod("GET");
+
+    int responseCode = connection.getResponseCode();
+    if (responseCode == 429) {
+      connection.disconnect();
+      throw new IOException("API rate limit exceeded for " + ticker);
+    } else if (responseCode != 200) {
+      connection.disconnect();
+      throw new IOException("Failed to download data for " + ticker
+              + ". HTTP response code: " + responseCode);
+    }
+    return connection;
+  }
 
   protected URL createStockDataURL(String ticker) throws MalformedURLException {
     return new URL("https://www.alphavantage.co/query?function=TIME_SERIES_DAILY_ADJUSTED"
@@ -140,49 +264,320 @@ public class AlphaVantageDataSource extends CSVDataSource {
             + "&datatype=csv");
   }
 
+  protected URL createCompactStockDataURL(String ticker) throws MalformedURLException {
+    return new URL("https://www.alphavantage.co/query?function=TIME_SERIES_DAILY_ADJUSTED"
+            + "&outputsize=compact"
+            + "&symbol=" + ticker
+            + "&apikey=" + API_KEY
+            + "&datatype=csv");
+  }
+
+  // Download the response of a URL into memory
+  private byte[] fetch(URL url, String ticker) throws IOException {
+    HttpURLConnection connection = connect(url, ticker);
+    try (InputStream in = connection.getInputStream()) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      in.transferTo(bytes);
+      return bytes.toByteArray();
+    } finally {
+      connection.disconnect();
+    }
+  }
+
   @Override
   public boolean stockExistsAtDate(LocalDate date, String ticker) throws IOException {
-    if (!checkInitialization) {
-      init();
-      checkInitialization = true;
-    }
+    ensureInitialized();
 
     // Invalid ticker
     if (!stockInDataSource(ticker)) {
       throw new IllegalArgumentException("Invalid ticker: Stock is not in data source.");
     }
 
-    // Stock has not been read yet
-    if (!stocks.containsKey(ticker)) {
-      generateStockCSV(new File(folderName), ticker);
-      loadAllStockData("res/APIData");
+    // Reads the stock first if it has not been read yet
+    return getPrices(ticker).contains(date);
+  }
+
+  @Override
+  public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end)
+          throws IOException {
+    ensureInitialized();
+    if (!stockInDataSource(ticker)) {
+      throw new IllegalArgumentException("Invalid ticker: Stock is not in data source.");
     }
 
-    return stocks.get(ticker).containsKey(date);
+    return getPrices(ticker).slice(start, end);
   }
 
   @Override
-  public double getClosingPrice(LocalDate date, String ticker) throws IOException {
+  public double getClosingPriceAsOf(LocalDate date, String ticker) throws IOException {
+    ensureInitialized();
+    if (!stockInDataSource(ticker)) {
+      throw new IllegalArgumentException("Invalid ticker: Stock is not in data source.");
+    }
+    return getPrices(ticker).getCloseAsOf(date);
+  }
+
+  // Get the prices of a stock, reading it from the cache or downloading it if it has not been
+  // loaded yet. Every lookup counts as a use of its cached file, so the stocks queried most
+  // recently are the last to be evicted
+  @Override
+  protected PriceSeries getPrices(String ticker) throws IOException {
+    PriceSeries prices = stocks.get(ticker);
+    if (prices == null) {
+      return load(ticker);
+    }
+    cache.recordQuery(ticker);
+    return prices;
+  }
+
+  // Initialize the data source the first time it is used. Only one thread runs init(); any
+  // others wait for it to finish. If it fails, the next use tries again
+  private void ensureInitialized() throws IOException {
     if (!checkInitialization) {
-      init();
-      checkInitialization = true;
+      synchronized (initLock) {
+        if (!checkInitialization) {
+          init();
+          checkInitialization = true;
+        }
+      }
+    }
+  }
+
+  // Read a stock from the cache or download it. If several threads ask for the same stock at
+  // once, only the first one loads it and the rest wait for its result
+  private PriceSeries load(String ticker) throws IOException {
+    CompletableFuture<PriceSeries> result = new CompletableFuture<>();
+    CompletableFuture<PriceSeries> running = loading.putIfAbsent(ticker, result);
+    if (running != null) {
+      try {
+        return running.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for data for " + ticker, e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        } else if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+    }
+
+    try {
+      // another thread may have finished loading it just before this one started
+      PriceSeries prices = stocks.get(ticker);
+      if (prices == null) {
+        if (cache.isFresh(ticker)) {
+          loadStockDataFromCSV(cache.pathFor(ticker));
+          cache.recordUse(ticker);
+        } else {
+          fetchNow(ticker);
+        }
+        prices = stocks.get(ticker);
+      }
+      result.complete(prices);
+      return prices;
+    } catch (IOException | RuntimeException e) {
+      result.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(ticker, result);
+    }
+  }
+
+  @Override
+  public void prefetch(Collection<String> tickers) {
+    try {
+      ensureInitialized();
+    } catch (IOException e) {
+      // lookups will report this when they try to initialize
+      return;
+    }
+
+    for (String ticker : tickers) {
+      if (tickerList.contains(ticker) && !stocks.contains(ticker) && !cache.isFresh(ticker)) {
+        scheduler.submit(ticker, FetchScheduler.Priority.PREFETCH);
+      }
+    }
+  }
+
+  // Download a stock ahead of any prefetches and wait for it, falling back to an older copy of
+  // its file if the download fails
+  private void fetchNow(String ticker) throws IOException {
+    try {
+      scheduler.fetch(ticker);
+    } catch (IOException e) {
+      if (!cache.contains(ticker)) {
+        throw e;
+      }
+      loadStockDataFromCSV(cache.pathFor(ticker));
+      cache.recordUse(ticker);
+    }
+  }
+
+  // Download a stock's file into the cache and put its prices in the store, making at most one
+  // request. Only this stock is read, so every other downloaded file is left alone. Returns false
+  // if a compact download could not be merged and the whole history still has to be downloaded
+  private boolean download(String ticker) throws IOException {
+    if (stocks.contains(ticker)) {
+      // already downloaded by an earlier request
+      return true;
+    }
+    if (cache.contains(ticker) && !needsFullDownload.remove(ticker)) {
+      PriceSeries cached = readStockDataFromCSV(cache.pathFor(ticker));
+      if (cached.size() > 0 && ChronoUnit.DAYS.between(cached.dateAt(cached.size() - 1),
+              LocalDate.now()) <= COMPACT_WINDOW_DAYS) {
+        if (refreshCompact(ticker, cached)) {
+          return true;
+        }
+        needsFullDownload.add(ticker);
+        return false;
+      }
+    }
+
+    PriceSeries prices = downloadStockData(new File(folderName), ticker);
+    stocks.put(ticker, prices);
+    try {
+      PriceCacheFile.write(cache.pathFor(ticker), prices);
+    } catch (IOException e) {
+      // the binary cache only speeds up the next start, so the prices can still be used
+      e.printStackTrace();
+    }
+    cache.recordFetch(ticker);
+    return true;
+  }
+
+  // Bring a cached file up-to-date using only the most recent trading days. Returns false if
+  // that is not possible and the whole history has to be downloaded again
+  private boolean refreshCompact(String ticker, PriceSeries cached) throws IOException {
+    Path file = cache.pathFor(ticker);
+    byte[] response = fetch(createCompactStockDataURL(ticker), ticker);
+    PriceSeries merged;
+    try {
+      merged = mergeRecent(cached, PriceCsvParser.parse(ByteBuffer.wrap(response)));
+    } catch (RuntimeException e) {
+      // AlphaVantage answers some errors with a message instead of a CSV file
+      return false;
+    }
+    if (merged == null
+            || !prependRows(file, response, cached.dateAt(cached.size() - 1))) {
+      return false;
+    }
+
+    PriceCacheFile.write(file, merged);
+    stocks.put(ticker, merged);
+    cache.recordFetch(ticker);
+    return true;
+  }
+
+  /**
+   * Merges the most recent prices of a stock into the prices already known for it. The recent
+   * prices must reach back to the last known day, and must agree with the known prices on every
+   * day they share: adjusted closes are recalculated for a stock's whole history after a split or
+   * dividend, in which case the known prices are out-of-date and cannot be merged with.
+   *
+   * @param cached the prices already known for the stock.
+   * @param recent the most recent prices of the stock.
+   * @return the known prices followed by the newer recent ones, or null if they cannot be merged.
+   */
+  static PriceSeries mergeRecent(PriceSeries cached, PriceSeries recent) {
+    int lastDay = cached.dayAt(cached.size() - 1);
+    if (recent.size() == 0 || recent.dayAt(0) > lastDay) {
+      return null;
+    }
+
+    for (int i = 0; i < recent.size() && recent.dayAt(i) <= lastDay; i++) {
+      int index = cached.indexOf(recent.dayAt(i));
+      if (index < 0 || Math.abs(cached.closeAt(index) - recent.closeAt(i))
+              > 1e-9 * Math.max(1, Math.abs(recent.closeAt(i)))) {
+        return null;
+      }
+    }
+
+    return cached.append(recent);
+  }
+
+  /**
+   * Adds the rows of a downloaded CSV file that are newer than a date to the top of a stock's
+   * CSV file, keeping every column of the downloaded rows. The file is replaced in one step, so
+   * it is never left half-written.
+   *
+   * @param file     the stock's CSV file.
+   * @param response the downloaded CSV file.
+   * @param after    the last date already in the stock's CSV file.
+   * @return false if the two files do not have the same columns, in which case nothing is done.
+   * @throws IOException if the stock's CSV file cannot be read or replaced.
+   */
+  static boolean prependRows(Path file, byte[] response, LocalDate after) throws IOException {
+    String[] responseLines = new String(response, StandardCharsets.UTF_8).split("\\r?\\n");
+    List<String> lines = Files.readAllLines(file);
+    if (lines.isEmpty() || !lines.get(0).trim().equalsIgnoreCase(responseLines[0].trim())) {
+      return false;
+    }
+    int timeIndex = -1;
+    String[] headers = lines.get(0).split(",");
+    for (int i = 0; i < headers.length; i++) {
+      if (headers[i].trim().equalsIgnoreCase("timestamp")) {
+        timeIndex = i;
+      }
+    }
+    if (timeIndex == -1) {
+      return false;
     }
+
+    // ISO dates sort the same way as text, so they do not need to be parsed
+    List<String> newLines = new ArrayList<>();
+    String last = after.toString();
+    for (int i = 1; i < responseLines.length; i++) {
+      String[] parts = responseLines[i].split(",");
+      if (parts.length > timeIndex && parts[timeIndex].trim().compareTo(last) > 0) {
+        newLines.add(responseLines[i]);
+      }
+    }
+    lines.addAll(1, newLines);
+
+    Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temp, lines);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return true;
+  }
+
+  @Override
+  public double getClosingPrice(LocalDate date, String ticker) throws IOException {
+    ensureInitialized();
     if (!stockExistsAtDate(date, ticker)) {
       return 0;
     } else {
-      return stocks.get(ticker).get(date);
+      return getPrices(ticker).getClose(date);
     }
   }
 
   @Override
   public boolean stockInDataSource(String ticker) throws IOException {
-    if (!checkInitialization) {
-      init();
-      checkInitialization = true;
-    }
+    ensureInitialized();
     return tickerList.contains(ticker);
   }
 
+  // Stocks that have already been read, and those whose cached file is still fresh enough to
+  // read without downloading it again
+  @Override
+  public Set<String> getLoadedTickers() throws IOException {
+    ensureInitialized();
+    Set<String> tickers = new TreeSet<>(stocks.tickers());
+    for (String ticker : tickerList) {
+      if (cache.isFresh(ticker)) {
+        tickers.add(ticker);
+      }
+    }
+    return tickers;
+  }
+
   protected void deleteFolder(File folder) {
     File[] files = folder.listFiles();
     if (files != null) {
@@ -3,9 +3,12 @@ package stock.model;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * This class implements the StockModel interface,
@@ -14,12 +17,24 @@ import java.util.Map;
  * track stock gains over time, and manage multiple portfolios.
  */
 public class BasicStockModel implements StockModel {
+  // the most indicator trackers kept at once; the least recently used is dropped first
+  private static final int MAX_TRACKERS = 100;
+
   private DataSource dataSource;
   private Map<String, Map<String, Integer>> portfolios;
+  // one tracker per ticker and indicator name, dropped when the ticker's prices are replaced
+  private final Map<List<String>, IndicatorTracker> trackers;
 
   public BasicStockModel(DataSource ds)  {
     this.dataSource = ds;
     this.portfolios = new HashMap<>();
+    this.trackers = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<String>, IndicatorTracker> eldest) {
+        return size() > MAX_TRACKERS;
+      }
+    };
+    ds.addPriceListener(this::dropTrackers);
   }
 
 
@@ -43,80 +58,164 @@ public class BasicStockModel implements StockModel {
   @Override
   public double getGainOverTime(LocalDate startDate, LocalDate endDate, String ticker)
           throws IOException {
-    double total = 0;
-    LocalDate currentDate = startDate;
-
     if (startDate.isAfter(endDate)) {
       throw new IllegalArgumentException("Start date is after the end date");
     }
-    while (!dataSource.stockExistsAtDate(currentDate, ticker) && !currentDate.isAfter(endDate)) {
-      currentDate = currentDate.plusDays(1);
+
+    // a range entirely outside the stock's history has no prices to compare
+    TickerMetadata metadata = dataSource.getTickerMetadata(ticker);
+    if (!metadata.overlaps(startDate, endDate)) {
+      return 0;
     }
-    if (currentDate.isAfter(endDate)) {
+
+    // the day-to-day changes add up to the last price in the range minus the first one
+    PriceSeries prices = dataSource.getPriceRange(ticker, later(startDate, metadata.getFirstDate()),
+            earlier(endDate, metadata.getLastDate()));
+    if (prices.size() == 0) {
       return 0;
     }
+    return prices.closeAt(prices.size() - 1) - prices.closeAt(0);
+  }
 
-    LocalDate nextDate = currentDate.plusDays(1);
-
-    while (!currentDate.isAfter(endDate)) {
-      if (dataSource.stockExistsAtDate(currentDate, ticker)) {
-        double todayPrice = dataSource.getClosingPrice(currentDate, ticker);
-        while (!dataSource.stockExistsAtDate(nextDate, ticker) && !nextDate.isAfter(endDate)) {
-          nextDate = nextDate.plusDays(1);
-        }
-        if (!nextDate.isAfter(endDate)) {
-          double nextDayPrice = dataSource.getClosingPrice(nextDate, ticker);
-          total += nextDayPrice - todayPrice;
-        }
-        currentDate = nextDate;
-        nextDate = nextDate.plusDays(1);
-      } else {
-        currentDate = currentDate.plusDays(1);
-        nextDate = currentDate.plusDays(1);
-      }
+  private static LocalDate later(LocalDate a, LocalDate b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private static LocalDate earlier(LocalDate a, LocalDate b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  @Override
+  public double[] getDailyReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return getReturns(startDate, endDate, ticker, false);
+  }
+
+  @Override
+  public double[] getDailyLogReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return getReturns(startDate, endDate, ticker, true);
+  }
+
+  // The return from each trading day in the range to the next one
+  private double[] getReturns(LocalDate startDate, LocalDate endDate, String ticker, boolean log)
+          throws IOException {
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date is after the end date");
     }
 
-    return total;
+    PriceSeries prices = dataSource.getPriceRange(ticker, startDate, endDate);
+    if (prices.size() < 2) {
+      return new double[0];
+    }
+    double[] returns = new double[prices.size() - 1];
+    double previous = prices.closeAt(0);
+    for (int i = 0; i < returns.length; i++) {
+      double current = prices.closeAt(i + 1);
+      returns[i] = log ? Math.log(current / previous) : current / previous - 1;
+      previous = current;
+    }
+    return returns;
   }
 
   @Override
   public double getMovingDayAverage(LocalDate endDate, int days, String ticker)
           throws IOException {
     //might occur error if the data is insufficient
-    double total = 0;
-    LocalDate date = endDate;
-
-    int count = 0;
-    while (count < days && !(date.equals(LocalDate.of(1,1,1)))) {
-      if (dataSource.stockExistsAtDate(date, ticker)) {
-        total += dataSource.getClosingPrice(date, ticker);
-        count++;
-      }
-      date = date.minusDays(1);
+    // no trading days up to the end date means an average of 0
+    TickerMetadata metadata = dataSource.getTickerMetadata(ticker);
+    if (metadata.isEmpty() || endDate.isBefore(metadata.getFirstDate())) {
+      return 0;
     }
 
-    return total / days;
+    // the last x trading days up to the end date, which are fewer if the stock is too new
+    PriceSeries prices = dataSource.getPriceRange(ticker, LocalDate.MIN, endDate);
+    int first = Math.max(0, prices.size() - days);
+    return prices.sum(first, prices.size()) / days;
+  }
+
+  @Override
+  public PriceSeries getMovingAverageSeries(LocalDate startDate, LocalDate endDate, int days,
+                                            String ticker) throws IOException {
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date is after the end date");
+    }
+    if (days < 1) {
+      throw new IllegalArgumentException("The number of days must be at least 1");
+    }
+
+    // earlier prices are needed for the averages at the start of the range
+    PriceSeries prices = dataSource.getPriceRange(ticker, LocalDate.MIN, endDate);
+    PriceSeries.Builder averages = new PriceSeries.Builder();
+    for (int i = prices.ceilingIndex(PriceSeries.toEpochDay(startDate)); i < prices.size(); i++) {
+      averages.add(prices.dayAt(i), prices.sum(Math.max(0, i + 1 - days), i + 1) / days);
+    }
+    return averages.build();
   }
 
   @Override
   public List<LocalDate> getCrossover(LocalDate endDate, int days, String ticker)
           throws IOException {
-    double movingDayAvg = getMovingDayAverage(endDate, days, ticker);
-    List<LocalDate> crossOvers = new ArrayList<>();
-    LocalDate date = endDate;
-
-    int count = 0;
-    while (count < days) {
-      if (dataSource.stockExistsAtDate(date, ticker)
-              && (dataSource.getClosingPrice(date, ticker) > movingDayAvg)) {
-        crossOvers.add(date);
-      }
-      count++;
-      date = date.minusDays(1);
+    // no trading days among the last x days means nothing to cross over
+    if (!dataSource.getTickerMetadata(ticker).overlaps(endDate.minusDays(days - 1L), endDate)) {
+      return new ArrayList<>();
     }
+
+    double movingDayAvg = getMovingDayAverage(endDate, days, ticker);
+    // the trading days among the last x days, listed from the end date back
+    PriceSeries window = dataSource.getPriceRange(ticker, endDate.minusDays(days - 1L), endDate);
+    List<LocalDate> crossOvers = CrossoverEngine.daysClosingAbove(window, movingDayAvg);
+    Collections.reverse(crossOvers);
     return crossOvers;
   }
 
+  @Override
+  public List<CrossoverEngine.Crossover> getCrossovers(LocalDate startDate, LocalDate endDate,
+                                                       String ticker, int... windows)
+          throws IOException {
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date is after the end date");
+    }
+    CrossoverEngine engine = new CrossoverEngine(windows);
+    return engine.run(dataSource.getPriceRange(ticker, LocalDate.MIN, endDate), startDate,
+            endDate);
+  }
+
+  @Override
+  public IndicatorSeries getIndicatorSeries(LocalDate startDate, LocalDate endDate, String ticker,
+                                            String name, Supplier<Indicator> indicator)
+          throws IOException {
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date is after the end date");
+    }
+    // the prices are read first, as reading a stock for the first time reports it as changed
+    PriceSeries prices = dataSource.getPriceRange(ticker, LocalDate.MIN, endDate);
+    IndicatorTracker tracker;
+    synchronized (trackers) {
+      tracker = trackers.computeIfAbsent(List.of(ticker, name),
+          key -> new IndicatorTracker(indicator.get()));
+    }
+    // only the days after the last one the tracker has seen are given to the indicator
+    return tracker.update(prices).getSeries(startDate, endDate);
+  }
+
+  // A stock's prices have changed. Newer days added to the end are picked up by the next
+  // update, but if earlier closes were revised its indicators have to start over
+  private void dropTrackers(String ticker, PriceListener.Change change) {
+    if (change != PriceListener.Change.REPLACED) {
+      return;
+    }
+    synchronized (trackers) {
+      trackers.keySet().removeIf(key -> key.get(0).equals(ticker));
+    }
+  }
+
+  @Override
+  public List<StockScreener.Result> screenStocks(StockScreener.Screen screen, int limit)
+          throws IOException {
+    return new StockScreener(dataSource).screen(dataSource.getLoadedTickers(), screen, limit);
+  }
+
   @Override
   public void createNewPortfolio(String name) {
     if (portfolios.containsKey(name)) {
@@ -159,18 +258,18 @@ public class BasicStockModel implements StockModel {
     return portfoliosList;
   }
 
+  @Override
+  public boolean portfolioExists(String name) {
+    return portfolios.containsKey(name);
+  }
+
   // multi
   @Override
   public double getPortfolioValue(String name, LocalDate date) throws IOException {
     List<String> stocks = new ArrayList<>(portfolios.get(name).keySet());
     double value = 0;
     for (int i = 0; i < stocks.size(); i++) {
-      LocalDate currDate = date;
-      while (!dataSource.stockExistsAtDate(currDate, stocks.get(i))
-              && !currDate.equals(LocalDate.of(1,1,1))) {
-        currDate = currDate.minusDays(1);
-      }
-      value += dataSource.getClosingPrice(currDate, stocks.get(i))
+      value += dataSource.getClosingPriceAsOf(date, stocks.get(i))
               * portfolios.get(name).get(stocks.get(i));
     }
     return value;
@@ -0,0 +1,88 @@
+package stock.model;
+
+import java.util.Objects;
+
+/**
+ * Bollinger bands of closing prices. The middle band is the simple moving average of the last x
+ * days, and the upper and lower bands are a number of standard deviations of those days above and
+ * below it.
+ *
+ * <p>The last x prices are kept in a ring buffer with their running sum and sum of squares, so
+ * each new price is added and the oldest one taken away without going over the window again.</p>
+ */
+public final class BollingerBands implements Indicator {
+  private static final String[] NAMES = {"Middle", "Upper", "Lower"};
+
+  private final double[] window;
+  private final double width;
+  private int count;
+  private double sum;
+  private double sumOfSquares;
+
+  /**
+   * Constructs Bollinger bands with the usual 20 days, 2 standard deviations wide.
+   */
+  public BollingerBands() {
+    this(20, 2);
+  }
+
+  /**
+   * Constructs Bollinger bands.
+   *
+   * @param days  the number of days in the moving average.
+   * @param width the number of standard deviations between the middle band and the other two.
+   * @throws IllegalArgumentException if days is less than 1 or width is negative.
+   */
+  public BollingerBands(int days, double width) {
+    if (days < 1) {
+      throw new IllegalArgumentException("The number of days must be at least 1");
+    }
+    if (width < 0) {
+      throw new IllegalArgumentException("The width of the bands cannot be negative");
+    }
+    this.window = new double[days];
+    this.width = width;
+  }
+
+  @Override
+  public void update(double close) {
+    int slot = count % window.length;
+    if (count >= window.length) {
+      sum -= window[slot];
+      sumOfSquares -= window[slot] * window[slot];
+    }
+    window[slot] = close;
+    sum += close;
+    sumOfSquares += close * close;
+    count++;
+  }
+
+  @Override
+  public int lines() {
+    return NAMES.length;
+  }
+
+  @Override
+  public String lineName(int line) {
+    return NAMES[Objects.checkIndex(line, NAMES.length)];
+  }
+
+  @Override
+  public double value(int line) {
+    Objects.checkIndex(line, NAMES.length);
+    if (count < window.length) {
+      return Double.NaN;
+    }
+    double mean = sum / window.length;
+    // rounding can leave a tiny negative variance when every price is the same
+    double deviation = Math.sqrt(Math.max(0, sumOfSquares / window.length - mean * mean));
+    switch (line) {
+      case 0:
+        return mean;
+      case 1:
+        return mean + width * deviation;
+      default:
+        return mean - width * deviation;
+    }
+  }
+}
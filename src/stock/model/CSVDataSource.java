@@ -1,25 +1,38 @@
 package stock.model;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * A data source implementation that reads stock data from CSV files.
- * This class is responsible for loading stock data from CSV files,
- * and providing access to specific data points such as
- * closing prices on given dates.
+ * This class is responsible for loading stock data from CSV files (which are parsed by
+ * {@link PriceCsvParser}), and providing access to specific data points such as
+ * closing prices on given dates. After a CSV file is parsed, its prices are also written to a
+ * binary {@link PriceCacheFile} next to it, which is read instead of the CSV on later loads for as
+ * long as the CSV file is unchanged.
  */
 public class CSVDataSource implements DataSource {
-  protected Map<String, Map<LocalDate, Double>> stocks;
+  protected PriceStore stocks;
+  private LoadTimings loadTimings;
+  private final Map<String, Path> unloadedFiles = new ConcurrentHashMap<>();
+  private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
 
   /**
    * Constructs a CSVDataSource with a specific directory path.
@@ -29,60 +42,202 @@ public class CSVDataSource implements DataSource {
    * @param directoryPath The path to the directory containing stock data CSV files.
    */
   public CSVDataSource(String directoryPath) {
-    stocks = new HashMap<>();
-    loadAllStockData(directoryPath);
+    this(directoryPath, 1);
+  }
+
+  /**
+   * Constructs a CSVDataSource with a specific directory path, parsing the CSV files on several
+   * threads at once. Each file is parsed on its own fork-join task and the results are merged
+   * into the data source once every file has been read.
+   *
+   * @param directoryPath The path to the directory containing stock data CSV files.
+   * @param parallelism   The number of threads to parse files on (1 loads them one at a time).
+   * @throws IllegalArgumentException if parallelism is less than 1.
+   */
+  public CSVDataSource(String directoryPath, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1.");
+    }
+    stocks = new PriceStore();
+    loadAllStockData(directoryPath, parallelism);
   }
 
   /**
    * Default constructor that initializes an empty data source without preloading data.
    */
   public CSVDataSource() {
-    stocks = new HashMap<>();
+    stocks = new PriceStore();
+  }
+
+  /**
+   * Creates a CSVDataSource that loads each stock only when it is first used. Only the names of
+   * the CSV files in the directory are read up front, so creating the data source is cheap no
+   * matter how many files there are, and checking whether a stock is in the data source is a
+   * lookup by name. A stock's file is parsed (or read from its cache) the first time a price is
+   * asked for; this happens once per stock, even if several threads ask at the same time.
+   *
+   * @param directoryPath The path to the directory containing stock data CSV files.
+   * @return the lazily-loading data source.
+   * @throws IOException if the directory cannot be read.
+   */
+  public static CSVDataSource lazy(String directoryPath) throws IOException {
+    CSVDataSource dataSource = new CSVDataSource();
+    for (Path file : listCSVFiles(directoryPath)) {
+      dataSource.unloadedFiles.put(getTicker(file), file);
+    }
+    return dataSource;
+  }
+
+  /**
+   * Gets how long the most recent load of the CSV directory took, per file and in total.
+   *
+   * @return the timings of the last load, or null if nothing has been loaded from a directory.
+   */
+  public LoadTimings getLoadTimings() {
+    return loadTimings;
   }
 
   // Check the format of the CSV and load all stock data from the directory
   protected void loadAllStockData(String directoryPath) {
-    try (Stream<Path> paths = Files.walk(Paths.get(directoryPath))) {
-      paths.filter(Files::isRegularFile)
-              .filter(path -> path.toString().endsWith(".csv"))
-              .forEach(this::loadStockDataFromCSV);
+    loadAllStockData(directoryPath, 1);
+  }
+
+  // Load all stock data from the directory, parsing files on a fork-join pool when parallelism
+  // is above 1. Parsed files are only put in the store from this thread, once they are complete
+  protected void loadAllStockData(String directoryPath, int parallelism) {
+    long start = System.nanoTime();
+    List<Path> files;
+    try {
+      files = listCSVFiles(directoryPath);
     } catch (IOException e) {
       e.printStackTrace();
+      return;
     }
-  }
 
-  // Load stock data from a single CSV file
-  protected void loadStockDataFromCSV(Path filePath) {
-    String ticker = filePath.getFileName().toString().replace(".csv", "");
-    stocks.put(ticker, new HashMap<>());
-
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath.toFile()))) {
-      String line = reader.readLine();
-      int timeIndex = -1;
-      int closeIndex = -1;
-      String[] headers = line.split(",");
-      for (int i = 0; i < headers.length; i++) {
-        if (headers[i].trim().equalsIgnoreCase("timestamp")) {
-          timeIndex = i;
+    Map<String, Duration> fileTimes = new LinkedHashMap<>();
+    if (parallelism <= 1 || files.size() <= 1) {
+      for (Path file : files) {
+        long fileStart = System.nanoTime();
+        loadStockDataFromCSV(file);
+        fileTimes.put(getTicker(file), Duration.ofNanos(System.nanoTime() - fileStart));
+      }
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        List<ForkJoinTask<TimedSeries>> tasks = new ArrayList<>();
+        for (Path file : files) {
+          tasks.add(pool.submit(() -> {
+            long fileStart = System.nanoTime();
+            PriceSeries prices = readStockDataFromCSV(file);
+            return new TimedSeries(prices, System.nanoTime() - fileStart);
+          }));
         }
-        if (headers[i].trim().equalsIgnoreCase("adjusted_close")) {
-          closeIndex = i;
+        for (int i = 0; i < files.size(); i++) {
+          TimedSeries result = tasks.get(i).join();
+          String ticker = getTicker(files.get(i));
+          stocks.put(ticker, result.prices);
+          fileTimes.put(ticker, Duration.ofNanos(result.nanos));
         }
+      } finally {
+        pool.shutdown();
       }
-      if (timeIndex == -1 || closeIndex == -1) {
-        throw new IllegalArgumentException("CSV file does not have required "
-                + "'timestamp' or 'adjusted_close' columns.");
-      }
+    }
+    loadTimings = new LoadTimings(parallelism, fileTimes,
+            Duration.ofNanos(System.nanoTime() - start));
+  }
 
-      while ((line = reader.readLine()) != null) {
-        String[] parts = line.split(",");
-        LocalDate date = LocalDate.parse(parts[timeIndex], DateTimeFormatter.ISO_LOCAL_DATE);
-        double closePrice = Double.parseDouble(parts[closeIndex]);
-        stocks.get(ticker).put(date, closePrice);
-      }
+  // Load stock data from a single CSV file
+  protected void loadStockDataFromCSV(Path filePath) {
+    stocks.put(getTicker(filePath), readStockDataFromCSV(filePath));
+  }
+
+  // Read the prices in a single CSV file, using its binary cache if it is up-to-date. This does
+  // not touch the store, so it is safe to call for several files at once
+  protected PriceSeries readStockDataFromCSV(Path filePath) {
+    PriceSeries cached = PriceCacheFile.read(filePath);
+    if (cached != null) {
+      return cached;
+    }
+
+    PriceSeries series;
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      series = PriceCsvParser.parse(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+              channel.size()));
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new PriceSeries.Builder().build();
+    }
+
+    try {
+      PriceCacheFile.write(filePath, series);
     } catch (IOException e) {
+      // the cache only speeds up the next start, so the prices can still be used without it
       e.printStackTrace();
     }
+    return series;
+  }
+
+  protected static String getTicker(Path filePath) {
+    return filePath.getFileName().toString().replace(".csv", "");
+  }
+
+  private static List<Path> listCSVFiles(String directoryPath) throws IOException {
+    try (Stream<Path> paths = Files.walk(Paths.get(directoryPath))) {
+      return paths.filter(Files::isRegularFile)
+              .filter(path -> path.toString().endsWith(".csv"))
+              .collect(Collectors.toList());
+    }
+  }
+
+  // Get the prices of a stock, loading its file first if it has not been loaded yet. Returns
+  // null if the stock is not in the data source
+  protected PriceSeries getPrices(String ticker) throws IOException {
+    PriceSeries prices = stocks.get(ticker);
+    if (prices != null) {
+      return prices;
+    }
+
+    Path file = unloadedFiles.get(ticker);
+    if (file == null) {
+      // another thread may have just finished loading it
+      return stocks.get(ticker);
+    }
+    synchronized (loadLocks.computeIfAbsent(ticker, key -> new Object())) {
+      prices = stocks.get(ticker);
+      if (prices == null) {
+        prices = readStockDataFromCSV(file);
+        stocks.put(ticker, prices);
+        unloadedFiles.remove(ticker);
+      }
+    }
+    return prices;
+  }
+
+  @Override
+  public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end)
+          throws IOException {
+    if (!stockInDataSource(ticker)) {
+      throw new IllegalArgumentException("Stock is not in Data Source.");
+    }
+    return getPrices(ticker).slice(start, end);
+  }
+
+  @Override
+  public TickerMetadata getTickerMetadata(String ticker) throws IOException {
+    if (!stockInDataSource(ticker)) {
+      throw new IllegalArgumentException("Stock is not in Data Source.");
+    }
+    // makes sure the stock has been loaded into the store
+    getPrices(ticker);
+    return stocks.getMetadata(ticker);
+  }
+
+  @Override
+  public double getClosingPriceAsOf(LocalDate date, String ticker) throws IOException {
+    if (!stockInDataSource(ticker)) {
+      throw new IllegalArgumentException("Stock is not in Data Source.");
+    }
+    return getPrices(ticker).getCloseAsOf(date);
   }
 
   @Override
@@ -92,7 +247,7 @@ public class CSVDataSource implements DataSource {
     } else if (!stockExistsAtDate(date, ticker)) {
       return 0;
     } else {
-      return stocks.get(ticker).get(date);
+      return getPrices(ticker).getClose(date);
     }
   }
 
@@ -101,12 +256,36 @@ public class CSVDataSource implements DataSource {
     if (!stockInDataSource(ticker)) {
       throw new IllegalArgumentException("Invalid ticker: Stock is not in data source.");
     }
-    return stocks.get(ticker).containsKey(date);
+    return getPrices(ticker).contains(date);
   }
 
   @Override
   public boolean stockInDataSource(String ticker) throws IOException {
-    return stocks.containsKey(ticker);
+    return stocks.contains(ticker) || unloadedFiles.containsKey(ticker);
+  }
+
+  @Override
+  public void addPriceListener(PriceListener listener) {
+    stocks.addListener(listener);
+  }
+
+  // Every stock is on disk, so a stock that has not been parsed yet is still ready to read
+  @Override
+  public Set<String> getLoadedTickers() throws IOException {
+    Set<String> tickers = new TreeSet<>(stocks.tickers());
+    tickers.addAll(unloadedFiles.keySet());
+    return tickers;
+  }
+
+  // The prices parsed from one file, along with how long it took to read them
+  private static final class TimedSeries {
+    private final PriceSeries prices;
+    private final long nanos;
+
+    private TimedSeries(PriceSeries prices, long nanos) {
+      this.prices = prices;
+      this.nanos = nanos;
+    }
   }
 }
 
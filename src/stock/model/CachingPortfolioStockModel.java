@@ -0,0 +1,139 @@
+package stock.model;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A PortfolioStockModel that remembers the results of its calculations, as
+ * {@link CachingStockModel} does, along with the distribution and performance of portfolios. A
+ * portfolio's results are dropped whenever stock is bought or sold in it, it is rebalanced,
+ * renamed or deleted, or a save is loaded.
+ *
+ * <p>Distributions and performance series are remembered as read-only maps and handed out as
+ * they are, so a remembered result is returned without copying it. A performance series that is
+ * already a {@link PerformanceSeries} is kept as it is; any other map is copied once.</p>
+ */
+public class CachingPortfolioStockModel extends CachingStockModel implements PortfolioStockModel {
+  private final PortfolioStockModel model;
+
+  /**
+   * Constructs a caching portfolio model that keeps up to
+   * {@link CachingStockModel#DEFAULT_MAX_ENTRIES} results.
+   *
+   * @param model      the model to do the calculations.
+   * @param dataSource the data source the model reads prices from, which tells this model when
+   *                   they change.
+   */
+  public CachingPortfolioStockModel(PortfolioStockModel model, DataSource dataSource) {
+    this(model, dataSource, DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Constructs a caching portfolio model.
+   *
+   * @param model      the model to do the calculations.
+   * @param dataSource the data source the model reads prices from, which tells this model when
+   *                   they change.
+   * @param maxEntries the most results to keep.
+   * @throws IllegalArgumentException if maxEntries is less than 1.
+   */
+  public CachingPortfolioStockModel(PortfolioStockModel model, DataSource dataSource,
+                                    int maxEntries) {
+    super(model, dataSource, maxEntries);
+    this.model = model;
+  }
+
+  @Override
+  public void addStockToPortfolio(String name, String ticker, int shares, LocalDate date)
+          throws IOException, IllegalArgumentException {
+    try {
+      model.addStockToPortfolio(name, ticker, shares, date);
+    } finally {
+      invalidatePortfolio(name);
+    }
+  }
+
+  @Override
+  public Set<String> getPortfolioTickers(String name) throws IllegalArgumentException {
+    return model.getPortfolioTickers(name);
+  }
+
+  // A portfolio's results can depend on stocks it has since sold, not only the ones it holds
+  @Override
+  protected Set<String> portfolioTickers(String name) {
+    return Set.copyOf(model.getPortfolioTickers(name));
+  }
+
+  @Override
+  public Map<String, Double> getPortfolioContentsDecimal(String name, LocalDate date)
+          throws IllegalArgumentException {
+    return model.getPortfolioContentsDecimal(name, date);
+  }
+
+  @Override
+  public void sellStockFromPortfolio(String name, String ticker, int shares, LocalDate date)
+          throws IOException, IllegalArgumentException {
+    try {
+      model.sellStockFromPortfolio(name, ticker, shares, date);
+    } finally {
+      invalidatePortfolio(name);
+    }
+  }
+
+  @Override
+  public Map<String, Double> getPortfolioDistribution(String name, LocalDate date)
+          throws IOException, IllegalArgumentException {
+    return cached(key("getPortfolioDistribution", name, date), null, name,
+        () -> Collections.unmodifiableMap(new LinkedHashMap<>(
+                model.getPortfolioDistribution(name, date))));
+  }
+
+  @Override
+  public List<String> getPortfolioSaves(String name) throws IllegalArgumentException,
+          IOException {
+    return model.getPortfolioSaves(name);
+  }
+
+  // The name of the portfolio is only known once the save is read, so every portfolio is dropped
+  @Override
+  public void loadPortfolioSave(String fileSaveName) throws IOException,
+          IllegalArgumentException {
+    try {
+      model.loadPortfolioSave(fileSaveName);
+    } finally {
+      invalidatePortfolios();
+    }
+  }
+
+  @Override
+  public void createNewPortfolioSave(String name) throws IOException, IllegalArgumentException {
+    model.createNewPortfolioSave(name);
+  }
+
+  @Override
+  public void rebalancePortfolio(String name, LocalDate date, Map<String, Double> proportions)
+          throws IOException, IllegalArgumentException {
+    try {
+      model.rebalancePortfolio(name, date, proportions);
+    } finally {
+      invalidatePortfolio(name);
+    }
+  }
+
+  @Override
+  public Map<LocalDate, Double> getPortfolioPerformance(String name, LocalDate startDate,
+                                                        LocalDate endDate)
+          throws IllegalArgumentException, IOException {
+    return cached(key("getPortfolioPerformance", name, startDate, endDate), null, name, () -> {
+      Map<LocalDate, Double> performance = model.getPortfolioPerformance(name, startDate,
+              endDate);
+      return performance instanceof PerformanceSeries ? performance
+              : Collections.unmodifiableMap(new LinkedHashMap<>(performance));
+    });
+  }
+}
@@ -0,0 +1,382 @@
+package stock.model;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A StockModel that remembers the results of its calculations, so that asking for the same
+ * gain, moving average or crossovers again (IE: from the same command with the same inputs)
+ * returns straight away instead of working it out from the prices again. Every other call is
+ * passed straight through to the model it wraps.
+ *
+ * <p>Results are keyed by the method and every one of its arguments. At most a fixed number of
+ * results are kept; when there is no more room, the least recently used result is dropped. A
+ * stock's results, and the results of every portfolio that has held it, are dropped as soon as the
+ * data source reports that its prices have changed (a stock being loaded for the first time is
+ * not a change). A portfolio's results are dropped as soon as it is changed through this model.
+ * Results that end in an exception are never kept.</p>
+ */
+public class CachingStockModel implements StockModel {
+  /**
+   * The number of results kept if no other limit is given.
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private final StockModel model;
+  private final Map<List<Object>, Entry> entries;
+  private long hits;
+  private long misses;
+  // counts every change, and records when each stock and portfolio last changed, so a result is
+  // only kept if nothing it was worked out from changed while it was being worked out
+  private long clock;
+  private final Map<String, Long> tickerChanges;
+  private final Map<String, Long> portfolioChanges;
+  private long portfoliosChanged;
+  private long cleared;
+
+  /**
+   * Constructs a caching model that keeps up to {@link #DEFAULT_MAX_ENTRIES} results.
+   *
+   * @param model      the model to do the calculations.
+   * @param dataSource the data source the model reads prices from, which tells this model when
+   *                   they change.
+   */
+  public CachingStockModel(StockModel model, DataSource dataSource) {
+    this(model, dataSource, DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Constructs a caching model.
+   *
+   * @param model      the model to do the calculations.
+   * @param dataSource the data source the model reads prices from, which tells this model when
+   *                   they change.
+   * @param maxEntries the most results to keep.
+   * @throws IllegalArgumentException if maxEntries is less than 1.
+   */
+  public CachingStockModel(StockModel model, DataSource dataSource, int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("The cache must be able to hold at least 1 result.");
+    }
+    this.model = model;
+    this.tickerChanges = new HashMap<>();
+    this.portfolioChanges = new HashMap<>();
+    // an access-ordered map keeps the least recently used result first
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+    dataSource.addPriceListener(this::pricesChanged);
+  }
+
+  /**
+   * Gets the number of calls that were answered with a remembered result.
+   *
+   * @return the number of cache hits.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of calls that had to be worked out by the wrapped model.
+   *
+   * @return the number of cache misses.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets the number of results currently remembered.
+   *
+   * @return the number of results in the cache.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Drops every result worked out from a stock's prices, including the results of every portfolio
+   * that has held the stock.
+   *
+   * @param ticker the ticker of the stock.
+   */
+  public synchronized void invalidateTicker(String ticker) {
+    tickerChanges.put(ticker, ++clock);
+    entries.values().removeIf(entry -> entry.tickers.contains(ticker));
+  }
+
+  /**
+   * Drops every result worked out for a portfolio.
+   *
+   * @param name the name of the portfolio.
+   */
+  public synchronized void invalidatePortfolio(String name) {
+    portfolioChanges.put(name, ++clock);
+    entries.values().removeIf(entry -> name.equals(entry.portfolio));
+  }
+
+  /**
+   * Drops the results worked out for every portfolio.
+   */
+  public synchronized void invalidatePortfolios() {
+    portfoliosChanged = ++clock;
+    entries.values().removeIf(entry -> entry.portfolio != null);
+  }
+
+  /**
+   * Drops every remembered result.
+   */
+  public synchronized void clear() {
+    cleared = ++clock;
+    entries.clear();
+  }
+
+  // Nothing can have been worked out from a stock before it was first loaded (IE: by the very
+  // calculation that asked for it), so only later changes drop anything
+  private void pricesChanged(String ticker, PriceListener.Change change) {
+    if (change != PriceListener.Change.LOADED) {
+      invalidateTicker(ticker);
+    }
+  }
+
+  /**
+   * Works out a result, or returns the remembered one for the same key.
+   *
+   * @param key         the method and every argument it was called with.
+   * @param ticker      the stock the result is worked out from, or null if it is for a
+   *                    portfolio.
+   * @param portfolio   the portfolio the result is for, or null if it is for a single stock.
+   * @param calculation works out the result if it is not remembered.
+   * @param <T>         the type of the result.
+   * @return the result.
+   * @throws IOException if the calculation fails.
+   */
+  protected final <T> T cached(List<Object> key, String ticker, String portfolio,
+                               Calculation<T> calculation) throws IOException {
+    long started;
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        hits++;
+        @SuppressWarnings("unchecked")
+        T value = (T) entry.value;
+        return value;
+      }
+      misses++;
+      started = clock;
+    }
+
+    // worked out without holding the lock, so one slow calculation does not hold up the others
+    T value = calculation.calculate();
+    Set<String> tickers;
+    try {
+      tickers = portfolio == null ? Set.of(ticker) : portfolioTickers(portfolio);
+    } catch (IllegalArgumentException e) {
+      // the portfolio was deleted since the result was worked out
+      return value;
+    }
+    synchronized (this) {
+      if (!changedSince(started, tickers, portfolio)) {
+        entries.put(key, new Entry(value, tickers, portfolio));
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Gets the tickers of every stock a portfolio's results can be worked out from.
+   *
+   * @param name the name of the portfolio.
+   * @return the tickers of the stocks in the portfolio.
+   */
+  protected Set<String> portfolioTickers(String name) {
+    return Set.copyOf(model.getPortfolioContents(name).keySet());
+  }
+
+  // Whether any stock or portfolio a result was worked out from changed after a time
+  private boolean changedSince(long time, Set<String> tickers, String portfolio) {
+    if (cleared > time) {
+      return true;
+    }
+    for (String ticker : tickers) {
+      if (tickerChanges.getOrDefault(ticker, 0L) > time) {
+        return true;
+      }
+    }
+    return portfolio != null && (portfoliosChanged > time
+            || portfolioChanges.getOrDefault(portfolio, 0L) > time);
+  }
+
+  // The method name followed by its arguments, compared by value
+  protected static List<Object> key(Object... parts) {
+    return Arrays.asList(parts);
+  }
+
+  @Override
+  public double getGainOverTime(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return cached(key("getGainOverTime", startDate, endDate, ticker), ticker, null,
+        () -> model.getGainOverTime(startDate, endDate, ticker));
+  }
+
+  @Override
+  public double[] getDailyReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return cached(key("getDailyReturns", startDate, endDate, ticker), ticker, null,
+        () -> model.getDailyReturns(startDate, endDate, ticker)).clone();
+  }
+
+  @Override
+  public double[] getDailyLogReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return cached(key("getDailyLogReturns", startDate, endDate, ticker), ticker, null,
+        () -> model.getDailyLogReturns(startDate, endDate, ticker)).clone();
+  }
+
+  @Override
+  public double getMovingDayAverage(LocalDate endDate, int days, String ticker)
+          throws IOException {
+    return cached(key("getMovingDayAverage", endDate, days, ticker), ticker, null,
+        () -> model.getMovingDayAverage(endDate, days, ticker));
+  }
+
+  @Override
+  public PriceSeries getMovingAverageSeries(LocalDate startDate, LocalDate endDate, int days,
+                                            String ticker) throws IOException {
+    // a PriceSeries cannot be changed, so it can be handed out as it is
+    return cached(key("getMovingAverageSeries", startDate, endDate, days, ticker), ticker, null,
+        () -> model.getMovingAverageSeries(startDate, endDate, days, ticker));
+  }
+
+  @Override
+  public List<LocalDate> getCrossover(LocalDate endDate, int days, String ticker)
+          throws IOException {
+    return new ArrayList<>(cached(key("getCrossover", endDate, days, ticker), ticker, null,
+        () -> List.copyOf(model.getCrossover(endDate, days, ticker))));
+  }
+
+  @Override
+  public List<CrossoverEngine.Crossover> getCrossovers(LocalDate startDate, LocalDate endDate,
+                                                       String ticker, int... windows)
+          throws IOException {
+    return new ArrayList<>(cached(key("getCrossovers", startDate, endDate, ticker,
+            Arrays.toString(windows)), ticker, null,
+        () -> List.copyOf(model.getCrossovers(startDate, endDate, ticker, windows))));
+  }
+
+  // The wrapped model already keeps each indicator it has run and only gives it newer days, so
+  // the series are not remembered here as well
+  @Override
+  public IndicatorSeries getIndicatorSeries(LocalDate startDate, LocalDate endDate, String ticker,
+                                            String name, Supplier<Indicator> indicator)
+          throws IOException {
+    return model.getIndicatorSeries(startDate, endDate, ticker, name, indicator);
+  }
+
+  // Screens are compared by identity, so they are never worth remembering
+  @Override
+  public List<StockScreener.Result> screenStocks(StockScreener.Screen screen, int limit)
+          throws IOException {
+    return model.screenStocks(screen, limit);
+  }
+
+  @Override
+  public void createNewPortfolio(String name) {
+    model.createNewPortfolio(name);
+    invalidatePortfolio(name);
+  }
+
+  @Override
+  public void deletePortfolio(String name) {
+    model.deletePortfolio(name);
+    invalidatePortfolio(name);
+  }
+
+  @Override
+  public void renamePortfolio(String oldName, String newName) {
+    model.renamePortfolio(oldName, newName);
+    invalidatePortfolio(oldName);
+    invalidatePortfolio(newName);
+  }
+
+  @Override
+  public Map<String, Integer> getPortfolioContents(String name) {
+    return model.getPortfolioContents(name);
+  }
+
+  @Override
+  public List<String> getPortfolios() {
+    return model.getPortfolios();
+  }
+
+  @Override
+  public boolean portfolioExists(String name) {
+    return model.portfolioExists(name);
+  }
+
+  @Override
+  public double getPortfolioValue(String name, LocalDate date) throws IOException {
+    return cached(key("getPortfolioValue", name, date), null, name,
+        () -> model.getPortfolioValue(name, date));
+  }
+
+  @Override
+  public void addStockToPortfolio(String name, String ticker, int shares) {
+    model.addStockToPortfolio(name, ticker, shares);
+    invalidatePortfolio(name);
+  }
+
+  @Override
+  public void removeStockFromPortfolio(String name, String ticker) {
+    model.removeStockFromPortfolio(name, ticker);
+    invalidatePortfolio(name);
+  }
+
+  @Override
+  public boolean stockExists(String ticker) throws IOException {
+    return model.stockExists(ticker);
+  }
+
+  /**
+   * Works out a result that is not remembered yet.
+   *
+   * @param <T> the type of the result.
+   */
+  @FunctionalInterface
+  protected interface Calculation<T> {
+
+    /**
+     * Works out the result.
+     *
+     * @return the result.
+     * @throws IOException if an I/O error occurs during data fetching.
+     */
+    T calculate() throws IOException;
+  }
+
+  // A remembered result, along with what it was worked out from
+  private static final class Entry {
+    private final Object value;
+    private final Set<String> tickers;
+    private final String portfolio;
+
+    private Entry(Object value, Set<String> tickers, String portfolio) {
+      this.value = Objects.requireNonNull(value);
+      this.tickers = tickers;
+      this.portfolio = portfolio;
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package stock.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds moving-average crossovers in a stock's price history for one or more window sizes at
+ * once (IE: 20, 50 and 200 days). Two kinds of events are found:
+ * <ul>
+ *   <li>the closing price crossing above or below one of the moving averages, and</li>
+ *   <li>a shorter moving average crossing above (a golden cross) or below (a death cross) a
+ *   longer one.</li>
+ * </ul>
+ *
+ * <p>Every moving average is kept as a running sum while stepping through the prices once, so
+ * finding the crossovers takes time proportional to the number of trading days times the number
+ * of windows, with no lookups by date. A moving average only exists once there are enough
+ * trading days before it to fill its window, so there are no events before then. An engine holds
+ * no state between runs and can be shared between threads.</p>
+ */
+public final class CrossoverEngine {
+  private final int[] windows;
+
+  /**
+   * The kinds of crossover.
+   */
+  public enum Type {
+    /** The closing price went from at or below a moving average to above it. */
+    PRICE_ABOVE_AVERAGE,
+    /** The closing price went from above a moving average to at or below it. */
+    PRICE_BELOW_AVERAGE,
+    /** A shorter moving average went from at or below a longer one to above it. */
+    GOLDEN_CROSS,
+    /** A shorter moving average went from above a longer one to at or below it. */
+    DEATH_CROSS
+  }
+
+  /**
+   * Constructs a crossover engine.
+   *
+   * @param windows the number of trading days in each moving average, in any order.
+   * @throws IllegalArgumentException if there are no windows, or a window is less than 1 day.
+   */
+  public CrossoverEngine(int... windows) {
+    if (windows.length == 0) {
+      throw new IllegalArgumentException("At least one window size is needed.");
+    }
+    this.windows = Arrays.stream(windows).sorted().distinct().toArray();
+    if (this.windows[0] < 1) {
+      throw new IllegalArgumentException("Window sizes must be at least 1 day.");
+    }
+  }
+
+  /**
+   * Gets the window sizes of the moving averages, from shortest to longest.
+   *
+   * @return the window sizes.
+   */
+  public int[] getWindows() {
+    return windows.clone();
+  }
+
+  /**
+   * Finds the crossovers between two dates. The prices should include the trading days before
+   * the start date as well, as the moving averages at the start are made up of them.
+   *
+   * @param prices the stock's prices, up to at least the end date.
+   * @param start  the first date to find crossovers on.
+   * @param end    the last date to find crossovers on.
+   * @return the crossovers from earliest to latest, which is empty if start is after end.
+   */
+  public List<Crossover> run(PriceSeries prices, LocalDate start, LocalDate end) {
+    List<Crossover> events = new ArrayList<>();
+    int first = Math.max(1, prices.ceilingIndex(PriceSeries.toEpochDay(start)));
+    int last = prices.floorIndex(PriceSeries.toEpochDay(end));
+    if (first > last) {
+      return events;
+    }
+
+    // the averages on the day before the first one are needed to tell if the first day crossed,
+    // so start far enough back for the longest window to be full on that day
+    int longest = windows[windows.length - 1];
+    int begin = Math.max(0, first - longest);
+    double[] sums = new double[windows.length];
+    double[] averages = new double[windows.length];
+    boolean[] priceAbove = new boolean[windows.length];
+    boolean[] shortAbove = new boolean[windows.length * windows.length];
+
+    for (int i = begin; i <= last; i++) {
+      double close = prices.closeAt(i);
+      for (int w = 0; w < windows.length; w++) {
+        sums[w] += close;
+        if (i - begin >= windows[w]) {
+          sums[w] -= prices.closeAt(i - windows[w]);
+        }
+        averages[w] = sums[w] / windows[w];
+      }
+
+      for (int w = 0; w < windows.length; w++) {
+        if (i + 1 < windows[w]) {
+          // this window and every longer one are not full yet
+          break;
+        }
+        boolean above = close > averages[w];
+        // a window that has just filled has no previous average to have crossed
+        if (i >= first && i >= windows[w] && above != priceAbove[w]) {
+          events.add(new Crossover(prices.dateAt(i),
+                  above ? Type.PRICE_ABOVE_AVERAGE : Type.PRICE_BELOW_AVERAGE, windows[w], 0,
+                  close));
+        }
+        priceAbove[w] = above;
+
+        for (int s = 0; s < w; s++) {
+          int pair = s * windows.length + w;
+          boolean crossed = averages[s] > averages[w];
+          if (i >= first && i >= windows[w] && crossed != shortAbove[pair]) {
+            events.add(new Crossover(prices.dateAt(i),
+                    crossed ? Type.GOLDEN_CROSS : Type.DEATH_CROSS, windows[s], windows[w],
+                    close));
+          }
+          shortAbove[pair] = crossed;
+        }
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Finds the trading days on which the closing price was above a fixed level, such as a moving
+   * average calculated for a single day.
+   *
+   * @param prices the stock's prices on the days to check.
+   * @param level  the level to compare the closing prices to.
+   * @return the trading days closing above the level, from earliest to latest.
+   */
+  public static List<LocalDate> daysClosingAbove(PriceSeries prices, double level) {
+    List<LocalDate> days = new ArrayList<>();
+    for (int i = 0; i < prices.size(); i++) {
+      if (prices.closeAt(i) > level) {
+        days.add(prices.dateAt(i));
+      }
+    }
+    return days;
+  }
+
+  /**
+   * A single crossover found by the engine.
+   */
+  public static final class Crossover {
+    private final LocalDate date;
+    private final Type type;
+    private final int window;
+    private final int longWindow;
+    private final double close;
+
+    private Crossover(LocalDate date, Type type, int window, int longWindow, double close) {
+      this.date = date;
+      this.type = type;
+      this.window = window;
+      this.longWindow = longWindow;
+      this.close = close;
+    }
+
+    /**
+     * Gets the trading day the crossover happened on.
+     *
+     * @return the date of the crossover.
+     */
+    public LocalDate getDate() {
+      return date;
+    }
+
+    /**
+     * Gets the kind of crossover.
+     *
+     * @return the type of the crossover.
+     */
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * Gets the window of the moving average the price crossed, or of the shorter moving average
+     * for a golden or death cross.
+     *
+     * @return the window size in trading days.
+     */
+    public int getWindow() {
+      return window;
+    }
+
+    /**
+     * Gets the window of the longer moving average for a golden or death cross.
+     *
+     * @return the window size in trading days, or 0 if the price crossed a moving average.
+     */
+    public int getLongWindow() {
+      return longWindow;
+    }
+
+    /**
+     * Gets the closing price on the day of the crossover.
+     *
+     * @return the closing price.
+     */
+    public double getClose() {
+      return close;
+    }
+
+    @Override
+    public String toString() {
+      if (longWindow == 0) {
+        return date + " " + type + " (" + window + "-day)";
+      }
+      return date + " " + type + " (" + window + "-day / " + longWindow + "-day)";
+    }
+  }
+}
@@ -2,12 +2,30 @@ package stock.model;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
 
 /**
  * Represents a data source for Stock data.
  */
 public interface DataSource {
 
+  /**
+   * Gets every trading day of a stock between two dates (inclusive), along with its closing
+   * price on each of them. This is how analytics that cover more than a single day should read
+   * prices, since the whole range is found with one lookup rather than one per day.
+   *
+   * @param ticker the ticker of the stock.
+   * @param start  the first date of the range.
+   * @param end    the last date of the range.
+   * @return the trading days in the range, in order; empty if there are none (IE: start is after
+   *         end).
+   *
+   * @throws IOException if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the stock is not in the data source.
+   */
+  PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end) throws IOException;
+
   /**
    * Gets the closing price for a stock.
    *
@@ -17,7 +35,44 @@ public interface DataSource {
    *
    * @throws IOException if an I/O error occurs during data fetching.
    */
-  double getClosingPrice(LocalDate date, String ticker) throws IOException;
+  default double getClosingPrice(LocalDate date, String ticker) throws IOException {
+    PriceSeries day = getPriceRange(ticker, date, date);
+    return day.size() == 0 ? 0 : day.closeAt(0);
+  }
+
+  /**
+   * Gets the latest closing price of a stock on or before a date, which is what the stock is
+   * worth on that date even if there was no trading on it (IE: weekends and holidays). The price
+   * is found with a binary search over the stock's trading days, rather than by checking one day
+   * at a time.
+   *
+   * @param date the date to get the price as of.
+   * @param ticker the ticker of the stock.
+   * @return the latest closing price on or before the date, or 0 if the stock has no price on or
+   *         before it.
+   *
+   * @throws IOException if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the stock is not in the data source.
+   */
+  default double getClosingPriceAsOf(LocalDate date, String ticker) throws IOException {
+    return getPriceRange(ticker, LocalDate.MIN, date).getCloseAsOf(date);
+  }
+
+  /**
+   * Gets a summary of a stock's price history: its first and last trading days, its number of
+   * trading days, and any gaps in it longer than {@link TickerMetadata#DEFAULT_GAP_DAYS} days.
+   * Analytics can use it to avoid looking for prices outside the stock's history.
+   *
+   * @param ticker the ticker of the stock.
+   * @return the summary of the stock's history.
+   *
+   * @throws IOException if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the stock is not in the data source.
+   */
+  default TickerMetadata getTickerMetadata(String ticker) throws IOException {
+    return TickerMetadata.of(getPriceRange(ticker, LocalDate.MIN, LocalDate.MAX),
+            TickerMetadata.DEFAULT_GAP_DAYS);
+  }
 
   /**
    * Determines whether the data source contains a log of the stock at a certain date (If it
@@ -30,7 +85,9 @@ public interface DataSource {
    *
    * @throws IOException if an I/O error occurs during data fetching.
    */
-  boolean stockExistsAtDate(LocalDate date, String ticker) throws IOException;
+  default boolean stockExistsAtDate(LocalDate date, String ticker) throws IOException {
+    return getPriceRange(ticker, date, date).size() > 0;
+  }
 
   /**
    * Determines whether a stock exists in the data source (This could either be because the stock
@@ -42,4 +99,34 @@ public interface DataSource {
    * @throws IOException if an I/O error occurs during data fetching.
    */
   boolean stockInDataSource(String ticker) throws IOException;
+
+  /**
+   * Gets the tickers of every stock whose prices can be read straight away, without downloading
+   * anything. Analytics that look at many stocks at once (IE: a screener) use these, rather than
+   * every stock in the data source, so that they never have to wait on a download.
+   *
+   * @return the tickers of the stocks that are ready to read.
+   * @throws IOException if an I/O error occurs while finding them.
+   */
+  Set<String> getLoadedTickers() throws IOException;
+
+  /**
+   * Asks the data source to start loading stocks that will probably be needed soon, so that
+   * later lookups do not have to wait for them. This returns without waiting for anything to be
+   * loaded, and does nothing for data sources that have nothing to load ahead of time.
+   *
+   * @param tickers the tickers of the stocks.
+   */
+  default void prefetch(Collection<String> tickers) {
+  }
+
+  /**
+   * Registers a listener that is told about each stock whose prices are loaded or change (IE:
+   * newer prices are downloaded), so that anything worked out from the old prices can be thrown
+   * away or brought up to date. This does nothing for data sources whose prices never change.
+   *
+   * @param listener the listener.
+   */
+  default void addPriceListener(PriceListener listener) {
+  }
 }
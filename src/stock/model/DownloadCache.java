@@ -0,0 +1,277 @@
+package stock.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps downloaded stock CSV files on disk between runs. Each ticker's file is recorded in an
+ * index together with when it was downloaded, when it was last used, and its size on disk. A file
+ * is fresh (and can be used without going to the network) for a configurable amount of time
+ * after it was downloaded. The total size of the cache is bounded: when it grows past the limit,
+ * the files of the least recently used tickers are deleted first.
+ *
+ * <p>A ticker counts as used whenever its prices are looked up, not just when its file is read.
+ * Lookups happen far more often than the index is worth rewriting, so the time of a lookup is
+ * kept in memory at once but only written to the index at most once every
+ * {@link #QUERY_SAVE_INTERVAL} (or sooner, with the next download).</p>
+ *
+ * <p>The index is a text file in the cache directory with one line per ticker, in the format
+ * {@code TICKER,fetchedAtMillis,lastUsedMillis,bytes}.</p>
+ */
+public class DownloadCache {
+  static final String INDEX_FILE = "cache-index.txt";
+  static final Duration QUERY_SAVE_INTERVAL = Duration.ofMinutes(1);
+
+  private final Path directory;
+  private final Duration freshFor;
+  private final long maxBytes;
+  private final Clock clock;
+  private final Map<String, Entry> entries;
+  // when the index was last written, and whether lookups since then have not been written yet
+  private long lastSaved;
+  private boolean unsavedQueries;
+
+  /**
+   * Opens (or creates) a download cache in a directory.
+   *
+   * @param directory the directory downloaded files are kept in.
+   * @param freshFor  how long after being downloaded a file can be used without re-downloading.
+   * @param maxBytes  the most disk space the cached files may take up.
+   * @throws IOException if the directory cannot be created or the index cannot be read.
+   */
+  public DownloadCache(Path directory, Duration freshFor, long maxBytes) throws IOException {
+    this(directory, freshFor, maxBytes, Clock.systemUTC());
+  }
+
+  DownloadCache(Path directory, Duration freshFor, long maxBytes, Clock clock)
+          throws IOException {
+    this.directory = directory;
+    this.freshFor = freshFor;
+    this.maxBytes = maxBytes;
+    this.clock = clock;
+    this.entries = new HashMap<>();
+    Files.createDirectories(directory);
+    loadIndex();
+  }
+
+  /**
+   * Gets the path a ticker's downloaded CSV file is kept at.
+   *
+   * @param ticker the ticker of the stock.
+   * @return the path of its CSV file in the cache directory.
+   */
+  public Path pathFor(String ticker) {
+    return directory.resolve(ticker + ".csv");
+  }
+
+  /**
+   * Determines whether a ticker has a downloaded file in the cache, fresh or not.
+   *
+   * @param ticker the ticker of the stock.
+   * @return whether the cache has a file for the ticker.
+   */
+  public synchronized boolean contains(String ticker) {
+    return entries.containsKey(ticker) && Files.isRegularFile(pathFor(ticker));
+  }
+
+  /**
+   * Determines whether a ticker's downloaded file is recent enough to use without downloading
+   * it again.
+   *
+   * @param ticker the ticker of the stock.
+   * @return whether the cache has a fresh file for the ticker.
+   */
+  public synchronized boolean isFresh(String ticker) {
+    Entry entry = entries.get(ticker);
+    return entry != null && Files.isRegularFile(pathFor(ticker))
+            && clock.millis() - entry.fetchedAt < freshFor.toMillis();
+  }
+
+  /**
+   * Gets when a ticker's file was last downloaded.
+   *
+   * @param ticker the ticker of the stock.
+   * @return the download time in epoch milliseconds, or -1 if the ticker is not in the cache.
+   */
+  public synchronized long getFetchedAt(String ticker) {
+    Entry entry = entries.get(ticker);
+    return entry == null ? -1 : entry.fetchedAt;
+  }
+
+  /**
+   * Records that a ticker's file has just been downloaded to {@link #pathFor}, then evicts the
+   * least recently used tickers if the cache is now over its size limit.
+   *
+   * @param ticker the ticker of the stock.
+   * @return the tickers that were evicted to make room.
+   * @throws IOException if the index cannot be written.
+   */
+  public synchronized List<String> recordFetch(String ticker) throws IOException {
+    long now = clock.millis();
+    entries.put(ticker, new Entry(now, now, sizeOnDisk(ticker)));
+    List<String> evicted = evict(ticker);
+    saveIndex();
+    return evicted;
+  }
+
+  /**
+   * Records that a ticker's file has just been used, which makes it the last to be evicted.
+   *
+   * @param ticker the ticker of the stock.
+   * @throws IOException if the index cannot be written.
+   */
+  public synchronized void recordUse(String ticker) throws IOException {
+    Entry entry = entries.get(ticker);
+    if (entry != null) {
+      entry.lastUsed = clock.millis();
+      entry.bytes = sizeOnDisk(ticker);
+      saveIndex();
+    }
+  }
+
+  /**
+   * Records that a ticker's prices have just been looked up, which makes it the last to be
+   * evicted. The index is written at most once every {@link #QUERY_SAVE_INTERVAL}, so this can be
+   * called on every lookup.
+   *
+   * @param ticker the ticker of the stock.
+   * @throws IOException if the index cannot be written.
+   */
+  public synchronized void recordQuery(String ticker) throws IOException {
+    Entry entry = entries.get(ticker);
+    if (entry == null) {
+      return;
+    }
+    long now = clock.millis();
+    entry.lastUsed = now;
+    unsavedQueries = true;
+    if (now - lastSaved >= QUERY_SAVE_INTERVAL.toMillis()) {
+      saveIndex();
+    }
+  }
+
+  /**
+   * Gets the disk space taken up by every file in the cache, as of when each was last recorded.
+   *
+   * @return the total size in bytes.
+   */
+  public synchronized long getTotalBytes() {
+    long total = 0;
+    for (Entry entry : entries.values()) {
+      total += entry.bytes;
+    }
+    return total;
+  }
+
+  // Delete the least recently used files until the cache fits, never evicting the ticker that
+  // was just fetched
+  private List<String> evict(String keep) throws IOException {
+    List<String> evicted = new ArrayList<>();
+    long total = getTotalBytes();
+    if (total <= maxBytes) {
+      return evicted;
+    }
+
+    List<String> byLastUse = new ArrayList<>(entries.keySet());
+    byLastUse.sort(Comparator.comparingLong(ticker -> entries.get(ticker).lastUsed));
+    for (String ticker : byLastUse) {
+      if (total <= maxBytes) {
+        break;
+      }
+      if (ticker.equals(keep)) {
+        continue;
+      }
+      total -= entries.remove(ticker).bytes;
+      Files.deleteIfExists(pathFor(ticker));
+      Files.deleteIfExists(PriceCacheFile.pathFor(pathFor(ticker)));
+      evicted.add(ticker);
+    }
+    return evicted;
+  }
+
+  // The CSV plus its binary price cache, if there is one
+  private long sizeOnDisk(String ticker) throws IOException {
+    long bytes = 0;
+    for (Path file : List.of(pathFor(ticker), PriceCacheFile.pathFor(pathFor(ticker)))) {
+      if (Files.isRegularFile(file)) {
+        bytes += Files.size(file);
+      }
+    }
+    return bytes;
+  }
+
+  private void loadIndex() throws IOException {
+    Path index = directory.resolve(INDEX_FILE);
+    if (!Files.isRegularFile(index)) {
+      return;
+    }
+
+    for (String line : Files.readAllLines(index)) {
+      String[] parts = line.split(",");
+      try {
+        String ticker = parts[0];
+        if (Files.isRegularFile(pathFor(ticker))) {
+          entries.put(ticker, new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                  Long.parseLong(parts[3])));
+        }
+      } catch (RuntimeException e) {
+        // a damaged line only loses that ticker, which will simply be downloaded again
+      }
+    }
+  }
+
+  private void saveIndex() throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      data.append(entry.getKey()).append(',')
+              .append(entry.getValue().fetchedAt).append(',')
+              .append(entry.getValue().lastUsed).append(',')
+              .append(entry.getValue().bytes)
+              .append(System.lineSeparator());
+    }
+
+    Path index = directory.resolve(INDEX_FILE);
+    Path temp = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+    try {
+      Files.write(temp, data.toString().getBytes());
+      Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    lastSaved = clock.millis();
+    unsavedQueries = false;
+  }
+
+  /**
+   * Writes any lookups that have not been written to the index yet.
+   *
+   * @throws IOException if the index cannot be written.
+   */
+  public synchronized void flush() throws IOException {
+    if (unsavedQueries) {
+      saveIndex();
+    }
+  }
+
+  private static final class Entry {
+    private final long fetchedAt;
+    private long lastUsed;
+    private long bytes;
+
+    private Entry(long fetchedAt, long lastUsed, long bytes) {
+      this.fetchedAt = fetchedAt;
+      this.lastUsed = lastUsed;
+      this.bytes = bytes;
+    }
+  }
+}
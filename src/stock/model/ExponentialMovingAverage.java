@@ -0,0 +1,68 @@
+package stock.model;
+
+import java.util.Objects;
+
+/**
+ * An exponential moving average of closing prices, which weights each day by 2 / (days + 1) and
+ * every earlier day by a little less than the day after it. The first value is the simple
+ * average of the first x days, and each day after moves it towards that day's closing price.
+ */
+public final class ExponentialMovingAverage implements Indicator {
+  private final int days;
+  private final double weight;
+  private int count;
+  private double sum;
+  private double average = Double.NaN;
+
+  /**
+   * Constructs an exponential moving average.
+   *
+   * @param days the number of days in the average.
+   * @throws IllegalArgumentException if days is less than 1.
+   */
+  public ExponentialMovingAverage(int days) {
+    if (days < 1) {
+      throw new IllegalArgumentException("The number of days must be at least 1");
+    }
+    this.days = days;
+    this.weight = 2.0 / (days + 1);
+  }
+
+  @Override
+  public void update(double close) {
+    count++;
+    if (count < days) {
+      sum += close;
+    } else if (count == days) {
+      average = (sum + close) / days;
+    } else {
+      average += weight * (close - average);
+    }
+  }
+
+  /**
+   * Gets the average as of the last price given.
+   *
+   * @return the average, or NaN if fewer than x prices have been given.
+   */
+  public double value() {
+    return average;
+  }
+
+  @Override
+  public int lines() {
+    return 1;
+  }
+
+  @Override
+  public String lineName(int line) {
+    Objects.checkIndex(line, 1);
+    return days + "-day EMA";
+  }
+
+  @Override
+  public double value(int line) {
+    Objects.checkIndex(line, 1);
+    return average;
+  }
+}
@@ -0,0 +1,331 @@
+package stock.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs API downloads one at a time on a background thread, without going over the API's request
+ * quotas. Requests are limited by a token bucket that holds up to a minute's worth of requests
+ * and refills at the per-minute rate, and by a count of the requests made today, which is saved
+ * to a file so that it carries over between runs. When no request can be made yet, the scheduler
+ * waits for one instead of letting the API reject it.
+ *
+ * <p>Waiting downloads are kept in a priority queue: interactive requests, which someone is
+ * waiting on, always run before prefetches, which only load data that will probably be needed
+ * later. Requests with the same priority run in the order they were made, and asking for a
+ * ticker that is already waiting joins the existing request (moving it up if needed) rather than
+ * downloading it twice.</p>
+ *
+ * <p>Part of the daily quota ({@link #INTERACTIVE_RESERVE} of it, and at least one request) is
+ * kept back for interactive requests, so prefetching a large portfolio cannot use up the whole
+ * day and leave the user unable to look anything up. Prefetches that would eat into that part
+ * fail instead of waiting.</p>
+ */
+public class FetchScheduler {
+
+  /**
+   * How urgently a download is needed. Interactive downloads run before prefetches.
+   */
+  public enum Priority {
+    INTERACTIVE, PREFETCH
+  }
+
+  /**
+   * Downloads a single ticker's data.
+   */
+  public interface Fetcher {
+
+    /**
+     * Downloads a ticker's data, making at most one request to the API. If one request is not
+     * enough, this returns false and is called again once another request can be made.
+     *
+     * @param ticker the ticker of the stock.
+     * @return whether the download is finished.
+     * @throws IOException if the download fails.
+     */
+    boolean fetch(String ticker) throws IOException;
+  }
+
+  /**
+   * The share of the daily quota that only interactive requests may use.
+   */
+  public static final double INTERACTIVE_RESERVE = 0.2;
+
+  private final Fetcher fetcher;
+  private final int perMinute;
+  private final int perDay;
+  // the most requests prefetches may make in a day
+  private final int prefetchPerDay;
+  private final Path usageFile;
+  private final Clock clock;
+
+  // only touched while holding this scheduler's lock, so that taking a request off the queue and
+  // putting it back cannot come between a submit finding it and moving it up
+  private final PriorityQueue<Request> queue = new PriorityQueue<>();
+  private final Map<String, Request> waiting = new HashMap<>();
+  private long nextSequence;
+  private Thread worker;
+
+  private double tokens;
+  private long lastRefill;
+  private LocalDate usageDay;
+  private int usedToday;
+
+  /**
+   * Creates a fetch scheduler. No thread is started until the first download is requested.
+   *
+   * @param fetcher   does the downloading.
+   * @param perMinute the most requests the API accepts per minute.
+   * @param perDay    the most requests the API accepts per day.
+   * @param usageFile the file the number of requests made today is saved in.
+   * @throws IOException              if the usage file exists but cannot be read.
+   * @throws IllegalArgumentException if either quota is less than 1.
+   */
+  public FetchScheduler(Fetcher fetcher, int perMinute, int perDay, Path usageFile)
+          throws IOException {
+    this(fetcher, perMinute, perDay, usageFile, Clock.systemUTC());
+  }
+
+  FetchScheduler(Fetcher fetcher, int perMinute, int perDay, Path usageFile, Clock clock)
+          throws IOException {
+    if (perMinute < 1 || perDay < 1) {
+      throw new IllegalArgumentException("Request quotas must be at least 1.");
+    }
+    this.fetcher = fetcher;
+    this.perMinute = perMinute;
+    this.perDay = perDay;
+    this.prefetchPerDay = perDay - Math.max(1, (int) Math.ceil(perDay * INTERACTIVE_RESERVE));
+    this.usageFile = usageFile;
+    this.clock = clock;
+    this.tokens = perMinute;
+    this.lastRefill = clock.millis();
+    this.usageDay = LocalDate.now(clock);
+    loadUsage();
+  }
+
+  /**
+   * Queues a ticker to be downloaded. If the ticker is already waiting to be downloaded, the
+   * existing request is returned, and is moved up if the new request is more urgent.
+   *
+   * @param ticker   the ticker of the stock.
+   * @param priority how urgently the download is needed.
+   * @return a future that completes once the download has finished, or has failed.
+   */
+  public synchronized Future<Void> submit(String ticker, Priority priority) {
+    Request request = waiting.get(ticker);
+    if (request != null) {
+      if (priority.compareTo(request.priority) < 0 && queue.remove(request)) {
+        Request promoted = new Request(ticker, priority, nextSequence++, request.result);
+        waiting.put(ticker, promoted);
+        queue.add(promoted);
+      }
+      return request.result;
+    }
+
+    request = new Request(ticker, priority, nextSequence++, new CompletableFuture<>());
+    waiting.put(ticker, request);
+    queue.add(request);
+    notifyAll();
+    if (worker == null) {
+      worker = new Thread(this::run, "FetchScheduler");
+      worker.setDaemon(true);
+      worker.start();
+    }
+    return request.result;
+  }
+
+  /**
+   * Downloads a ticker ahead of any prefetches, and waits for the download to finish.
+   *
+   * @param ticker the ticker of the stock.
+   * @throws IOException if the download fails, today's quota has been used up, or the thread is
+   *                     interrupted while waiting.
+   */
+  public void fetch(String ticker) throws IOException {
+    try {
+      submit(ticker, Priority.INTERACTIVE).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for data for " + ticker, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Gets the number of requests made to the API today, including those from earlier runs.
+   *
+   * @return the number of requests made today.
+   */
+  public synchronized int getRequestsToday() {
+    rollOverDay();
+    return usedToday;
+  }
+
+  /**
+   * Takes a request token for an interactive request if one is available.
+   *
+   * @return 0 if a token was taken, the number of milliseconds until one will be available, or
+   *         -1 if today's quota has been used up.
+   */
+  synchronized long acquire() {
+    return acquire(Priority.INTERACTIVE);
+  }
+
+  /**
+   * Takes a request token if one is available. Prefetches cannot use the part of today's quota
+   * kept back for interactive requests.
+   *
+   * @param priority how urgently the request is needed.
+   * @return 0 if a token was taken, the number of milliseconds until one will be available, or
+   *         -1 if the quota this priority may use today has been used up.
+   */
+  synchronized long acquire(Priority priority) {
+    rollOverDay();
+    if (usedToday >= (priority == Priority.INTERACTIVE ? perDay : prefetchPerDay)) {
+      return -1;
+    }
+
+    long now = clock.millis();
+    tokens = Math.min(perMinute, tokens + (now - lastRefill) * perMinute / 60_000.0);
+    lastRefill = now;
+    if (tokens < 1) {
+      // the small allowance stops rounding error from adding a millisecond
+      return Math.max(1, (long) Math.ceil((1 - tokens) * 60_000 / perMinute - 1e-6));
+    }
+
+    tokens--;
+    usedToday++;
+    try {
+      saveUsage();
+    } catch (IOException e) {
+      // the request is still counted for this run, so the quota is kept either way
+      e.printStackTrace();
+    }
+    return 0;
+  }
+
+  private void run() {
+    while (true) {
+      Request request;
+      try {
+        long wait;
+        synchronized (this) {
+          while (queue.isEmpty()) {
+            wait();
+          }
+          request = queue.poll();
+          wait = acquire(request.priority);
+          if (wait > 0) {
+            // put it back so that anything more urgent that arrives while waiting goes first
+            queue.add(request);
+          } else {
+            waiting.remove(request.ticker, request);
+          }
+        }
+        if (wait > 0) {
+          Thread.sleep(wait);
+          continue;
+        }
+        if (wait < 0) {
+          String message = request.priority == Priority.INTERACTIVE
+                  ? "The daily API request quota of " + perDay + " has been used up; try "
+                  + request.ticker + " again tomorrow."
+                  : "Prefetching " + request.ticker + " would use requests kept for lookups.";
+          request.result.completeExceptionally(new IOException(message));
+          continue;
+        }
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      try {
+        if (fetcher.fetch(request.ticker)) {
+          request.result.complete(null);
+        } else {
+          // keeps its place in the queue, but needs another token
+          synchronized (this) {
+            waiting.putIfAbsent(request.ticker, request);
+            queue.add(request);
+          }
+        }
+      } catch (Exception e) {
+        request.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private void rollOverDay() {
+    LocalDate today = LocalDate.now(clock);
+    if (!today.equals(usageDay)) {
+      usageDay = today;
+      usedToday = 0;
+    }
+  }
+
+  // The usage file holds a single line: the date and the number of requests made on it
+  private void loadUsage() throws IOException {
+    if (!Files.isRegularFile(usageFile)) {
+      return;
+    }
+    List<String> lines = Files.readAllLines(usageFile);
+    try {
+      String[] parts = lines.get(0).split(",");
+      if (LocalDate.parse(parts[0].trim()).equals(usageDay)) {
+        usedToday = Integer.parseInt(parts[1].trim());
+      }
+    } catch (RuntimeException e) {
+      // a damaged file is treated as no requests made today
+    }
+  }
+
+  private void saveUsage() throws IOException {
+    Path temp = Files.createTempFile(usageFile.toAbsolutePath().getParent(),
+            usageFile.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temp, List.of(usageDay + "," + usedToday));
+      Files.move(temp, usageFile, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  // A waiting download, ordered by priority and then by when it was requested
+  private static final class Request implements Comparable<Request> {
+    private final String ticker;
+    private final Priority priority;
+    private final long sequence;
+    private final CompletableFuture<Void> result;
+
+    private Request(String ticker, Priority priority, long sequence,
+                    CompletableFuture<Void> result) {
+      this.ticker = ticker;
+      this.priority = priority;
+      this.sequence = sequence;
+      this.result = result;
+    }
+
+    @Override
+    public int compareTo(Request other) {
+      int byPriority = priority.compareTo(other.priority);
+      return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+    }
+  }
+}
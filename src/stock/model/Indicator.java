@@ -0,0 +1,45 @@
+package stock.model;
+
+/**
+ * A technical indicator worked out from a stock's closing prices one day at a time. An indicator
+ * is given each closing price in order, oldest first, and keeps only as much state as it needs to
+ * work out its next values, so a whole price history is run through it in a single pass and newer
+ * prices can be added later without going over the older ones again.
+ *
+ * <p>An indicator can have more than one line (IE: Bollinger bands have a middle, upper and lower
+ * band). Each line is NaN until enough prices have been given to work it out.</p>
+ */
+public interface Indicator {
+
+  /**
+   * Gives the indicator the closing price of the next trading day.
+   *
+   * @param close the closing price.
+   */
+  void update(double close);
+
+  /**
+   * Gets the number of lines the indicator has.
+   *
+   * @return the number of lines.
+   */
+  int lines();
+
+  /**
+   * Gets the name of one of the indicator's lines.
+   *
+   * @param line the position of the line.
+   * @return the name of the line.
+   * @throws IndexOutOfBoundsException if there is no such line.
+   */
+  String lineName(int line);
+
+  /**
+   * Gets the value of one of the indicator's lines as of the last price given.
+   *
+   * @param line the position of the line.
+   * @return the value of the line, or NaN if not enough prices have been given yet.
+   * @throws IndexOutOfBoundsException if there is no such line.
+   */
+  double value(int line);
+}
@@ -0,0 +1,124 @@
+package stock.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The values of an indicator's lines on each trading day in a range. Days are stored as an array
+ * of epoch days with one parallel array of values per line, the same way {@link PriceSeries}
+ * stores prices. A line's value is NaN on days before enough prices were known to work it out.
+ * An IndicatorSeries is immutable.
+ */
+public final class IndicatorSeries {
+  private final int[] days;
+  private final String[] names;
+  private final double[][] values;
+
+  // Takes ownership of the arrays; values[line] must be as long as days
+  IndicatorSeries(int[] days, String[] names, double[][] values) {
+    this.days = days;
+    this.names = names;
+    this.values = values;
+  }
+
+  /**
+   * Gets the number of trading days in the series.
+   *
+   * @return the number of trading days.
+   */
+  public int size() {
+    return days.length;
+  }
+
+  /**
+   * Gets the trading day at a position in the series, as an epoch day.
+   *
+   * @param index the position in the series (0 is the earliest trading day).
+   * @return the epoch day at that position.
+   */
+  public int dayAt(int index) {
+    return days[Objects.checkIndex(index, days.length)];
+  }
+
+  /**
+   * Gets the trading day at a position in the series.
+   *
+   * @param index the position in the series (0 is the earliest trading day).
+   * @return the date at that position.
+   */
+  public LocalDate dateAt(int index) {
+    return LocalDate.ofEpochDay(dayAt(index));
+  }
+
+  /**
+   * Gets the number of lines in the series.
+   *
+   * @return the number of lines.
+   */
+  public int lines() {
+    return names.length;
+  }
+
+  /**
+   * Gets the name of one of the lines.
+   *
+   * @param line the position of the line.
+   * @return the name of the line.
+   * @throws IndexOutOfBoundsException if there is no such line.
+   */
+  public String lineName(int line) {
+    return names[Objects.checkIndex(line, names.length)];
+  }
+
+  /**
+   * Gets the value of a line at a position in the series.
+   *
+   * @param line  the position of the line.
+   * @param index the position in the series.
+   * @return the value, or NaN if it could not be worked out on that day.
+   * @throws IndexOutOfBoundsException if there is no such line or position.
+   */
+  public double valueAt(int line, int index) {
+    return values[Objects.checkIndex(line, names.length)][Objects.checkIndex(index, days.length)];
+  }
+
+  /**
+   * Copies the trading days of the series into a new array.
+   *
+   * @return the epoch days, earliest first.
+   */
+  public int[] toDayArray() {
+    return days.clone();
+  }
+
+  /**
+   * Copies the values of a line into a new array, in the same order as {@link #toDayArray()}.
+   *
+   * @param line the position of the line.
+   * @return the values of the line.
+   * @throws IndexOutOfBoundsException if there is no such line.
+   */
+  public double[] toArray(int line) {
+    return values[Objects.checkIndex(line, names.length)].clone();
+  }
+
+  /**
+   * Gets one of the lines as a PriceSeries, leaving out the days it could not be worked out on,
+   * so that it can be used anywhere a series of prices can (IE: to find crossovers).
+   *
+   * @param line the position of the line.
+   * @return the line's values on each day they could be worked out.
+   * @throws IndexOutOfBoundsException if there is no such line.
+   */
+  public PriceSeries toPriceSeries(int line) {
+    double[] lineValues = values[Objects.checkIndex(line, names.length)];
+    int first = 0;
+    while (first < lineValues.length && Double.isNaN(lineValues[first])) {
+      first++;
+    }
+    // once a line has a value it keeps having one, so only the start needs to be left out
+    return PriceSeries.fromSortedArrays(Arrays.copyOfRange(days, first, days.length),
+            Arrays.copyOfRange(lineValues, first, lineValues.length));
+  }
+}
@@ -0,0 +1,100 @@
+package stock.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Runs an indicator over a stock's price history and remembers its values on every trading day.
+ * When newer prices arrive (IE: the data source downloads the latest days), {@link #update}
+ * gives the indicator only the days after the last one it has seen, so the history is never gone
+ * over again. Only days added after the last one seen are picked up: if earlier prices are
+ * revised, the tracker has to be replaced with a new one (as {@link BasicStockModel} does when
+ * the data source reports that a history was replaced rather than added to).
+ *
+ * <p>A tracker is safe to use from more than one thread.</p>
+ */
+public final class IndicatorTracker {
+  private final Indicator indicator;
+  private int[] days;
+  private double[][] values;
+  private int size;
+
+  /**
+   * Constructs a tracker that has not seen any prices yet.
+   *
+   * @param indicator the indicator to run, which should not have been given any prices.
+   */
+  public IndicatorTracker(Indicator indicator) {
+    this.indicator = indicator;
+    this.days = new int[16];
+    this.values = new double[indicator.lines()][16];
+  }
+
+  /**
+   * Gives the indicator every price in a series that is after the last trading day it has seen.
+   * Prices on or before that day are skipped, so the same history can be passed again with newer
+   * days added to the end.
+   *
+   * @param prices the price history of the stock.
+   * @return this tracker.
+   */
+  public synchronized IndicatorTracker update(PriceSeries prices) {
+    int first = 0;
+    if (size > 0) {
+      int lastDay = days[size - 1];
+      // nothing can come after the last possible day
+      first = lastDay == Integer.MAX_VALUE ? prices.size() : prices.ceilingIndex(lastDay + 1);
+    }
+    for (int i = first; i < prices.size(); i++) {
+      indicator.update(prices.closeAt(i));
+      if (size == days.length) {
+        grow();
+      }
+      days[size] = prices.dayAt(i);
+      for (int line = 0; line < values.length; line++) {
+        values[line][size] = indicator.value(line);
+      }
+      size++;
+    }
+    return this;
+  }
+
+  /**
+   * Gets the indicator's values on every trading day between two dates (inclusive) that it has
+   * seen.
+   *
+   * @param start the first date of the range.
+   * @param end   the last date of the range.
+   * @return the values in the range, which is empty if start is after end.
+   */
+  public synchronized IndicatorSeries getSeries(LocalDate start, LocalDate end) {
+    int first = lowerBound(PriceSeries.toEpochDay(start));
+    int last = Math.max(first, upperBound(PriceSeries.toEpochDay(end)));
+    String[] names = new String[values.length];
+    double[][] range = new double[values.length][];
+    for (int line = 0; line < values.length; line++) {
+      names[line] = indicator.lineName(line);
+      range[line] = Arrays.copyOfRange(values[line], first, last);
+    }
+    return new IndicatorSeries(Arrays.copyOfRange(days, first, last), names, range);
+  }
+
+  // The position of the first day seen on or after a day
+  private int lowerBound(int epochDay) {
+    int index = Arrays.binarySearch(days, 0, size, epochDay);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  // The position after the last day seen on or before a day
+  private int upperBound(int epochDay) {
+    int index = Arrays.binarySearch(days, 0, size, epochDay);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  private void grow() {
+    days = Arrays.copyOf(days, days.length * 2);
+    for (int line = 0; line < values.length; line++) {
+      values[line] = Arrays.copyOf(values[line], days.length);
+    }
+  }
+}
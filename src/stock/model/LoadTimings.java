@@ -0,0 +1,80 @@
+package stock.model;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How long a data source took to load its stock files: the time spent on each file, the total
+ * wall-clock time, and how many threads were used. Comparing the sum of the per-file times with
+ * the total shows how well loading scaled across cores.
+ */
+public final class LoadTimings {
+  private final int parallelism;
+  private final Map<String, Duration> fileTimes;
+  private final Duration total;
+
+  /**
+   * Constructs a record of load timings.
+   *
+   * @param parallelism the number of threads used to load the files.
+   * @param fileTimes   the time spent loading each file, keyed by ticker.
+   * @param total       the wall-clock time spent loading every file.
+   */
+  public LoadTimings(int parallelism, Map<String, Duration> fileTimes, Duration total) {
+    this.parallelism = parallelism;
+    this.fileTimes = Collections.unmodifiableMap(new LinkedHashMap<>(fileTimes));
+    this.total = total;
+  }
+
+  /**
+   * Gets the number of threads used to load the files.
+   *
+   * @return the parallelism level.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Gets the time spent loading each file.
+   *
+   * @return a map of tickers to the time spent loading that ticker's file.
+   */
+  public Map<String, Duration> getFileTimes() {
+    return fileTimes;
+  }
+
+  /**
+   * Gets the wall-clock time spent loading every file.
+   *
+   * @return the total load time.
+   */
+  public Duration getTotal() {
+    return total;
+  }
+
+  /**
+   * Gets the sum of the time spent on each file. With more than one thread this is larger than
+   * the total, since files are loaded at the same time.
+   *
+   * @return the summed per-file load time.
+   */
+  public Duration getSumOfFileTimes() {
+    Duration sum = Duration.ZERO;
+    for (Duration time : fileTimes.values()) {
+      sum = sum.plus(time);
+    }
+    return sum;
+  }
+
+  @Override
+  public String toString() {
+    double speedup = total.isZero() ? 1
+            : (double) getSumOfFileTimes().toNanos() / total.toNanos();
+    return String.format("Loaded %d files in %d ms on %d thread(s) (%d ms of file work, %.2fx)",
+            fileTimes.size(), total.toMillis(), parallelism, getSumOfFileTimes().toMillis(),
+            speedup);
+  }
+}
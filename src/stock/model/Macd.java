@@ -0,0 +1,75 @@
+package stock.model;
+
+import java.util.Objects;
+
+/**
+ * The moving average convergence/divergence (MACD) of closing prices. Its lines are the MACD
+ * line (a short exponential moving average minus a long one), the signal line (an exponential
+ * moving average of the MACD line) and the histogram (the MACD line minus the signal line).
+ */
+public final class Macd implements Indicator {
+  private static final String[] NAMES = {"MACD", "Signal", "Histogram"};
+
+  private final ExponentialMovingAverage fast;
+  private final ExponentialMovingAverage slow;
+  private final ExponentialMovingAverage signal;
+  private double macd = Double.NaN;
+
+  /**
+   * Constructs a MACD with the usual 12-day and 26-day averages and a 9-day signal line.
+   */
+  public Macd() {
+    this(12, 26, 9);
+  }
+
+  /**
+   * Constructs a MACD.
+   *
+   * @param fastDays   the number of days in the short average.
+   * @param slowDays   the number of days in the long average.
+   * @param signalDays the number of days in the signal line's average.
+   * @throws IllegalArgumentException if any number of days is less than 1, or the short average
+   *                                  is not shorter than the long one.
+   */
+  public Macd(int fastDays, int slowDays, int signalDays) {
+    if (fastDays >= slowDays) {
+      throw new IllegalArgumentException("The short average must be shorter than the long one");
+    }
+    this.fast = new ExponentialMovingAverage(fastDays);
+    this.slow = new ExponentialMovingAverage(slowDays);
+    this.signal = new ExponentialMovingAverage(signalDays);
+  }
+
+  @Override
+  public void update(double close) {
+    fast.update(close);
+    slow.update(close);
+    // the long average is the last to be ready, so the signal line starts once it is
+    if (!Double.isNaN(slow.value())) {
+      macd = fast.value() - slow.value();
+      signal.update(macd);
+    }
+  }
+
+  @Override
+  public int lines() {
+    return NAMES.length;
+  }
+
+  @Override
+  public String lineName(int line) {
+    return NAMES[Objects.checkIndex(line, NAMES.length)];
+  }
+
+  @Override
+  public double value(int line) {
+    switch (Objects.checkIndex(line, NAMES.length)) {
+      case 0:
+        return macd;
+      case 1:
+        return signal.value();
+      default:
+        return macd - signal.value();
+    }
+  }
+}
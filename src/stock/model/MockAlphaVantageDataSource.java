@@ -19,7 +19,7 @@ import java.util.Set;
  * without making actual API requests.
  */
 public class MockAlphaVantageDataSource extends AlphaVantageDataSource {
-  private Map<String, Map<LocalDate, Double>> simulatedStockData = new HashMap<>();
+  private PriceStore simulatedStockData = new PriceStore();
   private Map<String, String> simulatedAPIResponses = new HashMap<>();
 
   public MockAlphaVantageDataSource() {
@@ -33,9 +33,9 @@ public class MockAlphaVantageDataSource extends AlphaVantageDataSource {
             + "volume\n2021-01-01,132.43,133.00,131.10,132.69,1000000");
 
     // Initialize simulated stock data
-    Map<LocalDate, Double> aaplPrices = new HashMap<>();
-    aaplPrices.put(LocalDate.of(2021, 1, 1), 132.69);
-    simulatedStockData.put("AAPL", aaplPrices);
+    simulatedStockData.put("AAPL", new PriceSeries.Builder()
+            .add(LocalDate.of(2021, 1, 1), 132.69)
+            .build());
 
     // Add tickers to the ticker list using reflection
     try {
@@ -76,15 +76,27 @@ public class MockAlphaVantageDataSource extends AlphaVantageDataSource {
   }
 
 
+  @Override
+  public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end) {
+    return simulatedStockData.contains(ticker)
+            ? simulatedStockData.get(ticker).slice(start, end)
+            : new PriceSeries.Builder().build();
+  }
+
+  @Override
+  public Set<String> getLoadedTickers() {
+    return simulatedStockData.tickers();
+  }
+
   @Override
   public boolean stockExistsAtDate(LocalDate date, String ticker) {
-    return simulatedStockData.containsKey(ticker)
-            && simulatedStockData.get(ticker).containsKey(date);
+    return simulatedStockData.contains(ticker)
+            && simulatedStockData.get(ticker).contains(date);
   }
 
   @Override
   public double getClosingPrice(LocalDate date, String ticker) {
-    return stockExistsAtDate(date, ticker) ? simulatedStockData.get(ticker).get(date) : 0;
+    return stockExistsAtDate(date, ticker) ? simulatedStockData.get(ticker).getClose(date) : 0;
   }
 
 
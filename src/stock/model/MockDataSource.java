@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A mock implementation of the DataSource interface for testing purposes.
@@ -22,6 +24,8 @@ public class MockDataSource implements DataSource {
           LocalDate.of(2024,5,12),
           LocalDate.of(2024,5,15));
   private Map<LocalDate, Double> closingPrices = new HashMap<>();
+  private PriceSeries tradingDays;
+  private List<PriceListener> listeners = new CopyOnWriteArrayList<>();
 
 
   /**
@@ -36,7 +40,10 @@ public class MockDataSource implements DataSource {
       exists = true;
     }
 
+    PriceSeries before = getTradingDays();
     stockExistence.put(date, exists);
+    tradingDays = null;
+    pricesChanged(before);
   }
 
   /**
@@ -45,7 +52,24 @@ public class MockDataSource implements DataSource {
    * @param price the price of the stock.
    */
   public void setClosingPrice(LocalDate date, double price) {
+    PriceSeries before = getTradingDays();
     closingPrices.put(date, price);
+    tradingDays = null;
+    pricesChanged(before);
+  }
+
+  @Override
+  public void addPriceListener(PriceListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end)
+          throws IOException {
+    if (!tickers.contains(ticker)) {
+      throw new IOException("There is no such ticker");
+    }
+    return getTradingDays().slice(start, end);
   }
 
   @Override
@@ -61,11 +85,45 @@ public class MockDataSource implements DataSource {
     if (!tickers.contains(ticker)) {
       throw new IOException("There is no such ticker");
     }
-    return stockExistence.getOrDefault(date, false);
+    return getTradingDays().contains(date);
   }
 
   @Override
   public boolean stockInDataSource(String ticker) throws IOException {
     return tickers.contains(ticker);
   }
+
+  @Override
+  public Set<String> getLoadedTickers() {
+    return Set.copyOf(tickers);
+  }
+
+  // Every ticker shares the same prices, so they all change together. Every ticker always has
+  // prices, even if there are no trading days yet, so none of them is ever reported as loaded
+  private void pricesChanged(PriceSeries before) {
+    PriceListener.Change change = PriceStore.change(before, getTradingDays());
+    if (change == null) {
+      return;
+    }
+    for (String ticker : tickers) {
+      for (PriceListener listener : listeners) {
+        listener.pricesChanged(ticker, change);
+      }
+    }
+  }
+
+  // The simulated price history shared by every ticker: all the dates marked as existing, with
+  // whatever closing price was set for them
+  private PriceSeries getTradingDays() {
+    if (tradingDays == null) {
+      PriceSeries.Builder builder = new PriceSeries.Builder(stockExistence.size());
+      for (Map.Entry<LocalDate, Boolean> entry : stockExistence.entrySet()) {
+        if (entry.getValue()) {
+          builder.add(entry.getKey(), closingPrices.getOrDefault(entry.getKey(), 0.0));
+        }
+      }
+      tradingDays = builder.build();
+    }
+    return tradingDays;
+  }
 }
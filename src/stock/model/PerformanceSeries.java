@@ -0,0 +1,130 @@
+package stock.model;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The value of a portfolio on every calendar day from a start date up to (but not including) an
+ * end date. As there is one value per day with no gaps, the values are stored in a single
+ * primitive array indexed by the number of days since the start date, so looking up a date is
+ * arithmetic rather than a hash probe.
+ *
+ * <p>It can be used as a read-only map from dates to values, whose entries are in date order.
+ * A PerformanceSeries is immutable.</p>
+ */
+public final class PerformanceSeries extends AbstractMap<LocalDate, Double> {
+  private final LocalDate startDate;
+  private final long startDay;
+  private final double[] values;
+
+  // Takes ownership of the values, where values[i] is the value on startDate + i days
+  PerformanceSeries(LocalDate startDate, double[] values) {
+    this.startDate = startDate;
+    this.startDay = startDate.toEpochDay();
+    this.values = values;
+  }
+
+  /**
+   * Gets the first date in the series.
+   *
+   * @return the start date.
+   */
+  public LocalDate getStartDate() {
+    return startDate;
+  }
+
+  /**
+   * Gets the day after the last date in the series.
+   *
+   * @return the end date, which is not in the series.
+   */
+  public LocalDate getEndDate() {
+    return startDate.plusDays(values.length);
+  }
+
+  /**
+   * Gets the value a number of days after the start date.
+   *
+   * @param index the number of days after the start date.
+   * @return the value of the portfolio on that day.
+   * @throws IndexOutOfBoundsException if the day is not in the series.
+   */
+  public double valueAt(int index) {
+    if (index < 0 || index >= values.length) {
+      throw new IndexOutOfBoundsException("Index " + index + " is not within a series of "
+              + values.length + " days.");
+    }
+    return values[index];
+  }
+
+  /**
+   * Copies the values into a new array, from the start date on.
+   *
+   * @return the value on each day.
+   */
+  public double[] toArray() {
+    return values.clone();
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public Double get(Object key) {
+    int index = indexOf(key);
+    return index >= 0 ? values[index] : null;
+  }
+
+  // The position of a date in the series, or -1 if it is not a date in the series
+  private int indexOf(Object key) {
+    if (!(key instanceof LocalDate)) {
+      return -1;
+    }
+    long index = ((LocalDate) key).toEpochDay() - startDay;
+    return index >= 0 && index < values.length ? (int) index : -1;
+  }
+
+  @Override
+  public Set<Entry<LocalDate, Double>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public int size() {
+        return values.length;
+      }
+
+      @Override
+      public Iterator<Entry<LocalDate, Double>> iterator() {
+        return new Iterator<>() {
+          private int next;
+
+          @Override
+          public boolean hasNext() {
+            return next < values.length;
+          }
+
+          @Override
+          public Entry<LocalDate, Double> next() {
+            if (next >= values.length) {
+              throw new NoSuchElementException();
+            }
+            Entry<LocalDate, Double> entry = new SimpleImmutableEntry<>(
+                    startDate.plusDays(next), values[next]);
+            next++;
+            return entry;
+          }
+        };
+      }
+    };
+  }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The PortfolioStockModel interface provides methods for managing stock portfolios and
@@ -60,6 +61,16 @@ public interface PortfolioStockModel extends StockModel {
   Map<String, Double> getPortfolioContentsDecimal(String name, LocalDate date) throws
           IllegalArgumentException;
 
+  /**
+   * Get the tickers of every stock that has ever been in a portfolio, including stocks that have
+   * since been sold.
+   *
+   * @param name the name of the portfolio.
+   * @return     the tickers of the stocks in the portfolio's history.
+   * @throws IllegalArgumentException if the portfolio doesn't exist.
+   */
+  Set<String> getPortfolioTickers(String name) throws IllegalArgumentException;
+
   /**
    * sell the stock from the portfolio using given date.
    *
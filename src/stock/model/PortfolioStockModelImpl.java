@@ -1,27 +1,46 @@
 package stock.model;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
+import stock.model.portfolio.Holdings;
 import stock.model.portfolio.Portfolio;
+import stock.model.portfolio.PortfolioRegistry;
 
 /**
  * A simple implementation of the PortfolioStockModel. It takes in a datasource, which is the stream
  * where the model will take in data. This can be an API, CSV file, etc. It also takes in a
  * folder path where all portfolio saves will be stored.
+ *
+ * <p>The performance of a portfolio over a long range of dates with many stocks is worked out in
+ * parallel on a fork-join pool (the common pool unless another is given).</p>
+ *
+ * <p>Portfolios are kept in a {@link PortfolioRegistry}, so finding one by name does not search
+ * through the others, and one model can be shared by several sessions at once.</p>
  */
 public class PortfolioStockModelImpl implements PortfolioStockModel {
+  // ranges with fewer days times stocks than this are valued on the calling thread
+  private static final int PARALLEL_THRESHOLD = 20_000;
+  private static final int MIN_CHUNK_DAYS = 90;
 
   private final DataSource dataSource;
   private final StockModel simpleModel;
-  private final List<Portfolio> portfolios;
+  private final PortfolioRegistry portfolios;
   private final String portfoliosDirectory;
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
 
   /**
    * Constructs a new PortfolioStockModel.
@@ -29,10 +48,29 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
    * @param portfoliosDirectory the directory path that portfolio saves will be saved to.
    */
   public PortfolioStockModelImpl(DataSource dataSource, String portfoliosDirectory) {
+    this(dataSource, portfoliosDirectory, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new PortfolioStockModel that works out long performance series on a given pool.
+   * @param dataSource          the datastream that the stock data comes from.
+   * @param portfoliosDirectory the directory path that portfolio saves will be saved to.
+   * @param pool                the pool to value chunks of a performance series on.
+   */
+  public PortfolioStockModelImpl(DataSource dataSource, String portfoliosDirectory,
+                                 ForkJoinPool pool) {
+    this(dataSource, portfoliosDirectory, pool, PARALLEL_THRESHOLD);
+  }
+
+  // Lets tests split even small performance series into chunks
+  PortfolioStockModelImpl(DataSource dataSource, String portfoliosDirectory, ForkJoinPool pool,
+                          int parallelThreshold) {
     this.dataSource = dataSource;
     simpleModel = new BasicStockModel(dataSource);
-    portfolios = new ArrayList<>();
+    portfolios = new PortfolioRegistry();
     this.portfoliosDirectory = portfoliosDirectory;
+    this.pool = pool;
+    this.parallelThreshold = parallelThreshold;
   }
 
   @Override
@@ -41,6 +79,11 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
     return getPortfolio(name).getComposition(date);
   }
 
+  @Override
+  public Set<String> getPortfolioTickers(String name) throws IllegalArgumentException {
+    return getPortfolio(name).getTickers();
+  }
+
   @Override
   public void addStockToPortfolio(String name, String ticker, int shares, LocalDate date) throws
           IOException, IllegalArgumentException {
@@ -59,59 +102,86 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
     return simpleModel.getGainOverTime(startDate, endDate, ticker);
   }
 
+  @Override
+  public double[] getDailyReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return simpleModel.getDailyReturns(startDate, endDate, ticker);
+  }
+
+  @Override
+  public double[] getDailyLogReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException {
+    return simpleModel.getDailyLogReturns(startDate, endDate, ticker);
+  }
+
   @Override
   public double getMovingDayAverage(LocalDate endDate, int days, String ticker) throws IOException {
     return simpleModel.getMovingDayAverage(endDate, days, ticker);
   }
 
+  @Override
+  public PriceSeries getMovingAverageSeries(LocalDate startDate, LocalDate endDate, int days,
+                                            String ticker) throws IOException {
+    return simpleModel.getMovingAverageSeries(startDate, endDate, days, ticker);
+  }
+
   @Override
   public List<LocalDate> getCrossover(LocalDate endDate, int days, String ticker) throws
           IOException {
     return simpleModel.getCrossover(endDate, days, ticker);
   }
 
+  @Override
+  public List<CrossoverEngine.Crossover> getCrossovers(LocalDate startDate, LocalDate endDate,
+                                                       String ticker, int... windows)
+          throws IOException {
+    return simpleModel.getCrossovers(startDate, endDate, ticker, windows);
+  }
+
+  @Override
+  public IndicatorSeries getIndicatorSeries(LocalDate startDate, LocalDate endDate, String ticker,
+                                            String name, Supplier<Indicator> indicator)
+          throws IOException {
+    return simpleModel.getIndicatorSeries(startDate, endDate, ticker, name, indicator);
+  }
+
+  @Override
+  public List<StockScreener.Result> screenStocks(StockScreener.Screen screen, int limit)
+          throws IOException {
+    return simpleModel.screenStocks(screen, limit);
+  }
+
   @Override
   public void createNewPortfolio(String name) {
-    if (getPortfolioNames().contains(name)) {
-      throw new IllegalArgumentException("A portfolio with that name already exists!");
-    }
-    portfolios.add(new Portfolio(name));
+    portfolios.create(name);
   }
 
   @Override
   public void deletePortfolio(String name) {
-    portfolios.remove(getPortfolio(name));
+    portfolios.remove(name);
   }
 
   @Override
   public void renamePortfolio(String oldName, String newName) throws IllegalArgumentException {
-    if (getPortfolioNames().contains(newName)) {
-      throw new IllegalArgumentException("A portfolio with newName already exists!");
-    }
-
-    getPortfolio(oldName).rename(newName);
+    portfolios.rename(oldName, newName);
   }
 
   @Override
   public List<String> getPortfolios() {
-    return getPortfolioNames();
+    // callers have always been free to change the list they get, so they get a copy
+    return new ArrayList<>(getPortfolioNames());
+  }
+
+  @Override
+  public boolean portfolioExists(String name) {
+    return portfolios.contains(name);
   }
 
   @Override
   public double getPortfolioValue(String name, LocalDate date) throws IOException,
           IllegalArgumentException {
     var port = getPortfolio(name);
-
-    var prices = new HashMap<String, Double>();
-    for (var key : port.getComposition(date).keySet()) {
-      var dt = date;
-      while (!dataSource.stockExistsAtDate(dt, key) && !dt.equals(LocalDate.of(1990, 1,
-              1))) {
-        dt = dt.minusDays(1);
-      }
-      prices.put(key, dataSource.getClosingPrice(dt, key));
-    }
-
+    var prices = getPricesAsOf(port, date);
     return port.getValue(date, prices);
   }
 
@@ -124,17 +194,7 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
   public Map<String, Double> getPortfolioDistribution(String name, LocalDate date) throws
           IOException, IllegalArgumentException {
     var port = getPortfolio(name);
-
-    var prices = new HashMap<String, Double>();
-    for (var key : port.getComposition(date).keySet()) {
-      var dt = date;
-      while (!dataSource.stockExistsAtDate(dt, key) && !dt.equals(LocalDate.of(1990, 1,
-              1))) {
-        dt = dt.minusDays(1);
-      }
-      prices.put(key, dataSource.getClosingPrice(dt, key));
-    }
-
+    var prices = getPricesAsOf(port, date);
     return getPortfolio(name).getDistribution(date, prices);
   }
 
@@ -147,12 +207,11 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
   public void loadPortfolioSave(String fileSaveName) throws IOException,
           IllegalArgumentException {
     String name = fileSaveName.split("_")[0];
-    try {
-      getPortfolio(name).loadSave(portfoliosDirectory, fileSaveName);
-    } catch (IllegalArgumentException e) {
-      createNewPortfolio(name);
-      getPortfolio(name).loadSave(portfoliosDirectory, fileSaveName);
-    }
+    Portfolio port = portfolios.getOrCreate(name);
+    port.loadSave(portfoliosDirectory, fileSaveName);
+
+    // start downloading its stocks now so that valuing it later does not wait on the network
+    dataSource.prefetch(port.getTickers());
   }
 
   @Override
@@ -174,18 +233,113 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
     getPortfolio(name).rebalance(date, prices, proportions);
   }
 
+  /**
+   * Gets the value of a portfolio on every day from the start date up to, but not including, the
+   * end date, in date order. The days are gone through in a single sweep: the composition moves
+   * forward as each transaction's date is passed, and each stock held keeps its place in its
+   * price history, so the portfolio is only valued again on days a price or the composition
+   * changed.
+   *
+   * <p>If the number of days times the number of stocks is large enough, the range is split into
+   * chunks that are each swept from the composition on their first day, in parallel, and written
+   * into their own part of the result.</p>
+   *
+   * @param name      the name of the portfolio.
+   * @param startDate the first date to value the portfolio on.
+   * @param endDate   the day after the last date to value the portfolio on.
+   * @return the value of the portfolio on each day, which is empty if the dates are the same.
+   * @throws IOException              if a data fetching error occurs.
+   * @throws IllegalArgumentException if the start date is after the end date, or the portfolio
+   *                                  doesn't exist.
+   */
   @Override
-  public Map<LocalDate, Double> getPortfolioPerformance(String name, LocalDate startDate,
-                                                        LocalDate endDate) throws
+  public PerformanceSeries getPortfolioPerformance(String name, LocalDate startDate,
+                                                   LocalDate endDate) throws
           IllegalArgumentException, IOException {
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("Start date is after the end date");
+    }
+    Portfolio port = getPortfolio(name);
+    double[] values = new double[Math.toIntExact(ChronoUnit.DAYS.between(startDate, endDate))];
 
-    var res = new HashMap<LocalDate, Double>();
+    int chunks = 1;
+    if ((long) values.length * Math.max(1, port.getTickers().size()) >= parallelThreshold) {
+      chunks = Math.max(1, Math.min(pool.getParallelism() * 4, values.length / MIN_CHUNK_DAYS));
+    }
+    if (chunks == 1) {
+      sweep(port.sweepFrom(startDate), startDate, endDate, values, 0, values.length);
+      return new PerformanceSeries(startDate, values);
+    }
 
-    for (var date = startDate; !date.equals(endDate); date = date.plusDays(1)) {
-      res.put(date, getPortfolioValue(name, date));
+    // each chunk's sweep is started here, one after another, since starting a sweep can fill in
+    // the portfolio's checkpoints
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      int from = (int) ((long) values.length * chunk / chunks);
+      int to = (int) ((long) values.length * (chunk + 1) / chunks);
+      Portfolio.Sweep sweep = port.sweepFrom(startDate.plusDays(from));
+      tasks.add(ForkJoinTask.adapt(() -> {
+        try {
+          sweep(sweep, startDate, endDate, values, from, to);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }));
+    }
+    try {
+      pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
+    return new PerformanceSeries(startDate, values);
+  }
 
-    return res;
+  // Values the portfolio on the days values[from] to values[to - 1], where values[0] is the start
+  // date, with a sweep that starts on the first of those days. Cursors and prices are kept in
+  // arrays indexed by symbol id, so each day's value is a dot product of the sweep's holdings
+  // with the prices
+  private void sweep(Portfolio.Sweep sweep, LocalDate startDate, LocalDate endDate,
+                     double[] values, int from, int to) throws IOException {
+    Holdings holdings = sweep.getHoldings();
+    PriceCursor[] cursors = new PriceCursor[0];
+    double[] prices = new double[0];
+    int[] held = new int[0];
+    boolean compositionChanged = true;
+    double value = 0;
+    for (int day = from; day < to; day++) {
+      LocalDate date = startDate.plusDays(day);
+      compositionChanged |= sweep.advanceTo(date);
+      if (compositionChanged) {
+        if (cursors.length < holdings.idBound()) {
+          cursors = Arrays.copyOf(cursors, holdings.idBound());
+          prices = Arrays.copyOf(prices, holdings.idBound());
+        }
+        held = new int[holdings.size()];
+        int i = 0;
+        for (int id = 0; id < holdings.idBound(); id++) {
+          if (holdings.holds(id)) {
+            if (cursors[id] == null) {
+              cursors[id] = new PriceCursor(dataSource.getPriceRange(
+                      SymbolTable.shared().symbol(id), LocalDate.MIN, endDate));
+            }
+            held[i++] = id;
+          }
+        }
+      }
+
+      boolean pricesChanged = false;
+      for (int id : held) {
+        if (cursors[id].advanceTo(PriceSeries.toEpochDay(date))) {
+          prices[id] = cursors[id].price;
+          pricesChanged = true;
+        }
+      }
+      if (compositionChanged || pricesChanged) {
+        value = holdings.value(prices);
+      }
+      values[day] = value;
+      compositionChanged = false;
+    }
   }
 
   protected final HashMap<String, Double> getPrices(String name, LocalDate date) throws
@@ -199,16 +353,51 @@ public class PortfolioStockModelImpl implements PortfolioStockModel {
     return prices;
   }
 
-  protected final Portfolio getPortfolio(String name) {
-    for (var port : portfolios) {
-      if (port.getName().equals(name)) {
-        return port;
-      }
+  // The latest price of every stock in the portfolio on or before a date, which values the
+  // portfolio on days the market was closed
+  protected final HashMap<String, Double> getPricesAsOf(Portfolio port, LocalDate date) throws
+          IOException {
+    var prices = new HashMap<String, Double>();
+    for (var key : port.getComposition(date).keySet()) {
+      prices.put(key, dataSource.getClosingPriceAsOf(date, key));
     }
-    throw new IllegalArgumentException("Name of that portfolio doesn't exist");
+    return prices;
+  }
+
+  protected final Portfolio getPortfolio(String name) {
+    return portfolios.get(name);
   }
 
   protected final List<String> getPortfolioNames() {
-    return portfolios.stream().map(Portfolio::getName).collect(Collectors.toList());
+    return portfolios.names();
+  }
+
+  // Walks forward through a stock's price history, holding the latest closing price on or
+  // before the last day it was moved to (or 0 before the stock's first trading day)
+  private static final class PriceCursor {
+    private final PriceSeries prices;
+    private int next;
+    private double price;
+
+    private PriceCursor(PriceSeries prices) {
+      this.prices = prices;
+    }
+
+    // Returns whether the price changed
+    private boolean advanceTo(int epochDay) {
+      int first = next;
+      if (next == 0) {
+        // the first move skips straight to the day instead of walking the history before it
+        next = prices.floorIndex(epochDay) + 1;
+      }
+      while (next < prices.size() && prices.dayAt(next) <= epochDay) {
+        next++;
+      }
+      if (next == first) {
+        return false;
+      }
+      price = prices.closeAt(next - 1);
+      return true;
+    }
   }
 }
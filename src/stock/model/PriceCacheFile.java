@@ -0,0 +1,147 @@
+package stock.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A compact binary copy of a stock CSV file, stored next to it with a ".prices" extension. Once a
+ * CSV has been parsed, its prices are written to this file so that later runs can memory-map it
+ * and copy the columns straight out of the page cache instead of parsing text again.
+ *
+ * <p>The file is little-endian and laid out as:</p>
+ * <pre>
+ *   int    magic ("PRCS")
+ *   int    format version
+ *   long   last modified time of the source CSV, in milliseconds
+ *   long   size of the source CSV, in bytes
+ *   int    number of rows (n)
+ *   int    reserved (0)
+ *   int[n] trading days, as epoch days, in ascending order
+ *   double[n] adjusted closing prices
+ * </pre>
+ * <p>If the source CSV's modified time or size no longer match the header, the cache is stale
+ * and is ignored (and rebuilt by the data source).</p>
+ */
+public final class PriceCacheFile {
+  static final String EXTENSION = ".prices";
+  private static final int MAGIC = 0x50524353;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 32;
+
+  private PriceCacheFile() {
+  }
+
+  /**
+   * Gets the path of the cache file for a CSV file.
+   *
+   * @param csvPath the path of the CSV file.
+   * @return the path of its cache file, in the same directory.
+   */
+  public static Path pathFor(Path csvPath) {
+    String name = csvPath.getFileName().toString();
+    if (name.endsWith(".csv")) {
+      name = name.substring(0, name.length() - ".csv".length());
+    }
+    return csvPath.resolveSibling(name + EXTENSION);
+  }
+
+  /**
+   * Reads the cached prices for a CSV file, if there is an up-to-date cache for it.
+   *
+   * @param csvPath the path of the CSV file the cache was built from.
+   * @return the cached prices, or null if there is no cache, the cache is stale (the CSV has
+   *         been modified since), or the cache file is damaged.
+   */
+  public static PriceSeries read(Path csvPath) {
+    Path cachePath = pathFor(csvPath);
+    if (!Files.isRegularFile(cachePath)) {
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+      long length = channel.size();
+      if (length < HEADER_BYTES) {
+        return null;
+      }
+
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      BasicFileAttributes csv = Files.readAttributes(csvPath, BasicFileAttributes.class);
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+              || buffer.getLong(8) != csv.lastModifiedTime().toMillis()
+              || buffer.getLong(16) != csv.size()) {
+        return null;
+      }
+
+      int rows = buffer.getInt(24);
+      if (rows < 0 || length != HEADER_BYTES + (long) rows * (Integer.BYTES + Double.BYTES)) {
+        return null;
+      }
+
+      int[] days = new int[rows];
+      double[] closes = new double[rows];
+      buffer.position(HEADER_BYTES);
+      buffer.asIntBuffer().get(days);
+      buffer.position(HEADER_BYTES + rows * Integer.BYTES);
+      buffer.asDoubleBuffer().get(closes);
+
+      return PriceSeries.fromSortedArrays(days, closes);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the prices parsed from a CSV file to its cache file. The cache is written to a
+   * temporary file first and then moved into place, so a reader never sees a partial cache.
+   *
+   * @param csvPath the path of the CSV file the prices were parsed from.
+   * @param prices  the prices parsed from the CSV file.
+   * @throws IOException if the CSV file's attributes cannot be read or the cache cannot be
+   *                     written.
+   */
+  public static void write(Path csvPath, PriceSeries prices) throws IOException {
+    BasicFileAttributes csv = Files.readAttributes(csvPath, BasicFileAttributes.class);
+    int rows = prices.size();
+
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + rows * (Integer.BYTES + Double.BYTES))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC)
+            .putInt(VERSION)
+            .putLong(csv.lastModifiedTime().toMillis())
+            .putLong(csv.size())
+            .putInt(rows)
+            .putInt(0);
+    for (int i = 0; i < rows; i++) {
+      buffer.putInt(prices.dayAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      buffer.putDouble(prices.closeAt(i));
+    }
+    buffer.flip();
+
+    Path cachePath = pathFor(csvPath);
+    Path tempPath = Files.createTempFile(cachePath.toAbsolutePath().getParent(),
+            cachePath.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempPath);
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package stock.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses stock price CSV files straight from their raw bytes. Only the 'timestamp' and
+ * 'adjusted_close' columns are decoded: ISO dates are turned directly into epoch days and
+ * decimal prices are read digit by digit, so no String, String[], LocalDate or Double is created
+ * per row. Every other column is skipped over without being looked at.
+ *
+ * <p>The header row is matched the same way as before (column names are trimmed and compared
+ * ignoring case). Rows whose date or price cell is blank are skipped, since there is no price to
+ * record for them. Anything that is not a plain ISO date or plain decimal is handed to
+ * {@link LocalDate#parse} or {@link Double#parseDouble}, so malformed cells fail the same way
+ * they always have.</p>
+ */
+public final class PriceCsvParser {
+  // Powers of ten that are exactly representable as doubles, so mantissa / 10^n rounds once
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  private PriceCsvParser() {
+  }
+
+  /**
+   * Parses the prices in a stock CSV file. The buffer is read from its position to its limit,
+   * and its position is left at the limit.
+   *
+   * @param bytes the contents of the CSV file, in UTF-8 (or ASCII).
+   * @return the prices in the file.
+   * @throws IllegalArgumentException if the file does not have 'timestamp' and 'adjusted_close'
+   *                                  columns, or a row is missing one of them.
+   * @throws java.time.format.DateTimeParseException if a date cell is not a valid date.
+   * @throws NumberFormatException                   if a price cell is not a valid number.
+   */
+  public static PriceSeries parse(ByteBuffer bytes) {
+    int timeIndex = -1;
+    int closeIndex = -1;
+
+    // the header is read as a String once per file, like the old reader did
+    int headerEnd = findLineEnd(bytes, bytes.position());
+    String[] headers = decode(bytes, bytes.position(), headerEnd).split(",");
+    for (int i = 0; i < headers.length; i++) {
+      if (headers[i].trim().equalsIgnoreCase("timestamp")) {
+        timeIndex = i;
+      }
+      if (headers[i].trim().equalsIgnoreCase("adjusted_close")) {
+        closeIndex = i;
+      }
+    }
+    if (timeIndex == -1 || closeIndex == -1) {
+      throw new IllegalArgumentException("CSV file does not have required "
+              + "'timestamp' or 'adjusted_close' columns.");
+    }
+    int lastNeeded = Math.max(timeIndex, closeIndex);
+
+    // roughly 50 bytes per row in an AlphaVantage file
+    PriceSeries.Builder prices = new PriceSeries.Builder((bytes.limit() - headerEnd) / 48 + 1);
+    int limit = bytes.limit();
+    int lineStart = skipLineBreak(bytes, headerEnd);
+    int row = 1;
+
+    while (lineStart < limit) {
+      int lineEnd = findLineEnd(bytes, lineStart);
+      row++;
+      if (lineEnd > lineStart) {
+        int day = Integer.MIN_VALUE;
+        double close = Double.NaN;
+        boolean blank = false;
+
+        int column = 0;
+        int cellStart = lineStart;
+        while (column <= lastNeeded && cellStart <= lineEnd) {
+          int cellEnd = findCellEnd(bytes, cellStart, lineEnd);
+          if (column == timeIndex || column == closeIndex) {
+            int start = trimStart(bytes, cellStart, cellEnd);
+            int end = trimEnd(bytes, start, cellEnd);
+            if (start == end) {
+              blank = true;
+            } else if (column == timeIndex) {
+              day = parseEpochDay(bytes, start, end);
+            } else {
+              close = parseDecimal(bytes, start, end);
+            }
+          }
+          column++;
+          cellStart = cellEnd + 1;
+        }
+
+        if (column <= lastNeeded) {
+          throw new IllegalArgumentException("Row " + row + " of the CSV file is missing the "
+                  + "'timestamp' or 'adjusted_close' column.");
+        }
+        if (!blank) {
+          prices.add(day, close);
+        }
+      }
+      lineStart = skipLineBreak(bytes, lineEnd);
+    }
+
+    bytes.position(limit);
+    return prices.build();
+  }
+
+  // Parses yyyy-MM-dd into an epoch day, or defers to LocalDate.parse for anything else
+  private static int parseEpochDay(ByteBuffer bytes, int start, int end) {
+    if (end - start == 10 && bytes.get(start + 4) == '-' && bytes.get(start + 7) == '-') {
+      int year = digits(bytes, start, start + 4);
+      int month = digits(bytes, start + 5, start + 7);
+      int day = digits(bytes, start + 8, start + 10);
+      if (year >= 0 && month >= 1 && month <= 12 && day >= 1
+              && day <= lengthOfMonth(year, month)) {
+        return epochDay(year, month, day);
+      }
+    }
+    LocalDate date = LocalDate.parse(decode(bytes, start, end), DateTimeFormatter.ISO_LOCAL_DATE);
+    return PriceSeries.toEpochDay(date);
+  }
+
+  // Parses a plain decimal (IE: -123.4567) exactly as Double.parseDouble would, deferring to it
+  // for anything that does not fit in an exactly-representable mantissa
+  private static double parseDecimal(ByteBuffer bytes, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (bytes.get(i) == '-' || bytes.get(i) == '+') {
+      negative = bytes.get(i) == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int fractionDigits = 0;
+    boolean seenPoint = false;
+    boolean seenDigit = false;
+    for (; i < end; i++) {
+      byte b = bytes.get(i);
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        seenDigit = true;
+        if (seenPoint) {
+          fractionDigits++;
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA) {
+          break;
+        }
+      } else if (b == '.' && !seenPoint) {
+        seenPoint = true;
+      } else {
+        break;
+      }
+    }
+
+    if (i != end || !seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+      return Double.parseDouble(decode(bytes, start, end));
+    }
+    double value = mantissa / POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  private static int digits(ByteBuffer bytes, int start, int end) {
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      byte b = bytes.get(i);
+      if (b < '0' || b > '9') {
+        return -1;
+      }
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+
+  private static boolean isLeapYear(int year) {
+    return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return isLeapYear(year) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  // Days since 1970-01-01 for a proleptic Gregorian date, counting years from March so that the
+  // leap day falls at the end of the year
+  private static int epochDay(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  private static int findLineEnd(ByteBuffer bytes, int from) {
+    int limit = bytes.limit();
+    int i = from;
+    while (i < limit && bytes.get(i) != '\n' && bytes.get(i) != '\r') {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipLineBreak(ByteBuffer bytes, int lineEnd) {
+    int limit = bytes.limit();
+    if (lineEnd < limit && bytes.get(lineEnd) == '\r') {
+      lineEnd++;
+    }
+    if (lineEnd < limit && bytes.get(lineEnd) == '\n') {
+      lineEnd++;
+    }
+    return lineEnd;
+  }
+
+  private static int findCellEnd(ByteBuffer bytes, int from, int lineEnd) {
+    int i = from;
+    while (i < lineEnd && bytes.get(i) != ',') {
+      i++;
+    }
+    return i;
+  }
+
+  private static int trimStart(ByteBuffer bytes, int start, int end) {
+    while (start < end && bytes.get(start) <= ' ') {
+      start++;
+    }
+    return start;
+  }
+
+  private static int trimEnd(ByteBuffer bytes, int start, int end) {
+    while (end > start && bytes.get(end - 1) <= ' ') {
+      end--;
+    }
+    return end;
+  }
+
+  private static String decode(ByteBuffer bytes, int start, int end) {
+    byte[] text = new byte[end - start];
+    for (int i = 0; i < text.length; i++) {
+      text[i] = bytes.get(start + i);
+    }
+    return new String(text, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,35 @@
+package stock.model;
+
+/**
+ * Told whenever the price history a data source holds for a stock changes, so that anything
+ * worked out from the old prices can be thrown away or brought up to date.
+ */
+@FunctionalInterface
+public interface PriceListener {
+
+  /**
+   * How a stock's price history changed.
+   */
+  enum Change {
+    /**
+     * The stock had no prices before, so nothing can have been worked out from them.
+     */
+    LOADED,
+    /**
+     * Newer trading days were added to the end, and every earlier day is unchanged.
+     */
+    APPENDED,
+    /**
+     * The history was replaced, and prices already seen may have been revised or removed.
+     */
+    REPLACED
+  }
+
+  /**
+   * Called after a stock's price history has changed, on the thread that changed it.
+   *
+   * @param ticker the ticker of the stock.
+   * @param change how the history changed.
+   */
+  void pricesChanged(String ticker, Change change);
+}
@@ -0,0 +1,455 @@
+package stock.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The full price history of a single stock. Trading days are stored as a sorted array of epoch
+ * days (days since 1970-01-01) with a parallel array of adjusted closing prices, so a lookup is a
+ * binary search over primitives instead of a hash probe on boxed dates and prices.
+ * A PriceSeries is immutable once built; use a {@link PriceSeries.Builder} to create one.
+ *
+ * <p>A series can be sliced to a range of dates with {@link #slice(LocalDate, LocalDate)}. A
+ * slice is a view onto the same arrays, so taking one does not copy any prices; positions in a
+ * slice start at 0 for its own first trading day.</p>
+ *
+ * <p>Sums of consecutive closing prices (and so moving averages) take constant time with
+ * {@link #sum(int, int)}: the first one computes a running total of every closing price, which is
+ * kept and shared with every slice of the series.</p>
+ */
+public final class PriceSeries {
+  private final int[] days;
+  private final double[] closes;
+  private final int from;
+  private final int to;
+  private final PrefixSums sums;
+
+  private PriceSeries(int[] days, double[] closes, int from, int to, PrefixSums sums) {
+    this.days = days;
+    this.closes = closes;
+    this.from = from;
+    this.to = to;
+    this.sums = sums;
+  }
+
+  /**
+   * Gets the number of trading days in the series.
+   *
+   * @return the number of trading days.
+   */
+  public int size() {
+    return to - from;
+  }
+
+  /**
+   * Gets the trading day at a position in the series, as an epoch day.
+   *
+   * @param index the position in the series (0 is the earliest trading day).
+   * @return the epoch day at that position.
+   */
+  public int dayAt(int index) {
+    return days[from + checkIndex(index)];
+  }
+
+  /**
+   * Gets the trading day at a position in the series.
+   *
+   * @param index the position in the series (0 is the earliest trading day).
+   * @return the date at that position.
+   */
+  public LocalDate dateAt(int index) {
+    return LocalDate.ofEpochDay(dayAt(index));
+  }
+
+  /**
+   * Gets the closing price at a position in the series.
+   *
+   * @param index the position in the series (0 is the earliest trading day).
+   * @return the closing price at that position.
+   */
+  public double closeAt(int index) {
+    return closes[from + checkIndex(index)];
+  }
+
+  /**
+   * Finds the position of a trading day in the series.
+   *
+   * @param epochDay the day to search for, as an epoch day.
+   * @return the position of the day, or -1 if the series has no price on that day.
+   */
+  public int indexOf(int epochDay) {
+    int index = Arrays.binarySearch(days, from, to, epochDay);
+    return index >= 0 ? index - from : -1;
+  }
+
+  /**
+   * Finds the position of the last trading day on or before a day.
+   *
+   * @param epochDay the day, as an epoch day.
+   * @return the position of that trading day, or -1 if every trading day is after the day.
+   */
+  public int floorIndex(int epochDay) {
+    int index = Arrays.binarySearch(days, from, to, epochDay);
+    return (index >= 0 ? index : -index - 2) - from;
+  }
+
+  /**
+   * Finds the position of the first trading day on or after a day.
+   *
+   * @param epochDay the day, as an epoch day.
+   * @return the position of that trading day, or {@link #size()} if every trading day is before
+   *         the day.
+   */
+  public int ceilingIndex(int epochDay) {
+    int index = Arrays.binarySearch(days, from, to, epochDay);
+    return (index >= 0 ? index : -index - 1) - from;
+  }
+
+  /**
+   * Gets the trading days between two dates (inclusive) as a view onto this series.
+   *
+   * @param start the first date of the range.
+   * @param end   the last date of the range.
+   * @return the trading days in the range, which is empty if start is after end.
+   */
+  public PriceSeries slice(LocalDate start, LocalDate end) {
+    int first = ceilingIndex(toEpochDay(start));
+    int last = floorIndex(toEpochDay(end));
+    return last < first ? slice(first, first) : slice(first, last + 1);
+  }
+
+  /**
+   * Gets the trading days between two positions as a view onto this series.
+   *
+   * @param fromIndex the position of the first trading day to include.
+   * @param toIndex   the position after the last trading day to include.
+   * @return the trading days between the positions.
+   * @throws IndexOutOfBoundsException if the positions are not a range within the series.
+   */
+  public PriceSeries slice(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex
+              + ") is not within a series of " + size() + " trading days.");
+    }
+    if (fromIndex == 0 && toIndex == size()) {
+      return this;
+    }
+    return new PriceSeries(days, closes, from + fromIndex, from + toIndex, sums);
+  }
+
+  /**
+   * Adds up the closing prices between two positions in constant time.
+   *
+   * @param fromIndex the position of the first closing price to include.
+   * @param toIndex   the position after the last closing price to include.
+   * @return the sum of the closing prices, or 0 if the positions are equal.
+   * @throws IndexOutOfBoundsException if the positions are not a range within the series.
+   */
+  public double sum(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex
+              + ") is not within a series of " + size() + " trading days.");
+    }
+    if (fromIndex == toIndex) {
+      return 0;
+    }
+    double[] totals = sums.get(closes);
+    return totals[from + toIndex] - totals[from + fromIndex];
+  }
+
+  /**
+   * Copies the trading days in the series into a new array.
+   *
+   * @return the trading days, as epoch days, from earliest to latest.
+   */
+  public int[] toDayArray() {
+    return Arrays.copyOfRange(days, from, to);
+  }
+
+  /**
+   * Copies the closing prices in the series into a new array.
+   *
+   * @return the closing prices, from earliest to latest trading day.
+   */
+  public double[] toCloseArray() {
+    return Arrays.copyOfRange(closes, from, to);
+  }
+
+  /**
+   * Determines whether the series has a price on a date.
+   *
+   * @param date the date.
+   * @return whether there is a price recorded on that date.
+   */
+  public boolean contains(LocalDate date) {
+    return indexOf(toEpochDay(date)) >= 0;
+  }
+
+  /**
+   * Gets the closing price on a date.
+   *
+   * @param date the date.
+   * @return the closing price on that date, or 0 if there is no price recorded on that date.
+   */
+  public double getClose(LocalDate date) {
+    int index = indexOf(toEpochDay(date));
+    return index >= 0 ? closes[from + index] : 0;
+  }
+
+  /**
+   * Gets the closing price on the last trading day on or before a date, IE: what the stock was
+   * worth on that date even if the market was closed.
+   *
+   * @param date the date.
+   * @return the latest closing price on or before that date, or 0 if there is none.
+   */
+  public double getCloseAsOf(LocalDate date) {
+    int index = floorIndex(toEpochDay(date));
+    return index >= 0 ? closes[from + index] : 0;
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index " + index + " is not within a series of "
+              + size() + " trading days.");
+    }
+    return index;
+  }
+
+  // Whether this series begins with every trading day and closing price of another one
+  boolean startsWith(PriceSeries prefix) {
+    if (prefix.size() > size()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.size(); i++) {
+      if (days[from + i] != prefix.days[prefix.from + i]
+              || Double.compare(closes[from + i], prefix.closes[prefix.from + i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Wraps arrays that are already sorted by day with no duplicates (IE: read back from a cache
+  // file), returning null if they are not so that the caller can fall back to re-parsing
+  static PriceSeries fromSortedArrays(int[] days, double[] closes) {
+    if (days.length != closes.length) {
+      return null;
+    }
+    for (int i = 1; i < days.length; i++) {
+      if (days[i - 1] >= days[i]) {
+        return null;
+      }
+    }
+    return new PriceSeries(days, closes, 0, days.length, new PrefixSums());
+  }
+
+  // Adds the rows of a newer series that come after this series' last trading day. If this
+  // series' running totals have already been computed, the new series' totals carry on from them
+  // instead of being added up again from the start
+  PriceSeries append(PriceSeries newer) {
+    int lastDay = size() == 0 ? Integer.MIN_VALUE : dayAt(size() - 1);
+    int first = newer.ceilingIndex(lastDay == Integer.MAX_VALUE ? lastDay : lastDay + 1);
+    int count = size() + newer.size() - first;
+
+    int[] newDays = Arrays.copyOfRange(days, from, from + count);
+    double[] newCloses = Arrays.copyOfRange(closes, from, from + count);
+    System.arraycopy(newer.days, newer.from + first, newDays, size(), count - size());
+    System.arraycopy(newer.closes, newer.from + first, newCloses, size(), count - size());
+
+    PrefixSums newSums = new PrefixSums();
+    double[] totals = sums.values;
+    if (totals != null) {
+      double[] newTotals = new double[count + 1];
+      for (int i = 1; i <= size(); i++) {
+        newTotals[i] = totals[from + i] - totals[from];
+      }
+      for (int i = size(); i < count; i++) {
+        newTotals[i + 1] = newTotals[i] + newCloses[i];
+      }
+      newSums.values = newTotals;
+    }
+    return new PriceSeries(newDays, newCloses, 0, count, newSums);
+  }
+
+  // Dates outside the int range can never be in a series, so clamp them to the ends
+  static int toEpochDay(LocalDate date) {
+    long epochDay = date.toEpochDay();
+    if (epochDay > Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    } else if (epochDay < Integer.MIN_VALUE) {
+      return Integer.MIN_VALUE;
+    }
+    return (int) epochDay;
+  }
+
+  // The running totals of a series' closing prices, where entry i is the sum of the first i
+  // prices. They are only computed when first needed, and are shared by every slice of the series
+  private static final class PrefixSums {
+    private volatile double[] values;
+
+    private double[] get(double[] closes) {
+      double[] totals = values;
+      if (totals == null) {
+        // two threads may both compute them, but they get the same totals either way
+        totals = new double[closes.length + 1];
+        for (int i = 0; i < closes.length; i++) {
+          totals[i + 1] = totals[i] + closes[i];
+        }
+        values = totals;
+      }
+      return totals;
+    }
+  }
+
+  /**
+   * Builds a PriceSeries from rows given in any order. If the same day is added more than once,
+   * the last price added for that day is kept.
+   */
+  public static final class Builder {
+    private int[] days;
+    private double[] closes;
+    private int size;
+
+    /**
+     * Constructs an empty builder.
+     */
+    public Builder() {
+      this(16);
+    }
+
+    /**
+     * Constructs an empty builder with room for a number of rows before it has to grow.
+     *
+     * @param expectedRows the number of rows expected to be added.
+     */
+    public Builder(int expectedRows) {
+      days = new int[Math.max(expectedRows, 1)];
+      closes = new double[days.length];
+    }
+
+    /**
+     * Adds a row to the series.
+     *
+     * @param date  the trading day.
+     * @param close the closing price on that day.
+     * @return this builder.
+     */
+    public Builder add(LocalDate date, double close) {
+      return add(toEpochDay(date), close);
+    }
+
+    /**
+     * Adds a row to the series.
+     *
+     * @param epochDay the trading day, as an epoch day.
+     * @param close    the closing price on that day.
+     * @return this builder.
+     */
+    public Builder add(int epochDay, double close) {
+      if (size == days.length) {
+        days = Arrays.copyOf(days, size * 2);
+        closes = Arrays.copyOf(closes, size * 2);
+      }
+      days[size] = epochDay;
+      closes[size] = close;
+      size++;
+      return this;
+    }
+
+    /**
+     * Builds the series, sorting the rows by day.
+     *
+     * @return the series.
+     */
+    public PriceSeries build() {
+      int[] sortedDays = Arrays.copyOf(days, size);
+      double[] sortedCloses = Arrays.copyOf(closes, size);
+
+      if (!isAscending(sortedDays)) {
+        if (isDescending(sortedDays)) {
+          // AlphaVantage lists the newest day first, so the common case is a plain reversal
+          reverse(sortedDays, sortedCloses);
+        } else {
+          sortByDay(sortedDays, sortedCloses);
+        }
+      }
+
+      // drop duplicate days, keeping the last price added for each one
+      int unique = 0;
+      for (int i = 0; i < size; i++) {
+        if (unique > 0 && sortedDays[unique - 1] == sortedDays[i]) {
+          sortedCloses[unique - 1] = sortedCloses[i];
+        } else {
+          sortedDays[unique] = sortedDays[i];
+          sortedCloses[unique] = sortedCloses[i];
+          unique++;
+        }
+      }
+
+      if (unique < size) {
+        sortedDays = Arrays.copyOf(sortedDays, unique);
+        sortedCloses = Arrays.copyOf(sortedCloses, unique);
+      }
+      return new PriceSeries(sortedDays, sortedCloses, 0, unique, new PrefixSums());
+    }
+
+    private static boolean isAscending(int[] values) {
+      for (int i = 1; i < values.length; i++) {
+        if (values[i - 1] > values[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean isDescending(int[] values) {
+      for (int i = 1; i < values.length; i++) {
+        if (values[i - 1] < values[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // Reversing a descending run keeps equal days in reverse insertion order, so swap them back
+    // afterwards so that "last added wins" still holds when duplicates are dropped
+    private static void reverse(int[] sortedDays, double[] sortedCloses) {
+      for (int i = 0, j = sortedDays.length - 1; i < j; i++, j--) {
+        int day = sortedDays[i];
+        sortedDays[i] = sortedDays[j];
+        sortedDays[j] = day;
+        double close = sortedCloses[i];
+        sortedCloses[i] = sortedCloses[j];
+        sortedCloses[j] = close;
+      }
+      for (int start = 0; start < sortedDays.length; ) {
+        int end = start + 1;
+        while (end < sortedDays.length && sortedDays[end] == sortedDays[start]) {
+          end++;
+        }
+        for (int i = start, j = end - 1; i < j; i++, j--) {
+          double close = sortedCloses[i];
+          sortedCloses[i] = sortedCloses[j];
+          sortedCloses[j] = close;
+        }
+        start = end;
+      }
+    }
+
+    // Stable sort of row positions by day, then permute both arrays into that order
+    private static void sortByDay(int[] sortedDays, double[] sortedCloses) {
+      Integer[] order = new Integer[sortedDays.length];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      int[] originalDays = sortedDays.clone();
+      double[] originalCloses = sortedCloses.clone();
+      Arrays.sort(order, (a, b) -> Integer.compare(originalDays[a], originalDays[b]));
+      for (int i = 0; i < order.length; i++) {
+        sortedDays[i] = originalDays[order[i]];
+        sortedCloses[i] = originalCloses[order[i]];
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package stock.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the price history of every stock known to a data source, keyed by ticker. Each ticker's
+ * history is kept as a {@link PriceSeries}, which stores its days and prices as primitive arrays.
+ * The store can be read while other threads add to it. A {@link TickerMetadata} summary of each
+ * stock is worked out the first time it is asked for, and kept until the stock's history is
+ * replaced. Listeners can be registered to be told whenever a stock's history is added, extended
+ * with newer days, or replaced.
+ */
+public class PriceStore {
+  private final Map<String, PriceSeries> series;
+  private final Map<String, CachedMetadata> metadata;
+  private final List<PriceListener> listeners;
+
+  /**
+   * Constructs an empty price store.
+   */
+  public PriceStore() {
+    series = new ConcurrentHashMap<>();
+    metadata = new ConcurrentHashMap<>();
+    listeners = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Adds (or replaces) the price history of a stock. Listeners are told whether the stock is new,
+   * whether the new history only adds days to the end of the old one, or whether it replaces it;
+   * they are not told anything if the new history is the same as the old one.
+   *
+   * @param ticker the ticker of the stock.
+   * @param prices the price history of the stock.
+   */
+  public void put(String ticker, PriceSeries prices) {
+    PriceListener.Change change = change(series.put(ticker, prices), prices);
+    if (change != null) {
+      for (PriceListener listener : listeners) {
+        listener.pricesChanged(ticker, change);
+      }
+    }
+  }
+
+  /**
+   * Registers a listener that is told about each stock whose price history is added, extended or
+   * replaced, after the change has been made. Listeners are called on the thread that made the
+   * change.
+   *
+   * @param listener the listener.
+   */
+  public void addListener(PriceListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Works out how a stock's price history changed.
+   *
+   * @param before the old history, or null if there was none.
+   * @param after  the new history.
+   * @return how the history changed, or null if it did not.
+   */
+  static PriceListener.Change change(PriceSeries before, PriceSeries after) {
+    if (before == null) {
+      return PriceListener.Change.LOADED;
+    }
+    if (before == after || before.size() == after.size() && after.startsWith(before)) {
+      return null;
+    }
+    return after.startsWith(before) ? PriceListener.Change.APPENDED
+            : PriceListener.Change.REPLACED;
+  }
+
+  /**
+   * Gets the price history of a stock.
+   *
+   * @param ticker the ticker of the stock.
+   * @return the price history, or null if the stock is not in the store.
+   */
+  public PriceSeries get(String ticker) {
+    return series.get(ticker);
+  }
+
+  /**
+   * Determines whether the store has a price history for a stock.
+   *
+   * @param ticker the ticker of the stock.
+   * @return whether the stock is in the store.
+   */
+  public boolean contains(String ticker) {
+    return series.containsKey(ticker);
+  }
+
+  /**
+   * Gets a summary of a stock's price history, recording gaps longer than
+   * {@link TickerMetadata#DEFAULT_GAP_DAYS}.
+   *
+   * @param ticker the ticker of the stock.
+   * @return the summary, or null if the stock is not in the store.
+   */
+  public TickerMetadata getMetadata(String ticker) {
+    PriceSeries prices = series.get(ticker);
+    if (prices == null) {
+      return null;
+    }
+    CachedMetadata cached = metadata.get(ticker);
+    // the history may have been replaced since the summary was made
+    if (cached == null || cached.prices != prices) {
+      cached = new CachedMetadata(prices,
+              TickerMetadata.of(prices, TickerMetadata.DEFAULT_GAP_DAYS));
+      metadata.put(ticker, cached);
+    }
+    return cached.metadata;
+  }
+
+  /**
+   * Gets the tickers of every stock in the store.
+   *
+   * @return a view of the tickers in the store.
+   */
+  public Set<String> tickers() {
+    return series.keySet();
+  }
+
+  // A summary, along with the history it summarizes
+  private static final class CachedMetadata {
+    private final PriceSeries prices;
+    private final TickerMetadata metadata;
+
+    private CachedMetadata(PriceSeries prices, TickerMetadata metadata) {
+      this.prices = prices;
+      this.metadata = metadata;
+    }
+  }
+}
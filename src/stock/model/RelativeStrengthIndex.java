@@ -0,0 +1,84 @@
+package stock.model;
+
+import java.util.Objects;
+
+/**
+ * The relative strength index of closing prices, from 0 to 100, which compares the size of recent
+ * gains to recent losses. Gains and losses are averaged with Wilder's smoothing: the first average
+ * is the simple average of the first x daily changes, and each change after that counts for 1/x
+ * of the new average.
+ */
+public final class RelativeStrengthIndex implements Indicator {
+  private final int days;
+  private int changes;
+  private double lastClose = Double.NaN;
+  private double averageGain;
+  private double averageLoss;
+
+  /**
+   * Constructs a relative strength index.
+   *
+   * @param days the number of daily changes to average over (usually 14).
+   * @throws IllegalArgumentException if days is less than 1.
+   */
+  public RelativeStrengthIndex(int days) {
+    if (days < 1) {
+      throw new IllegalArgumentException("The number of days must be at least 1");
+    }
+    this.days = days;
+  }
+
+  @Override
+  public void update(double close) {
+    if (Double.isNaN(lastClose)) {
+      lastClose = close;
+      return;
+    }
+    double change = close - lastClose;
+    lastClose = close;
+    double gain = Math.max(change, 0);
+    double loss = Math.max(-change, 0);
+
+    changes++;
+    if (changes <= days) {
+      // simple average of the first x changes, built up one change at a time
+      averageGain += (gain - averageGain) / changes;
+      averageLoss += (loss - averageLoss) / changes;
+    } else {
+      averageGain = (averageGain * (days - 1) + gain) / days;
+      averageLoss = (averageLoss * (days - 1) + loss) / days;
+    }
+  }
+
+  /**
+   * Gets the index as of the last price given.
+   *
+   * @return the index, or NaN if fewer than x + 1 prices have been given.
+   */
+  public double value() {
+    if (changes < days) {
+      return Double.NaN;
+    } else if (averageLoss == 0) {
+      // no losses at all: 100 if the price went up, and halfway if it did not move
+      return averageGain == 0 ? 50 : 100;
+    }
+    return 100 - 100 / (1 + averageGain / averageLoss);
+  }
+
+  @Override
+  public int lines() {
+    return 1;
+  }
+
+  @Override
+  public String lineName(int line) {
+    Objects.checkIndex(line, 1);
+    return days + "-day RSI";
+  }
+
+  @Override
+  public double value(int line) {
+    Objects.checkIndex(line, 1);
+    return value();
+  }
+}
@@ -0,0 +1,294 @@
+package stock.model;
+
+import java.util.Objects;
+
+/**
+ * The minimum, maximum, mean, standard deviation and median of the closing prices over the last
+ * x trading days, for volatility reports. Like any {@link Indicator}, it is given one price at a
+ * time, so the statistics for a whole history take a single pass (see
+ * {@link StockModel#getIndicatorSeries}). Each line is NaN until x prices have been given.
+ *
+ * <p>No statistic goes over the whole window again when a price is added:</p>
+ * <ul>
+ *   <li>the minimum and maximum are kept at the front of monotonic deques of the window's
+ *   positions, which each position enters and leaves once;</li>
+ *   <li>the mean and variance are updated with Welford's method, taking the oldest price out and
+ *   adding the newest;</li>
+ *   <li>the median is kept between two heaps, the lower half of the window in a max-heap and the
+ *   upper half in a min-heap. Each heap knows where every price is in it, so the oldest price is
+ *   taken straight out instead of being left behind to be skipped later.</li>
+ * </ul>
+ * So each price takes O(log x) time, and the statistics never hold more than x prices.
+ */
+public final class RollingStatistics implements Indicator {
+  private static final String[] NAMES = {"Min", "Max", "Mean", "Standard deviation", "Median"};
+
+  // the last x prices, where the price given at position p is in slot p % x
+  private final double[] window;
+  private long count;
+
+  private final PositionDeque lowest;
+  private final PositionDeque highest;
+
+  private double mean;
+  private double squaredDeviations;
+
+  // where each slot's price is in whichever heap holds it
+  private final int[] heapIndex;
+  private final boolean[] inLowerHalf;
+  private final SlotHeap lowerHalf;
+  private final SlotHeap upperHalf;
+
+  /**
+   * Constructs rolling statistics.
+   *
+   * @param days the number of trading days in the window.
+   * @throws IllegalArgumentException if days is less than 1.
+   */
+  public RollingStatistics(int days) {
+    if (days < 1) {
+      throw new IllegalArgumentException("The number of days must be at least 1");
+    }
+    window = new double[days];
+    lowest = new PositionDeque(days);
+    highest = new PositionDeque(days);
+    heapIndex = new int[days];
+    inLowerHalf = new boolean[days];
+    lowerHalf = new SlotHeap(days, true);
+    upperHalf = new SlotHeap(days, false);
+  }
+
+  @Override
+  public void update(double close) {
+    long position = count++;
+    int slot = (int) (position % window.length);
+    if (position >= window.length) {
+      removeOldest(slot);
+    }
+    window[slot] = close;
+
+    lowest.evictBefore(position - window.length + 1);
+    while (!lowest.isEmpty() && priceAt(lowest.peekLast()) >= close) {
+      lowest.pollLast();
+    }
+    lowest.addLast(position);
+    highest.evictBefore(position - window.length + 1);
+    while (!highest.isEmpty() && priceAt(highest.peekLast()) <= close) {
+      highest.pollLast();
+    }
+    highest.addLast(position);
+
+    int size = (int) Math.min(count, window.length);
+    double deviation = close - mean;
+    mean += deviation / size;
+    squaredDeviations += deviation * (close - mean);
+
+    if (lowerHalf.isEmpty() || close <= window[lowerHalf.peek()]) {
+      lowerHalf.add(slot);
+    } else {
+      upperHalf.add(slot);
+    }
+    while (lowerHalf.size() > upperHalf.size() + 1) {
+      upperHalf.add(lowerHalf.poll());
+    }
+    while (upperHalf.size() > lowerHalf.size()) {
+      lowerHalf.add(upperHalf.poll());
+    }
+  }
+
+  // Takes the oldest price (about to be overwritten in its slot) out of the mean and the heaps
+  private void removeOldest(int slot) {
+    double oldest = window[slot];
+    int size = window.length - 1;
+    if (size == 0) {
+      mean = 0;
+      squaredDeviations = 0;
+    } else {
+      double deviation = oldest - mean;
+      mean -= deviation / size;
+      squaredDeviations -= deviation * (oldest - mean);
+    }
+
+    if (inLowerHalf[slot]) {
+      lowerHalf.remove(slot);
+    } else {
+      upperHalf.remove(slot);
+    }
+  }
+
+  private double priceAt(long position) {
+    return window[(int) (position % window.length)];
+  }
+
+  @Override
+  public int lines() {
+    return NAMES.length;
+  }
+
+  @Override
+  public String lineName(int line) {
+    return NAMES[Objects.checkIndex(line, NAMES.length)];
+  }
+
+  /**
+   * Gets one of the statistics as of the last price given. The lines are, in order, the minimum,
+   * maximum, mean, sample standard deviation (0 for a 1-day window) and median of the window.
+   *
+   * @param line the position of the line.
+   * @return the statistic, or NaN if fewer than x prices have been given.
+   * @throws IndexOutOfBoundsException if there is no such line.
+   */
+  @Override
+  public double value(int line) {
+    Objects.checkIndex(line, NAMES.length);
+    if (count < window.length) {
+      return Double.NaN;
+    }
+    switch (line) {
+      case 0:
+        return priceAt(lowest.peekFirst());
+      case 1:
+        return priceAt(highest.peekFirst());
+      case 2:
+        return mean;
+      case 3:
+        // rounding can leave a tiny negative sum when every price is the same
+        return window.length == 1 ? 0
+                : Math.sqrt(Math.max(0, squaredDeviations / (window.length - 1)));
+      default:
+        return lowerHalf.size() > upperHalf.size() ? window[lowerHalf.peek()]
+                : (window[lowerHalf.peek()] + window[upperHalf.peek()]) / 2;
+    }
+  }
+
+  // A fixed-size double-ended queue of price positions, kept in a ring buffer
+  private static final class PositionDeque {
+    private final long[] positions;
+    private int head;
+    private int size;
+
+    private PositionDeque(int capacity) {
+      positions = new long[capacity];
+    }
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    private long peekFirst() {
+      return positions[head];
+    }
+
+    private long peekLast() {
+      return positions[(head + size - 1) % positions.length];
+    }
+
+    private void addLast(long position) {
+      positions[(head + size) % positions.length] = position;
+      size++;
+    }
+
+    private void pollLast() {
+      size--;
+    }
+
+    // Drops the positions at the front that have left the window
+    private void evictBefore(long first) {
+      while (size > 0 && positions[head] < first) {
+        head = (head + 1) % positions.length;
+        size--;
+      }
+    }
+  }
+
+  // A binary heap of window slots ordered by their prices, which records where each slot is so
+  // that any slot can be removed, not just the top one
+  private final class SlotHeap {
+    private final int[] slots;
+    private final boolean max;
+    private int size;
+
+    private SlotHeap(int capacity, boolean max) {
+      this.slots = new int[capacity];
+      this.max = max;
+    }
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    private int size() {
+      return size;
+    }
+
+    private int peek() {
+      return slots[0];
+    }
+
+    private void add(int slot) {
+      inLowerHalf[slot] = max;
+      place(slot, size);
+      size++;
+      siftUp(size - 1);
+    }
+
+    private int poll() {
+      int top = slots[0];
+      remove(top);
+      return top;
+    }
+
+    private void remove(int slot) {
+      int index = heapIndex[slot];
+      size--;
+      if (index == size) {
+        return;
+      }
+      place(slots[size], index);
+      siftDown(index);
+      siftUp(index);
+    }
+
+    // Whether the price in slot a belongs above the price in slot b
+    private boolean above(int a, int b) {
+      return max ? window[a] > window[b] : window[a] < window[b];
+    }
+
+    private void siftUp(int index) {
+      int slot = slots[index];
+      while (index > 0) {
+        int parent = (index - 1) / 2;
+        if (!above(slot, slots[parent])) {
+          break;
+        }
+        place(slots[parent], index);
+        index = parent;
+      }
+      place(slot, index);
+    }
+
+    private void siftDown(int index) {
+      int slot = slots[index];
+      while (true) {
+        int child = 2 * index + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && above(slots[child + 1], slots[child])) {
+          child++;
+        }
+        if (!above(slots[child], slot)) {
+          break;
+        }
+        place(slots[child], index);
+        index = child;
+      }
+      place(slot, index);
+    }
+
+    private void place(int slot, int index) {
+      slots[index] = slot;
+      heapIndex[slot] = index;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package stock.model;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.List;
 
 /**
@@ -26,6 +27,37 @@ public interface StockModel {
    */
   double getGainOverTime(LocalDate startDate, LocalDate endDate, String ticker) throws IOException;
 
+  /**
+   * Get the daily returns of a stock: for each trading day in the range after the first, the
+   * fractional change in closing price from the trading day before it (IE: 0.02 for a 2% rise).
+   *
+   * @param startDate the start date of the range (inclusive).
+   * @param endDate   the end date of the range (inclusive).
+   * @param ticker    the ticker of the Stock.
+   * @return the returns in date order, one fewer than the number of trading days in the range
+   *         (empty if there are fewer than two).
+   * @throws IOException              if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the start date is after the end date.
+   */
+  double[] getDailyReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException;
+
+  /**
+   * Get the daily log returns of a stock: for each trading day in the range after the first, the
+   * natural log of its closing price divided by the one from the trading day before it. Unlike
+   * simple returns, these add up to the log return over the whole range.
+   *
+   * @param startDate the start date of the range (inclusive).
+   * @param endDate   the end date of the range (inclusive).
+   * @param ticker    the ticker of the Stock.
+   * @return the log returns in date order, one fewer than the number of trading days in the
+   *         range (empty if there are fewer than two).
+   * @throws IOException              if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the start date is after the end date.
+   */
+  double[] getDailyLogReturns(LocalDate startDate, LocalDate endDate, String ticker)
+          throws IOException;
+
   /**
    * Get the x-day moving average for a stock.
    *
@@ -39,6 +71,22 @@ public interface StockModel {
    */
   double getMovingDayAverage(LocalDate endDate, int days, String ticker) throws IOException;
 
+  /**
+   * Get the x-day moving average of a stock on every trading day in a range, computed the same
+   * way as {@link #getMovingDayAverage}.
+   *
+   * @param startDate the first date of the range (inclusive).
+   * @param endDate   the last date of the range (inclusive).
+   * @param days      the number of days to calculate each average over.
+   * @param ticker    the ticker of the Stock.
+   * @return the moving average on each trading day in the range, from earliest to latest.
+   * @throws IOException              if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the start date is after the end date, or days is less
+   *                                  than 1.
+   */
+  PriceSeries getMovingAverageSeries(LocalDate startDate, LocalDate endDate, int days,
+                                     String ticker) throws IOException;
+
   /**
    * Get the crossover of x-day of the stock.
    *
@@ -50,6 +98,62 @@ public interface StockModel {
    */
   List<LocalDate> getCrossover(LocalDate endDate, int days, String ticker) throws IOException;
 
+  /**
+   * Get the moving-average crossovers of a stock between two dates for one or more window sizes:
+   * every day the closing price crossed one of the moving averages, and every day a shorter
+   * moving average crossed a longer one (golden and death crosses).
+   *
+   * @param startDate the first date to find crossovers on.
+   * @param endDate   the last date to find crossovers on.
+   * @param ticker    the ticker of the stock.
+   * @param windows   the number of trading days in each moving average.
+   * @return the crossovers from earliest to latest.
+   * @throws IOException              if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the start date is after the end date, there are no
+   *                                  windows, or a window is less than 1 day.
+   */
+  List<CrossoverEngine.Crossover> getCrossovers(LocalDate startDate, LocalDate endDate,
+                                                String ticker, int... windows)
+          throws IOException;
+
+  /**
+   * Get the values of a technical indicator (IE: {@link ExponentialMovingAverage},
+   * {@link RelativeStrengthIndex}, {@link Macd}, {@link BollingerBands} or
+   * {@link RollingStatistics}) on every trading day in a range. The indicator is run over the
+   * stock's whole history up to the end date, so the values at the start of the range are the
+   * same as they would be for a longer range.
+   *
+   * <p>Asking again for the same ticker and indicator name reuses the indicator that was already
+   * run, giving it only the trading days it has not seen yet, so indicators with different
+   * settings need different names. If the data source reports that the stock's earlier prices
+   * were revised, the indicator is run over the whole history again.</p>
+   *
+   * @param startDate the first date of the range (inclusive).
+   * @param endDate   the last date of the range (inclusive).
+   * @param ticker    the ticker of the stock.
+   * @param name      the name of the indicator and its settings (IE: {@code "EMA(12)"}).
+   * @param indicator makes a new indicator that has not been given any prices.
+   * @return the indicator's values on each trading day in the range, from earliest to latest.
+   * @throws IOException              if an I/O error occurs during data fetching.
+   * @throws IllegalArgumentException if the start date is after the end date.
+   */
+  IndicatorSeries getIndicatorSeries(LocalDate startDate, LocalDate endDate, String ticker,
+                                     String name, Supplier<Indicator> indicator)
+          throws IOException;
+
+  /**
+   * Screen every stock that is loaded in the data source, and rank the ones that pass. The
+   * stocks are screened in parallel.
+   *
+   * @param screen the screen to run on each stock (see {@link StockScreener} for some).
+   * @param limit  the most results to return.
+   * @return the best-scoring stocks that passed, best first.
+   * @throws IOException              if an I/O error occurs while finding the loaded stocks.
+   * @throws IllegalArgumentException if limit is less than 1.
+   */
+  List<StockScreener.Result> screenStocks(StockScreener.Screen screen, int limit)
+          throws IOException;
+
   /**
    * Create a new stock portfolio.
    *
@@ -88,6 +192,15 @@ public interface StockModel {
    */
   List<String> getPortfolios();
 
+  /**
+   * Whether a portfolio with a name has been created by the user. This is quicker than searching
+   * the list from {@link #getPortfolios()}.
+   *
+   * @param name the name of the portfolio.
+   * @return true if the portfolio exists, false otherwise.
+   */
+  boolean portfolioExists(String name);
+
   /**
    * Get the value of a portfolio on a specific date.
    *
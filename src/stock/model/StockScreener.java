@@ -0,0 +1,260 @@
+package stock.model;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs a screen over many stocks at once and ranks the stocks that pass it. The tickers are split
+ * between fork-join tasks, and each task keeps only the best results it has seen in a heap the
+ * size of the number of results asked for, so screening thousands of stocks never holds more
+ * than a handful of results per task.
+ *
+ * <p>A stock whose prices cannot be read (IE: it is not in the data source) is left out of the
+ * results rather than stopping the whole screen. Screens should be given stocks that are already
+ * loaded (see {@link DataSource#getLoadedTickers()}), since one that has to be downloaded holds
+ * up a thread of the pool until it arrives.</p>
+ */
+public final class StockScreener {
+  // below this many tickers, a task screens them itself instead of splitting them further
+  private static final int TICKERS_PER_TASK = 32;
+
+  // best first: highest score, then alphabetically by ticker so ties always rank the same way
+  private static final Comparator<Result> RANKING = Comparator
+          .comparingDouble(Result::getScore).reversed()
+          .thenComparing(Result::getTicker);
+
+  private final DataSource dataSource;
+  private final ForkJoinPool pool;
+
+  /**
+   * Decides whether a stock passes a screen, and how well.
+   */
+  public interface Screen {
+
+    /**
+     * Scores a stock. Stocks that pass are ranked by their score, highest first.
+     *
+     * @param ticker the ticker of the stock.
+     * @param prices the stock's whole price history.
+     * @return the stock's score, or NaN if it does not pass the screen.
+     */
+    double score(String ticker, PriceSeries prices);
+  }
+
+  /**
+   * Constructs a screener that runs on the common fork-join pool.
+   *
+   * @param dataSource where the stocks' prices are read from.
+   */
+  public StockScreener(DataSource dataSource) {
+    this(dataSource, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a screener that runs on a given fork-join pool.
+   *
+   * @param dataSource where the stocks' prices are read from.
+   * @param pool       the pool to screen stocks on.
+   */
+  public StockScreener(DataSource dataSource, ForkJoinPool pool) {
+    this.dataSource = dataSource;
+    this.pool = pool;
+  }
+
+  /**
+   * Screens stocks and ranks the ones that pass.
+   *
+   * @param tickers the tickers of the stocks to screen.
+   * @param screen  the screen to run on each stock.
+   * @param limit   the most results to return.
+   * @return the best-scoring stocks that passed, best first.
+   * @throws IllegalArgumentException if limit is less than 1.
+   */
+  public List<Result> screen(Collection<String> tickers, Screen screen, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("The number of results must be at least 1.");
+    }
+    String[] all = tickers.toArray(new String[0]);
+    return pool.invoke(new ScreenTask(all, 0, all.length, screen, limit)).toList();
+  }
+
+  /**
+   * A screen for stocks whose closing price crossed above their moving average within a number
+   * of days before a date. Stocks are scored by how far above the average they closed on the
+   * date, as a percentage of the average.
+   *
+   * @param window     the number of trading days in the moving average.
+   * @param date       the last date to look for a crossover on.
+   * @param withinDays how many days before the date to look back for a crossover.
+   * @return the screen.
+   * @throws IllegalArgumentException if window is less than 1 or withinDays is negative.
+   */
+  public static Screen crossedAboveAverage(int window, LocalDate date, int withinDays) {
+    if (withinDays < 0) {
+      throw new IllegalArgumentException("The number of days to look back cannot be negative.");
+    }
+    CrossoverEngine engine = new CrossoverEngine(window);
+    LocalDate start = date.minusDays(withinDays);
+    return (ticker, prices) -> {
+      boolean crossed = false;
+      for (CrossoverEngine.Crossover crossover : engine.run(prices, start, date)) {
+        crossed |= crossover.getType() == CrossoverEngine.Type.PRICE_ABOVE_AVERAGE;
+      }
+      int last = prices.floorIndex(PriceSeries.toEpochDay(date));
+      if (!crossed || last + 1 < window) {
+        return Double.NaN;
+      }
+      double average = prices.sum(last + 1 - window, last + 1) / window;
+      return average > 0 ? (prices.closeAt(last) - average) / average * 100 : Double.NaN;
+    };
+  }
+
+  /**
+   * A screen for stocks whose price rose by more than a percentage between two dates, from the
+   * first trading day on or after the start date to the last one on or before the end date.
+   * Stocks are scored by their percentage gain.
+   *
+   * @param start   the start date of the period.
+   * @param end     the end date of the period.
+   * @param percent the percentage the gain has to be over (IE: 10 for 10%).
+   * @return the screen.
+   */
+  public static Screen gainAbove(LocalDate start, LocalDate end, double percent) {
+    return (ticker, prices) -> {
+      PriceSeries period = prices.slice(start, end);
+      if (period.size() < 2 || period.closeAt(0) <= 0) {
+        return Double.NaN;
+      }
+      double first = period.closeAt(0);
+      double gain = (period.closeAt(period.size() - 1) - first) / first * 100;
+      return gain > percent ? gain : Double.NaN;
+    };
+  }
+
+  /**
+   * A stock that passed a screen, with its score.
+   */
+  public static final class Result {
+    private final String ticker;
+    private final double score;
+
+    /**
+     * Constructs a result.
+     *
+     * @param ticker the ticker of the stock.
+     * @param score  the stock's score from the screen.
+     */
+    public Result(String ticker, double score) {
+      this.ticker = ticker;
+      this.score = score;
+    }
+
+    /**
+     * Gets the ticker of the stock.
+     *
+     * @return the ticker.
+     */
+    public String getTicker() {
+      return ticker;
+    }
+
+    /**
+     * Gets the stock's score from the screen.
+     *
+     * @return the score.
+     */
+    public double getScore() {
+      return score;
+    }
+
+    @Override
+    public String toString() {
+      return ticker + " " + score;
+    }
+  }
+
+  // The best results seen so far, in a heap with the worst of them on top so it can be replaced
+  private static final class TopResults {
+    private final int limit;
+    private final PriorityQueue<Result> heap;
+
+    private TopResults(int limit) {
+      this.limit = limit;
+      this.heap = new PriorityQueue<>(RANKING.reversed());
+    }
+
+    private void offer(Result result) {
+      if (heap.size() < limit) {
+        heap.add(result);
+      } else if (RANKING.compare(result, heap.peek()) < 0) {
+        heap.poll();
+        heap.add(result);
+      }
+    }
+
+    private TopResults merge(TopResults other) {
+      for (Result result : other.heap) {
+        offer(result);
+      }
+      return this;
+    }
+
+    private List<Result> toList() {
+      List<Result> results = new ArrayList<>(heap);
+      results.sort(RANKING);
+      return results;
+    }
+  }
+
+  // Screens a range of the tickers, splitting it in half until it is small enough
+  private final class ScreenTask extends RecursiveTask<TopResults> {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] tickers;
+    private final int from;
+    private final int to;
+    private final Screen screen;
+    private final int limit;
+
+    private ScreenTask(String[] tickers, int from, int to, Screen screen, int limit) {
+      this.tickers = tickers;
+      this.from = from;
+      this.to = to;
+      this.screen = screen;
+      this.limit = limit;
+    }
+
+    @Override
+    protected TopResults compute() {
+      if (to - from > TICKERS_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        ScreenTask left = new ScreenTask(tickers, from, middle, screen, limit);
+        left.fork();
+        TopResults right = new ScreenTask(tickers, middle, to, screen, limit).compute();
+        return right.merge(left.join());
+      }
+
+      TopResults top = new TopResults(limit);
+      for (int i = from; i < to; i++) {
+        PriceSeries prices;
+        try {
+          prices = dataSource.getPriceRange(tickers[i], LocalDate.MIN, LocalDate.MAX);
+        } catch (IOException | IllegalArgumentException e) {
+          continue;
+        }
+        double score = screen.score(tickers[i], prices);
+        if (!Double.isNaN(score)) {
+          top.offer(new Result(tickers[i], score));
+        }
+      }
+      return top;
+    }
+  }
+}
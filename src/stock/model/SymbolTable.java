@@ -0,0 +1,106 @@
+package stock.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each ticker symbol a small, dense int id, so that anything kept per stock (IE: the shares
+ * of each stock in a portfolio, or a cursor into each stock's prices) can be stored in an array
+ * indexed by id instead of a map keyed by string. Ids are handed out in the order tickers are
+ * first seen, starting at 0, and never change.
+ *
+ * <p>The {@link #shared()} table is used by both the model and the portfolios, so an id means
+ * the same stock everywhere. It can be read and added to from any number of threads.</p>
+ */
+public final class SymbolTable {
+  private static final SymbolTable SHARED = new SymbolTable();
+
+  private final Map<String, Integer> ids;
+  // symbols[id] is the ticker with that id; a new array is published whenever it grows
+  private volatile String[] symbols;
+  private volatile int size;
+
+  /**
+   * Constructs an empty symbol table.
+   */
+  public SymbolTable() {
+    ids = new ConcurrentHashMap<>();
+    symbols = new String[64];
+  }
+
+  /**
+   * Gets the table shared by the whole program.
+   *
+   * @return the shared symbol table.
+   */
+  public static SymbolTable shared() {
+    return SHARED;
+  }
+
+  /**
+   * Gets the id of a ticker, giving it the next id if it does not have one yet.
+   *
+   * @param symbol the ticker.
+   * @return the ticker's id.
+   */
+  public int intern(String symbol) {
+    Integer id = ids.get(symbol);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = ids.get(symbol);
+      if (id != null) {
+        return id;
+      }
+      int next = size;
+      String[] current = symbols;
+      if (next == current.length) {
+        current = Arrays.copyOf(current, next * 2);
+      }
+      current[next] = symbol;
+      symbols = current;
+      size = next + 1;
+      // published last, so anyone who finds the id can also find the symbol
+      ids.put(symbol, next);
+      return next;
+    }
+  }
+
+  /**
+   * Gets the id of a ticker without giving it one.
+   *
+   * @param symbol the ticker.
+   * @return the ticker's id, or -1 if it does not have one.
+   */
+  public int idOf(String symbol) {
+    Integer id = ids.get(symbol);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Gets the ticker with an id.
+   *
+   * @param id the id.
+   * @return the ticker.
+   * @throws IndexOutOfBoundsException if no ticker has the id.
+   */
+  public String symbol(int id) {
+    String[] current = symbols;
+    String symbol = id >= 0 && id < current.length ? current[id] : null;
+    if (symbol == null) {
+      throw new IndexOutOfBoundsException("No symbol has the id " + id + ".");
+    }
+    return symbol;
+  }
+
+  /**
+   * Gets the number of tickers with ids, which is one more than the largest id.
+   *
+   * @return the number of tickers.
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,195 @@
+package stock.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A summary of a stock's price history: its first and last trading days, how many trading days
+ * it has, and every gap between consecutive trading days that is longer than a number of days
+ * (IE: a stock that was suspended, or missing data). The model checks a request's dates against
+ * the first and last trading days first, so a gain, moving average or crossover for dates
+ * outside the stock's history is answered without looking up any prices.
+ */
+public final class TickerMetadata {
+  /**
+   * The gap length used by data sources: a long weekend (IE: Friday to Tuesday) is 4 days, so
+   * anything longer is unusual.
+   */
+  public static final int DEFAULT_GAP_DAYS = 5;
+
+  private final LocalDate firstDate;
+  private final LocalDate lastDate;
+  private final int observations;
+  private final int minGapDays;
+  private final List<Gap> gaps;
+
+  private TickerMetadata(LocalDate firstDate, LocalDate lastDate, int observations,
+                         int minGapDays, List<Gap> gaps) {
+    this.firstDate = firstDate;
+    this.lastDate = lastDate;
+    this.observations = observations;
+    this.minGapDays = minGapDays;
+    this.gaps = gaps;
+  }
+
+  /**
+   * Summarizes a stock's price history.
+   *
+   * @param prices     the stock's price history.
+   * @param minGapDays gaps between trading days are recorded if they are longer than this many
+   *                   days.
+   * @return the summary of the price history.
+   * @throws IllegalArgumentException if minGapDays is less than 1.
+   */
+  public static TickerMetadata of(PriceSeries prices, int minGapDays) {
+    if (minGapDays < 1) {
+      throw new IllegalArgumentException("Gap length must be at least 1 day.");
+    }
+    if (prices.size() == 0) {
+      return new TickerMetadata(null, null, 0, minGapDays, List.of());
+    }
+
+    List<Gap> gaps = new ArrayList<>();
+    for (int i = 1; i < prices.size(); i++) {
+      if (prices.dayAt(i) - prices.dayAt(i - 1) > minGapDays) {
+        gaps.add(new Gap(prices.dateAt(i - 1), prices.dateAt(i)));
+      }
+    }
+    return new TickerMetadata(prices.dateAt(0), prices.dateAt(prices.size() - 1), prices.size(),
+            minGapDays, Collections.unmodifiableList(gaps));
+  }
+
+  /**
+   * Gets the first trading day in the stock's history.
+   *
+   * @return the first trading day, or null if the stock has no prices.
+   */
+  public LocalDate getFirstDate() {
+    return firstDate;
+  }
+
+  /**
+   * Gets the last trading day in the stock's history.
+   *
+   * @return the last trading day, or null if the stock has no prices.
+   */
+  public LocalDate getLastDate() {
+    return lastDate;
+  }
+
+  /**
+   * Gets the number of trading days in the stock's history.
+   *
+   * @return the number of trading days.
+   */
+  public int getObservations() {
+    return observations;
+  }
+
+  /**
+   * Gets the length a gap has to be over to be recorded.
+   *
+   * @return the gap length in days.
+   */
+  public int getMinGapDays() {
+    return minGapDays;
+  }
+
+  /**
+   * Gets every gap between consecutive trading days that is longer than
+   * {@link #getMinGapDays()}, from earliest to latest.
+   *
+   * @return the gaps in the stock's history.
+   */
+  public List<Gap> getGaps() {
+    return gaps;
+  }
+
+  /**
+   * Determines whether the stock has no prices at all.
+   *
+   * @return whether the stock's history is empty.
+   */
+  public boolean isEmpty() {
+    return observations == 0;
+  }
+
+  /**
+   * Determines whether a date is within the stock's history, IE: on or after its first trading
+   * day and on or before its last one.
+   *
+   * @param date the date.
+   * @return whether the date is within the stock's history.
+   */
+  public boolean covers(LocalDate date) {
+    return !isEmpty() && !date.isBefore(firstDate) && !date.isAfter(lastDate);
+  }
+
+  /**
+   * Determines whether any part of a date range (inclusive) is within the stock's history.
+   *
+   * @param start the first date of the range.
+   * @param end   the last date of the range.
+   * @return whether the range and the stock's history overlap.
+   */
+  public boolean overlaps(LocalDate start, LocalDate end) {
+    return !isEmpty() && !start.isAfter(lastDate) && !end.isBefore(firstDate)
+            && !start.isAfter(end);
+  }
+
+  @Override
+  public String toString() {
+    if (isEmpty()) {
+      return "No prices";
+    }
+    return observations + " trading days from " + firstDate + " to " + lastDate + ", "
+            + gaps.size() + " gaps longer than " + minGapDays + " days";
+  }
+
+  /**
+   * A stretch of more than a few days with no trading.
+   */
+  public static final class Gap {
+    private final LocalDate lastBefore;
+    private final LocalDate firstAfter;
+
+    private Gap(LocalDate lastBefore, LocalDate firstAfter) {
+      this.lastBefore = lastBefore;
+      this.firstAfter = firstAfter;
+    }
+
+    /**
+     * Gets the last trading day before the gap.
+     *
+     * @return the trading day the gap starts after.
+     */
+    public LocalDate getLastBefore() {
+      return lastBefore;
+    }
+
+    /**
+     * Gets the first trading day after the gap.
+     *
+     * @return the trading day the gap ends before.
+     */
+    public LocalDate getFirstAfter() {
+      return firstAfter;
+    }
+
+    /**
+     * Gets the number of days between the trading days on either side of the gap.
+     *
+     * @return the length of the gap in days.
+     */
+    public long getDays() {
+      return firstAfter.toEpochDay() - lastBefore.toEpochDay();
+    }
+
+    @Override
+    public String toString() {
+      return lastBefore + " to " + firstAfter;
+    }
+  }
+}
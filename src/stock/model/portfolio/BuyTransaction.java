@@ -2,7 +2,9 @@ package stock.model.portfolio;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.Map;
+import java.util.Set;
+
+import stock.model.SymbolTable;
 
 /**
  * Represents a buy transaction within a portfolio. This transaction adds the specified number
@@ -11,6 +13,7 @@ import java.util.Map;
 public class BuyTransaction extends Transaction {
   private final double shares;
   private final String ticker;
+  private final int symbol;
 
   /**
    * Constructs a BuyTransaction with the specified date, number of shares, and stock ticker.
@@ -27,6 +30,7 @@ public class BuyTransaction extends Transaction {
     }
     this.shares = shares;
     this.ticker = ticker;
+    this.symbol = SymbolTable.shared().intern(ticker);
   }
 
   /**
@@ -41,23 +45,28 @@ public class BuyTransaction extends Transaction {
     var split = data.split(",");
     this.shares = Double.parseDouble(split[1]);
     this.ticker = split[2];
+    this.symbol = SymbolTable.shared().intern(ticker);
   }
 
   /**
-   * Applies the buy transaction to the provided map of tickers to shares, adding the specified
-   * number of shares to the stock in the portfolio.
+   * Applies the buy transaction to the holdings, adding the specified number of shares to the
+   * stock in the portfolio.
    *
-   * @param res the map of tickers to shares
-   * @return the updated map after applying the buy transaction
+   * @param holdings the shares of each stock, indexed by symbol id
    */
   @Override
-  Map<String, Double> apply(Map<String, Double> res) {
-    if (!res.containsKey(ticker)) {
-      res.put(ticker, shares);
-    } else {
-      res.put(ticker, res.get(ticker) + shares);
-    }
-    return res;
+  void apply(Holdings holdings) {
+    holdings.set(symbol, holdings.getShares(symbol) + shares);
+  }
+
+  /**
+   * Gets the ticker of the stock that is bought.
+   *
+   * @return a set holding the stock ticker
+   */
+  @Override
+  Set<String> getTickers() {
+    return Set.of(ticker);
   }
 
   /**
@@ -0,0 +1,166 @@
+package stock.model.portfolio;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import stock.model.SymbolTable;
+
+/**
+ * The shares of each stock held in a portfolio, stored as a vector indexed by the stocks' ids in
+ * the {@link SymbolTable#shared() shared symbol table}. Applying a transaction, valuing the
+ * holdings and working out their distribution are loops over primitive arrays, with no hashing,
+ * boxing or allocation.
+ *
+ * <p>A stock can be held with 0 shares (IE: after rebalancing it to 0%), which is not the same
+ * as not holding it, so whether each stock is held is kept apart from its number of shares.</p>
+ */
+public final class Holdings {
+  private double[] shares;
+  private boolean[] held;
+  private int count;
+
+  /**
+   * Constructs empty holdings.
+   */
+  public Holdings() {
+    shares = new double[16];
+    held = new boolean[16];
+  }
+
+  /**
+   * Constructs a copy of other holdings.
+   *
+   * @param other the holdings to copy.
+   */
+  public Holdings(Holdings other) {
+    shares = other.shares.clone();
+    held = other.held.clone();
+    count = other.count;
+  }
+
+  // Holdings with the shares in a map of tickers to shares
+  static Holdings fromMap(Map<String, Double> composition) {
+    Holdings holdings = new Holdings();
+    for (Map.Entry<String, Double> position : composition.entrySet()) {
+      holdings.set(SymbolTable.shared().intern(position.getKey()), position.getValue());
+    }
+    return holdings;
+  }
+
+  /**
+   * Gets the number of stocks held.
+   *
+   * @return the number of stocks held.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Gets a bound on the ids of the stocks held: every stock held has an id below it.
+   *
+   * @return the bound on the ids.
+   */
+  public int idBound() {
+    return held.length;
+  }
+
+  /**
+   * Gets whether a stock is held.
+   *
+   * @param id the id of the stock.
+   * @return whether it is held, even with 0 shares.
+   */
+  public boolean holds(int id) {
+    return id >= 0 && id < held.length && held[id];
+  }
+
+  /**
+   * Gets the number of shares of a stock held.
+   *
+   * @param id the id of the stock.
+   * @return the number of shares, which is 0 if the stock is not held.
+   */
+  public double getShares(int id) {
+    return id >= 0 && id < shares.length ? shares[id] : 0;
+  }
+
+  // Holds a number of shares of a stock
+  void set(int id, double amount) {
+    if (id >= held.length) {
+      int length = Math.max(id + 1, held.length * 2);
+      shares = Arrays.copyOf(shares, length);
+      held = Arrays.copyOf(held, length);
+    }
+    if (!held[id]) {
+      held[id] = true;
+      count++;
+    }
+    shares[id] = amount;
+  }
+
+  // Stops holding a stock
+  void remove(int id) {
+    if (holds(id)) {
+      held[id] = false;
+      shares[id] = 0;
+      count--;
+    }
+  }
+
+  /**
+   * Gets the value of the holdings: the dot product of the shares with the prices.
+   *
+   * @param prices the price of each stock, indexed by id.
+   * @return the value of the holdings.
+   * @throws IllegalArgumentException if a stock held has no price (its id is past the end of
+   *                                  the prices).
+   */
+  public double value(double[] prices) throws IllegalArgumentException {
+    double total = 0;
+    for (int id = 0; id < held.length; id++) {
+      if (held[id]) {
+        total += shares[id] * priceOf(prices, id);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Works out the value of each stock held, writing it into an array indexed by id. Stocks that
+   * are not held are given a value of 0.
+   *
+   * @param prices the price of each stock, indexed by id.
+   * @param values where the value of each stock is written; must be at least as long as
+   *               {@link #idBound()}.
+   * @throws IllegalArgumentException if a stock held has no price.
+   */
+  public void distribution(double[] prices, double[] values) throws IllegalArgumentException {
+    for (int id = 0; id < held.length; id++) {
+      values[id] = held[id] ? shares[id] * priceOf(prices, id) : 0;
+    }
+  }
+
+  private static double priceOf(double[] prices, int id) {
+    if (id >= prices.length) {
+      throw new IllegalArgumentException("Prices does not contain all the necessary stocks!");
+    }
+    return prices[id];
+  }
+
+  /**
+   * Gets the holdings as a map of tickers to shares.
+   *
+   * @return a new map of each stock held to its number of shares.
+   */
+  public Map<String, Double> toMap() {
+    Map<String, Double> map = new HashMap<>();
+    for (int id = 0; id < held.length; id++) {
+      if (held[id]) {
+        map.put(SymbolTable.shared().symbol(id), shares[id]);
+      }
+    }
+    return map;
+  }
+}
@@ -7,18 +7,40 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import stock.model.SymbolTable;
 
 /**
  * The Portfolio class represents a collection of transactions involving various stocks.
  * It provides functionality to buy and sell stocks, rebalance the portfolio, and retrieve
  * the portfolio's composition, value, and value distribution at a specific date.
+ *
+ * <p>Transactions are kept in order of date; transactions on the same date stay in the order
+ * they were made. Compositions are kept as {@link Holdings}, vectors of shares indexed by the
+ * stocks' symbol ids, so replaying a transaction or valuing the portfolio does not hash any
+ * tickers. The composition after every N transactions is kept as a checkpoint, so the
+ * composition on a date starts from the last checkpoint before it and only replays the
+ * transactions after that, instead of every transaction since the first. Checkpoints are made
+ * when first needed, and the ones after a transaction that is added before the end are thrown
+ * away.</p>
+ *
+ * <p>A portfolio can be read and changed from several threads at once: changes, and the
+ * checkpoints made while reading, are done one at a time.</p>
  */
 public class Portfolio {
+  private static final int CHECKPOINT_INTERVAL = 64;
+
   private final List<Transaction> transactions;
-  private String name;
+  // checkpoints.get(k) is the composition after the first (k + 1) * interval transactions
+  private final List<Holdings> checkpoints;
+  private final int checkpointInterval;
+  private volatile String name;
   private final String FILE_EXTENSION = ".txt";
 
   /**
@@ -27,7 +49,14 @@ public class Portfolio {
    * @param name the name of the portfolio
    */
   public Portfolio(String name) {
+    this(name, CHECKPOINT_INTERVAL);
+  }
+
+  // Lets tests use checkpoints a few transactions apart
+  Portfolio(String name, int checkpointInterval) {
     this.transactions = new ArrayList<>();
+    this.checkpoints = new ArrayList<>();
+    this.checkpointInterval = checkpointInterval;
     this.name = name;
   }
 
@@ -57,7 +86,7 @@ public class Portfolio {
    * @param shares the number of shares to buy
    */
   public void buyStock(String ticker, LocalDate date, double shares) {
-    transactions.add(new BuyTransaction(date, shares, ticker));
+    addTransaction(new BuyTransaction(date, shares, ticker));
   }
 
   /**
@@ -69,21 +98,22 @@ public class Portfolio {
    * @throws IllegalArgumentException if there are not enough shares to sell or if the stock was
    *                                  not previously bought
    */
-  public void sellStock(String ticker, LocalDate date, double shares) throws
+  public synchronized void sellStock(String ticker, LocalDate date, double shares) throws
           IllegalArgumentException {
-    var composition = getComposition(date);
+    Holdings holdings = holdingsAsOf(date);
+    int symbol = SymbolTable.shared().idOf(ticker);
 
-    if (!composition.containsKey(ticker)) {
+    if (!holdings.holds(symbol)) {
       throw new IllegalArgumentException("You cannot sell a stock you have not bought before"
               + " that time.");
     }
 
-    if (composition.get(ticker) < shares) {
+    if (holdings.getShares(symbol) < shares) {
       throw new IllegalArgumentException("You have not bought enough of that stock up until that "
               + "date to sell that many shares.");
     }
 
-    transactions.add(new SellTransaction(date, shares, ticker));
+    addTransaction(new SellTransaction(date, shares, ticker));
   }
 
   /**
@@ -95,7 +125,7 @@ public class Portfolio {
    * @throws IllegalArgumentException if the proportions do not match the current stocks in the
    *                                  portfolio
    */
-  public void rebalance(LocalDate date, Map<String, Double> prices,
+  public synchronized void rebalance(LocalDate date, Map<String, Double> prices,
                         Map<String, Double> proportions) throws IllegalArgumentException {
 
     var composition = getComposition(date);
@@ -104,10 +134,50 @@ public class Portfolio {
               + " in prices.");
     }
 
-    transactions.add(new RebalanceTransaction(date, new HashMap<>(prices),
+    addTransaction(new RebalanceTransaction(date, new HashMap<>(prices),
             new HashMap<>(proportions)));
   }
 
+  // Inserts a transaction after every transaction on or before its date, and throws away the
+  // checkpoints that include transactions after it
+  private synchronized void addTransaction(Transaction transaction) {
+    int index = countUpTo(transaction.getDate());
+    transactions.add(index, transaction);
+    int stillValid = index / checkpointInterval;
+    if (checkpoints.size() > stillValid) {
+      checkpoints.subList(stillValid, checkpoints.size()).clear();
+    }
+  }
+
+  // The number of transactions on or before a date, found by binary search
+  private int countUpTo(LocalDate date) {
+    int low = 0;
+    int high = transactions.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (transactions.get(middle).getDate().isAfter(date)) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Gets the tickers of every stock that has ever been in the portfolio, in the order they were
+   * first bought.
+   *
+   * @return the tickers of the stocks in the portfolio's history
+   */
+  public synchronized Set<String> getTickers() {
+    Set<String> res = new LinkedHashSet<>();
+    for (var tran : transactions) {
+      res.addAll(tran.getTickers());
+    }
+    return res;
+  }
+
   /**
    * Gets the composition of the portfolio on a specific date.
    *
@@ -116,18 +186,117 @@ public class Portfolio {
    * @throws IllegalArgumentException if the date is invalid
    */
   public Map<String, Double> getComposition(LocalDate date) throws IllegalArgumentException {
-    Map<String, Double> res = new HashMap<>();
+    return holdingsAsOf(date).toMap();
+  }
 
-    for (var tran : transactions) {
-      if (tran.getDate().isAfter(date)) {
-        continue;
+  /**
+   * Gets the composition of the portfolio on a specific date as a vector of shares indexed by
+   * symbol id.
+   *
+   * @param date the date to get the composition at
+   * @return a copy of the holdings on that date
+   */
+  public Holdings getHoldings(LocalDate date) {
+    return holdingsAsOf(date);
+  }
+
+  // A new copy of the holdings after every transaction on or before a date
+  private synchronized Holdings holdingsAsOf(LocalDate date) {
+    int count = countUpTo(date);
+    int blocks = count / checkpointInterval;
+
+    // make any missing checkpoints up to the last one before the date
+    while (checkpoints.size() < blocks) {
+      int built = checkpoints.size();
+      Holdings next = built == 0 ? new Holdings() : new Holdings(checkpoints.get(built - 1));
+      for (int i = built * checkpointInterval; i < (built + 1) * checkpointInterval; i++) {
+        transactions.get(i).apply(next);
       }
-      res = tran.apply(res);
+      checkpoints.add(next);
     }
 
+    Holdings res = blocks == 0 ? new Holdings() : new Holdings(checkpoints.get(blocks - 1));
+    for (int i = blocks * checkpointInterval; i < count; i++) {
+      transactions.get(i).apply(res);
+    }
     return res;
   }
 
+  /**
+   * Starts walking the composition of the portfolio forward through time from a date, so that a
+   * run of later dates can be gone through applying each transaction once, instead of working
+   * out the composition from the start on every date. The sweep works from the transactions as
+   * they were when it was started, so changes made to the portfolio while it is in use (IE: from
+   * another thread) do not affect it.
+   *
+   * @param date the date to start at
+   * @return a sweep holding the composition on that date
+   */
+  public Sweep sweepFrom(LocalDate date) {
+    return new Sweep(date);
+  }
+
+  /**
+   * The composition of a portfolio as of a date that only moves forward. See
+   * {@link Portfolio#sweepFrom(LocalDate)}.
+   */
+  public final class Sweep {
+    private final Holdings holdings;
+    // the transactions after the start date, copied so that later changes cannot shift them
+    private final Transaction[] pending;
+    private LocalDate date;
+    private int next;
+
+    private Sweep(LocalDate date) {
+      synchronized (Portfolio.this) {
+        this.holdings = holdingsAsOf(date);
+        this.pending = transactions.subList(countUpTo(date), transactions.size())
+                .toArray(new Transaction[0]);
+      }
+      this.date = date;
+    }
+
+    /**
+     * Moves the sweep forward to a date, applying every transaction after the sweep's last date
+     * up to and including it.
+     *
+     * @param date the date to move to
+     * @return whether any transactions were applied
+     * @throws IllegalArgumentException if the date is before the sweep's last date
+     */
+    public boolean advanceTo(LocalDate date) throws IllegalArgumentException {
+      if (date.isBefore(this.date)) {
+        throw new IllegalArgumentException("A sweep can only move forward in time.");
+      }
+      this.date = date;
+      int first = next;
+      while (next < pending.length && !pending[next].getDate().isAfter(date)) {
+        pending[next].apply(holdings);
+        next++;
+      }
+      return next > first;
+    }
+
+    /**
+     * Gets the composition of the portfolio on the sweep's last date.
+     *
+     * @return a new map of stock tickers to the number of shares held
+     */
+    public Map<String, Double> getComposition() {
+      return holdings.toMap();
+    }
+
+    /**
+     * Gets the holdings of the portfolio on the sweep's last date. These are the sweep's own
+     * holdings, which change as it moves forward, so they must not be changed by the caller.
+     *
+     * @return the shares of each stock held, indexed by symbol id
+     */
+    public Holdings getHoldings() {
+      return holdings;
+    }
+  }
+
   /**
    * Gets the value of the portfolio on a specific date.
    *
@@ -138,18 +307,8 @@ public class Portfolio {
    */
   public Double getValue(LocalDate date, Map<String, Double> prices) throws
           IllegalArgumentException {
-    var composition = getComposition(date);
-
-    // prices map DOESNT have all the stocks that portfolio does
-    if (!prices.keySet().containsAll(composition.keySet())) {
-      throw new IllegalArgumentException("Prices does not contain all the necessary stocks!");
-    }
-
-    double res = 0;
-    for (String ticker : composition.keySet()) {
-      res += composition.get(ticker) * prices.get(ticker);
-    }
-    return res;
+    Holdings holdings = holdingsAsOf(date);
+    return holdings.value(priceVector(holdings, prices));
   }
 
   /**
@@ -162,15 +321,31 @@ public class Portfolio {
    */
   public Map<String, Double> getDistribution(LocalDate date, Map<String, Double> prices) throws
           IllegalArgumentException {
-    var composition = getComposition(date);
-    // prices map DOESNT have all the stocks that portfolio does
-    if (!prices.keySet().containsAll(composition.keySet())) {
-      throw new IllegalArgumentException("Prices does not contain all the necessary stocks!");
-    }
+    Holdings holdings = holdingsAsOf(date);
+    double[] values = new double[holdings.idBound()];
+    holdings.distribution(priceVector(holdings, prices), values);
 
     var res = new HashMap<String, Double>();
-    for (String ticker : composition.keySet()) {
-      res.put(ticker, prices.get(ticker) * composition.get(ticker));
+    for (int id = 0; id < values.length; id++) {
+      if (holdings.holds(id)) {
+        res.put(SymbolTable.shared().symbol(id), values[id]);
+      }
+    }
+    return res;
+  }
+
+  // The price of each stock held, indexed by symbol id
+  private static double[] priceVector(Holdings holdings, Map<String, Double> prices) {
+    double[] res = new double[holdings.idBound()];
+    for (int id = 0; id < res.length; id++) {
+      if (holdings.holds(id)) {
+        Double price = prices.get(SymbolTable.shared().symbol(id));
+        // prices map DOESNT have all the stocks that portfolio does
+        if (price == null) {
+          throw new IllegalArgumentException("Prices does not contain all the necessary stocks!");
+        }
+        res[id] = price;
+      }
     }
     return res;
   }
@@ -209,8 +384,10 @@ public class Portfolio {
   public void createSave(String folderName, String fileName) throws IOException {
     StringBuilder data = new StringBuilder();
 
-    for (var tran : transactions) {
-      data.append(tran.save()).append(System.lineSeparator());
+    synchronized (this) {
+      for (var tran : transactions) {
+        data.append(tran.save()).append(System.lineSeparator());
+      }
     }
 
     try {
@@ -238,11 +415,18 @@ public class Portfolio {
 
     List<String> lines = Files.readAllLines(filePath);
 
-    transactions.clear();
+    List<Transaction> loaded = new ArrayList<>();
     for (String line : lines) {
-      transactions.add(parseTransaction(line));
+      loaded.add(parseTransaction(line));
     }
+    // the sort is stable, so transactions on the same date keep the order they were saved in
+    loaded.sort(Comparator.comparing(Transaction::getDate));
 
+    synchronized (this) {
+      transactions.clear();
+      checkpoints.clear();
+      transactions.addAll(loaded);
+    }
   }
 
   private Transaction parseTransaction(String line) throws IOException {
@@ -0,0 +1,138 @@
+package stock.model.portfolio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The portfolios of a model, looked up by name. Looking a portfolio up, checking that a name is
+ * taken and listing the names take constant time and never wait on a lock, so any number of
+ * sessions or background jobs can share one registry; adding, removing and renaming are done one
+ * at a time.
+ *
+ * <p>The names are listed in the order the portfolios were added (a renamed portfolio keeps its
+ * place). The list is an immutable copy that is only made again when a portfolio is added,
+ * removed or renamed, so listing the names between changes costs nothing.</p>
+ */
+public final class PortfolioRegistry {
+  private final Map<String, Portfolio> byName;
+  // the portfolios in the order they were added; only touched while holding the lock
+  private final List<Portfolio> ordered;
+  private volatile List<String> names;
+
+  /**
+   * Constructs an empty registry.
+   */
+  public PortfolioRegistry() {
+    byName = new ConcurrentHashMap<>();
+    ordered = new ArrayList<>();
+    names = List.of();
+  }
+
+  /**
+   * Gets the portfolio with a name.
+   *
+   * @param name the name of the portfolio
+   * @return the portfolio
+   * @throws IllegalArgumentException if there is no portfolio with that name
+   */
+  public Portfolio get(String name) throws IllegalArgumentException {
+    Portfolio port = name == null ? null : byName.get(name);
+    if (port == null) {
+      throw new IllegalArgumentException("Name of that portfolio doesn't exist");
+    }
+    return port;
+  }
+
+  /**
+   * Gets whether there is a portfolio with a name.
+   *
+   * @param name the name of the portfolio
+   * @return whether the portfolio exists
+   */
+  public boolean contains(String name) {
+    return name != null && byName.containsKey(name);
+  }
+
+  /**
+   * Gets the names of every portfolio, in the order they were added.
+   *
+   * @return an immutable list of the names
+   */
+  public List<String> names() {
+    return names;
+  }
+
+  /**
+   * Adds a new, empty portfolio.
+   *
+   * @param name the name of the portfolio
+   * @return the new portfolio
+   * @throws IllegalArgumentException if there is already a portfolio with that name
+   */
+  public synchronized Portfolio create(String name) throws IllegalArgumentException {
+    if (byName.containsKey(name)) {
+      throw new IllegalArgumentException("A portfolio with that name already exists!");
+    }
+    Portfolio port = new Portfolio(name);
+    ordered.add(port);
+    byName.put(name, port);
+    refreshNames();
+    return port;
+  }
+
+  /**
+   * Gets the portfolio with a name, adding a new, empty one if there is none.
+   *
+   * @param name the name of the portfolio
+   * @return the portfolio
+   */
+  public synchronized Portfolio getOrCreate(String name) {
+    Portfolio port = byName.get(name);
+    return port != null ? port : create(name);
+  }
+
+  /**
+   * Removes a portfolio.
+   *
+   * @param name the name of the portfolio
+   * @throws IllegalArgumentException if there is no portfolio with that name
+   */
+  public synchronized void remove(String name) throws IllegalArgumentException {
+    Portfolio port = get(name);
+    byName.remove(name);
+    ordered.remove(port);
+    refreshNames();
+  }
+
+  /**
+   * Renames a portfolio, which keeps its place in the list of names.
+   *
+   * @param oldName the current name of the portfolio
+   * @param newName the new name for the portfolio
+   * @throws IllegalArgumentException if there is no portfolio with the old name, or there is
+   *                                  already one with the new name
+   */
+  public synchronized void rename(String oldName, String newName)
+          throws IllegalArgumentException {
+    if (byName.containsKey(newName)) {
+      throw new IllegalArgumentException("A portfolio with newName already exists!");
+    }
+    Portfolio port = get(oldName);
+    // the new name is taken before the old one is given up, so the portfolio can always be found
+    byName.put(newName, port);
+    port.rename(newName);
+    byName.remove(oldName);
+    refreshNames();
+  }
+
+  // Makes the list of names again after a change
+  private void refreshNames() {
+    List<String> res = new ArrayList<>(ordered.size());
+    for (Portfolio port : ordered) {
+      res.add(port.getName());
+    }
+    names = List.copyOf(res);
+  }
+}
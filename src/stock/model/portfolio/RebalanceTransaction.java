@@ -4,8 +4,11 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import stock.model.SymbolTable;
+
 
 /**
  * Represents a rebalance transaction within a portfolio. This transaction adjusts the portfolio
@@ -16,6 +19,11 @@ public class RebalanceTransaction extends Transaction {
   private final Map<String, Double> proportions;
   private static final double epsilon = 0.01;
 
+  // the rebalanced stocks' ids, with their prices (NaN if missing) and proportions in step
+  private int[] symbols;
+  private double[] symbolPrices;
+  private double[] symbolProportions;
+
   /**
    * Constructs a RebalanceTransaction with the specified date, stock prices, and proportions.
    *
@@ -28,6 +36,7 @@ public class RebalanceTransaction extends Transaction {
     super(date);
     this.proportions = proportions;
     this.prices = prices;
+    indexSymbols();
   }
 
   /**
@@ -42,6 +51,21 @@ public class RebalanceTransaction extends Transaction {
     var split = data.split(",");
     this.prices = parseMap(split[1]);
     this.proportions = parseMap(split[2]);
+    indexSymbols();
+  }
+
+  // Looks up the rebalanced stocks' ids once, so applying the rebalance does no hashing
+  private void indexSymbols() {
+    symbols = new int[proportions.size()];
+    symbolPrices = new double[symbols.length];
+    symbolProportions = new double[symbols.length];
+    int i = 0;
+    for (Map.Entry<String, Double> proportion : proportions.entrySet()) {
+      symbols[i] = SymbolTable.shared().intern(proportion.getKey());
+      symbolPrices[i] = prices.getOrDefault(proportion.getKey(), Double.NaN);
+      symbolProportions[i] = proportion.getValue();
+      i++;
+    }
   }
 
   private Map<String, Double> parseMap(String data) {
@@ -61,42 +85,44 @@ public class RebalanceTransaction extends Transaction {
   }
 
   /**
-   * Applies the rebalance transaction to the provided map of tickers to shares, adjusting the
-   * number of shares to meet the specified proportions.
+   * Applies the rebalance transaction to the holdings, adjusting the number of shares to meet the
+   * specified proportions.
    *
-   * @param res the map of tickers to shares
-   * @return the updated map after applying the rebalance transaction
-   * @throws RuntimeException if the proportions do not add up to 100% (1.00)
+   * @param holdings the shares of each stock, indexed by symbol id
+   * @throws RuntimeException if a rebalanced stock is not held or has no price, or if the
+   *                          proportions do not add up to 100% (1.00)
    */
   @Override
-  Map<String, Double> apply(Map<String, Double> res) {
-    // stock, value
-    Map<String, Double> expected = new HashMap<>();
-
+  void apply(Holdings holdings) {
     // calculate current total price
     double total = 0;
     double percentage = 0;
-    for (var key : proportions.keySet()) {
-      percentage += proportions.get(key);
-      total += res.get(key) * prices.get(key);
+    for (int i = 0; i < symbols.length; i++) {
+      if (!holdings.holds(symbols[i]) || Double.isNaN(symbolPrices[i])) {
+        throw new RuntimeException("The stocks to rebalance must all be held and have a price.");
+      }
+      percentage += symbolProportions[i];
+      total += holdings.getShares(symbols[i]) * symbolPrices[i];
     }
 
-    if (!proportions.isEmpty() && Math.abs(1.0 - percentage) > epsilon) {
+    if (symbols.length > 0 && Math.abs(1.0 - percentage) > epsilon) {
       throw new RuntimeException("The proportions map does not add up to 100% (1.00)!");
     }
 
-    // calculate the expected value for each stock
-    for (var key : proportions.keySet()) {
-      double val = proportions.get(key) * total;
-      expected.put(key, val);
-    }
-
     // calculate new shares based on the expected value / price
-    for (var key : expected.keySet()) {
-      res.put(key, expected.get(key) / prices.get(key));
+    for (int i = 0; i < symbols.length; i++) {
+      holdings.set(symbols[i], symbolProportions[i] * total / symbolPrices[i]);
     }
+  }
 
-    return res;
+  /**
+   * Gets the tickers of the stocks that are rebalanced.
+   *
+   * @return the stock tickers in the proportions map
+   */
+  @Override
+  Set<String> getTickers() {
+    return proportions.keySet();
   }
 
   /**
@@ -2,7 +2,9 @@ package stock.model.portfolio;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.Map;
+import java.util.Set;
+
+import stock.model.SymbolTable;
 
 /**
  * Represents a sell transaction of a specific stock within a portfolio. If the shares of a stock
@@ -12,6 +14,7 @@ import java.util.Map;
 public class SellTransaction extends Transaction {
   private final double shares;
   private final String ticker;
+  private final int symbol;
   private static final double epsilon = 0.01;
 
   /**
@@ -29,6 +32,7 @@ public class SellTransaction extends Transaction {
     }
     this.shares = shares;
     this.ticker = ticker;
+    this.symbol = SymbolTable.shared().intern(ticker);
   }
 
   /**
@@ -43,34 +47,44 @@ public class SellTransaction extends Transaction {
     var split = data.split(",");
     this.shares = Double.parseDouble(split[1]);
     this.ticker = split[2];
+    this.symbol = SymbolTable.shared().intern(ticker);
   }
 
   /**
-   * Applies the sell transaction to the provided map of tickers to shares, updating the number
-   * of shares accordingly. If the number of shares of a stock falls below epsilon, the stock
-   * will be removed from the portfolio.
+   * Applies the sell transaction to the holdings, updating the number of shares accordingly. If
+   * the number of shares of a stock falls below epsilon, the stock will be removed from the
+   * portfolio.
    *
-   * @param res the map of tickers to shares
-   * @return the updated map after applying the sell transaction
+   * @param holdings the shares of each stock, indexed by symbol id
    * @throws RuntimeException if the stock does not exist in the portfolio or if there are not
    *                          enough shares to sell
    */
   @Override
-  Map<String, Double> apply(Map<String, Double> res) {
-    if (!res.containsKey(ticker)) {
+  void apply(Holdings holdings) {
+    if (!holdings.holds(symbol)) {
       throw new RuntimeException("The ticker does not exist in the portfolio at the time of this "
               + "transaction.");
     }
-    if (res.get(ticker) < shares) {
+    if (holdings.getShares(symbol) < shares) {
       throw new RuntimeException("There are enough shares of this stock at this time to sell.");
     }
 
-    res.put(ticker, res.get(ticker) - shares);
-    if (res.get(ticker) < epsilon) {
-      res.remove(ticker);
+    double left = holdings.getShares(symbol) - shares;
+    if (left < epsilon) {
+      holdings.remove(symbol);
+    } else {
+      holdings.set(symbol, left);
     }
+  }
 
-    return res;
+  /**
+   * Gets the ticker of the stock that is sold.
+   *
+   * @return a set holding the stock ticker
+   */
+  @Override
+  Set<String> getTickers() {
+    return Set.of(ticker);
   }
 
   /**
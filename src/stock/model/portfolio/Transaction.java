@@ -3,6 +3,7 @@ package stock.model.portfolio;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a transaction (on a specific date) on a portfolio, IE: buying, selling rebalancing,
@@ -46,13 +47,33 @@ public abstract class Transaction {
     return date;
   }
 
+  /**
+   * Applies the transaction to a portfolio's holdings, changing them in place.
+   *
+   * @param holdings the shares of each stock, indexed by symbol id
+   */
+  abstract void apply(Holdings holdings);
+
   /**
    * Applies the transaction to the provided map of tickers to shares and returns the updated map.
    *
    * @param res the map of tickers to shares
    * @return the updated map after applying the transaction
    */
-  abstract Map<String, Double> apply(Map<String, Double> res);
+  final Map<String, Double> apply(Map<String, Double> res) {
+    Holdings holdings = Holdings.fromMap(res);
+    apply(holdings);
+    res.clear();
+    res.putAll(holdings.toMap());
+    return res;
+  }
+
+  /**
+   * Gets the tickers of every stock the transaction involves.
+   *
+   * @return the tickers involved in the transaction
+   */
+  abstract Set<String> getTickers();
 
   /**
    * Saves the transaction as a single-line string.
@@ -29,7 +29,8 @@ public class BasicMenuOptions {
     return List.of("Get the gain/loss of stock over period of time",
             "Get x-day moving average of a stock",
             "Get x-day crossovers for a stock",
-            "Manage portfolios");
+            "Manage portfolios",
+            "Screen all stocks for crossovers or gains");
   }
 
   /**
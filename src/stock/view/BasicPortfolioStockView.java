@@ -140,6 +140,17 @@ public class BasicPortfolioStockView extends AbstractBasicStockView implements P
     stockViewHelper.printStockAverage(ticker, endDate, days, average);
   }
 
+  /**
+   * Display the stocks that passed a screen, with their scores.
+   *
+   * @param description what the stocks were screened for.
+   * @param results     the ticker of each stock that passed and its score, best first.
+   */
+  @Override
+  public void printScreenResults(String description, Map<String, Double> results) {
+    stockViewHelper.printScreenResults(description, results);
+  }
+
   /**
    * Display the list of commands that the user can ask for.
    *
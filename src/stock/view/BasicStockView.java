@@ -122,6 +122,29 @@ public class BasicStockView extends AbstractBasicStockView implements StockView
             ticker, endDate, days, average));
   }
 
+  /**
+   * Displays the stocks that passed a screen, ranked from best to worst.
+   *
+   * @param description What the stocks were screened for.
+   * @param results The ticker of each stock that passed and its score, best first.
+   */
+  @Override
+  public void printScreenResults(String description, Map<String, Double> results) {
+    println(String.format("Here are the stocks that %s:\n", description));
+    if (results.isEmpty()) {
+      println("No stocks passed the screen.");
+    } else {
+      var list = new ArrayList<String>();
+      list.add(String.format("%-6s %-30s %s", "Rank", "Stock", "Score"));
+      int rank = 1;
+      for (Map.Entry<String, Double> entry : results.entrySet()) {
+        list.add(String.format("%-6d %-30s %.2f", rank++, entry.getKey(), entry.getValue()));
+      }
+      printList(list);
+    }
+    println("");
+  }
+
   /**
    * Prints a generic message to the output.
    *
@@ -74,5 +74,13 @@ public interface StockView {
    */
   void printStockAverage(String ticker, LocalDate endDate, int days, double average);
 
+  /**
+   * Display the stocks that passed a screen, with their scores.
+   *
+   * @param description what the stocks were screened for.
+   * @param results     the ticker of each stock that passed and its score, best first.
+   */
+  void printScreenResults(String description, Map<String, Double> results);
+
 
 }
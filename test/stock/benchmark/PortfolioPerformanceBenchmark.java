@@ -0,0 +1,127 @@
+package stock.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import stock.model.DataSource;
+import stock.model.PortfolioStockModel;
+import stock.model.PortfolioStockModelImpl;
+import stock.model.PriceSeries;
+import stock.model.PriceStore;
+
+/**
+ * Measures how much faster a long portfolio performance series is worked out as more cores are
+ * used. A portfolio of simulated stocks, each with decades of random daily prices, is built up
+ * over the range, and its performance over the whole range is timed on fork-join pools of 1, 2,
+ * 4, ... threads up to the number of processors. The 1-thread pool runs the same chunks one
+ * after another, so it is the baseline for the speedups.
+ *
+ * <p>Usage: {@code java stock.benchmark.PortfolioPerformanceBenchmark [tickers] [years] [runs]}
+ * </p>
+ */
+public class PortfolioPerformanceBenchmark {
+  private static final LocalDate START = LocalDate.of(1990, 1, 1);
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional number of stocks in the portfolio, years in the range, and timed runs
+   *             per pool size.
+   * @throws IOException if the temporary portfolio folder cannot be made.
+   */
+  public static void main(String[] args) throws IOException {
+    int tickers = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+    int years = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    LocalDate end = START.plusYears(years);
+
+    PriceStore store = new PriceStore();
+    Random random = new Random(23);
+    for (int t = 0; t < tickers; t++) {
+      PriceSeries.Builder prices = new PriceSeries.Builder();
+      double price = 10 + random.nextDouble() * 90;
+      for (LocalDate date = START; date.isBefore(end); date = date.plusDays(1)) {
+        if (date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY) {
+          price *= 1 + (random.nextDouble() - 0.5) * 0.04;
+          prices.add(date, price);
+        }
+      }
+      store.put("T" + t, prices.build());
+    }
+    DataSource dataSource = new StoreDataSource(store);
+    Path folder = Files.createTempDirectory("portfolioBenchmark");
+
+    System.out.printf("%d stocks, %d years of daily values%n", tickers, years);
+    double baseline = 0;
+    int processors = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; threads <= processors; threads = nextPoolSize(threads, processors)) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      PortfolioStockModel model = new PortfolioStockModelImpl(dataSource, folder.toString(),
+              pool);
+      model.createNewPortfolio("benchmark");
+      for (int t = 0; t < tickers; t++) {
+        // buy into each stock at a different point in the range
+        LocalDate bought = START.plusDays((long) t * (end.toEpochDay() - START.toEpochDay())
+                / tickers);
+        model.addStockToPortfolio("benchmark", "T" + t, 10 + t % 7, bought);
+      }
+
+      // the first run warms up the JIT and the portfolio's checkpoints
+      model.getPortfolioPerformance("benchmark", START, end);
+      long best = Long.MAX_VALUE;
+      for (int run = 0; run < runs; run++) {
+        long started = System.nanoTime();
+        model.getPortfolioPerformance("benchmark", START, end);
+        best = Math.min(best, System.nanoTime() - started);
+      }
+      pool.shutdown();
+
+      double millis = best / 1e6;
+      if (threads == 1) {
+        baseline = millis;
+      }
+      System.out.printf("%3d threads: %9.1f ms  speedup %5.2fx%n", threads, millis,
+              baseline / millis);
+    }
+    Files.delete(folder);
+  }
+
+  // Doubles the pool size, finishing on exactly the number of processors
+  private static int nextPoolSize(int threads, int processors) {
+    return threads < processors && threads * 2 > processors ? processors : threads * 2;
+  }
+
+  // A data source over prices that are already in memory
+  private static final class StoreDataSource implements DataSource {
+    private final PriceStore store;
+
+    private StoreDataSource(PriceStore store) {
+      this.store = store;
+    }
+
+    @Override
+    public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end)
+            throws IOException {
+      if (!store.contains(ticker)) {
+        throw new IOException("There is no such ticker");
+      }
+      return store.get(ticker).slice(start, end);
+    }
+
+    @Override
+    public boolean stockInDataSource(String ticker) {
+      return store.contains(ticker);
+    }
+
+    @Override
+    public Set<String> getLoadedTickers() {
+      return store.tickers();
+    }
+  }
+}
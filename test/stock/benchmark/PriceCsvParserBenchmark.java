@@ -0,0 +1,108 @@
+package stock.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import stock.model.PriceCsvParser;
+import stock.model.PriceSeries;
+
+/**
+ * Measures CSV parsing throughput in rows per second for {@link PriceCsvParser} and for the
+ * line-based reader it replaced (BufferedReader, String.split, LocalDate.parse and
+ * Double.parseDouble on every row). Both parse the same bytes from memory, so disk speed does not
+ * affect the result.
+ *
+ * <p>Usage: {@code java stock.benchmark.PriceCsvParserBenchmark [csv] [seconds]}</p>
+ */
+public class PriceCsvParserBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional path to the CSV file and number of seconds to run each parser for.
+   * @throws IOException if the CSV file cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path csv = Paths.get(args.length > 0 ? args[0] : "test/stock/res/AAPL.csv");
+    double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+
+    // the old reader cannot handle blank prices, so give both parsers a file without them
+    StringBuilder cleaned = new StringBuilder();
+    for (String line : Files.readAllLines(csv)) {
+      if (!line.contains(",,")) {
+        cleaned.append(line).append('\n');
+      }
+    }
+    byte[] bytes = cleaned.toString().getBytes();
+    int rows = PriceCsvParser.parse(ByteBuffer.wrap(bytes)).size();
+
+    double lineRate = measure(seconds, rows, () -> parseLines(bytes));
+    double byteRate = measure(seconds, rows, () -> PriceCsvParser.parse(ByteBuffer.wrap(bytes)));
+
+    System.out.printf("%-30s %,14.0f rows/s%n", "BufferedReader + split", lineRate);
+    System.out.printf("%-30s %,14.0f rows/s%n", "PriceCsvParser", byteRate);
+    System.out.printf("Speedup: %.1fx%n", byteRate / lineRate);
+  }
+
+  private static double measure(double seconds, int rows, Parser parser) throws IOException {
+    // warm up the JIT before timing
+    long warmupEnd = System.nanoTime() + (long) (seconds * 0.3e9);
+    while (System.nanoTime() < warmupEnd) {
+      parser.parse();
+    }
+
+    long runs = 0;
+    long start = System.nanoTime();
+    long end = start + (long) (seconds * 1e9);
+    long checksum = 0;
+    while (System.nanoTime() < end) {
+      checksum += parser.parse().size();
+      runs++;
+    }
+    long elapsed = System.nanoTime() - start;
+    if (checksum != runs * rows) {
+      throw new IllegalStateException("Parsers disagree on the number of rows");
+    }
+    return runs * rows / (elapsed / 1e9);
+  }
+
+  // The loop CSVDataSource used before PriceCsvParser
+  private static PriceSeries parseLines(byte[] bytes) throws IOException {
+    PriceSeries.Builder prices = new PriceSeries.Builder();
+    try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new ByteArrayInputStream(bytes)))) {
+      String line = reader.readLine();
+      int timeIndex = -1;
+      int closeIndex = -1;
+      String[] headers = line.split(",");
+      for (int i = 0; i < headers.length; i++) {
+        if (headers[i].trim().equalsIgnoreCase("timestamp")) {
+          timeIndex = i;
+        }
+        if (headers[i].trim().equalsIgnoreCase("adjusted_close")) {
+          closeIndex = i;
+        }
+      }
+
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split(",");
+        LocalDate date = LocalDate.parse(parts[timeIndex], DateTimeFormatter.ISO_LOCAL_DATE);
+        double closePrice = Double.parseDouble(parts[closeIndex]);
+        prices.add(date, closePrice);
+      }
+    }
+    return prices.build();
+  }
+
+  private interface Parser {
+    PriceSeries parse() throws IOException;
+  }
+}
@@ -0,0 +1,106 @@
+package stock.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import stock.model.PriceSeries;
+import stock.model.PriceStore;
+
+/**
+ * Compares the heap footprint of the old nested-map layout for stock prices
+ * ({@code Map<String, Map<LocalDate, Double>>}) with the {@link PriceStore} layout. Every
+ * simulated ticker gets its own copy of the rows in test/stock/res/AAPL.csv, parsed the same way
+ * the data source parses them, and the measured footprint is scaled up to a 5,000 ticker universe.
+ *
+ * <p>Usage: {@code java stock.benchmark.PriceStoreFootprintBenchmark [csv] [tickers]}</p>
+ */
+public class PriceStoreFootprintBenchmark {
+  private static final int UNIVERSE = 5000;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optional path to the CSV file and number of tickers to measure.
+   * @throws IOException if the CSV file cannot be read.
+   */
+  public static void main(String[] args) throws IOException {
+    Path csv = Paths.get(args.length > 0 ? args[0] : "test/stock/res/AAPL.csv");
+    int tickers = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    List<String> lines = Files.readAllLines(csv);
+    String[] header = lines.get(0).split(",");
+    int timeIndex = indexOf(header, "timestamp");
+    int closeIndex = indexOf(header, "adjusted_close");
+    // the sample file has a row with a blank close, which neither layout can store
+    List<String> rows = lines.subList(1, lines.size()).stream()
+            .filter(row -> !row.split(",")[closeIndex].isEmpty())
+            .collect(Collectors.toList());
+
+    long baseline = usedHeap();
+    Map<String, Map<LocalDate, Double>> legacy = new HashMap<>();
+    for (int t = 0; t < tickers; t++) {
+      Map<LocalDate, Double> prices = new HashMap<>();
+      for (String row : rows) {
+        String[] parts = row.split(",");
+        prices.put(LocalDate.parse(parts[timeIndex]), Double.parseDouble(parts[closeIndex]));
+      }
+      legacy.put("T" + t, prices);
+    }
+    long legacyBytes = usedHeap() - baseline;
+    // touch the map after measuring so it cannot be collected before the measurement
+    if (legacy.size() != tickers) {
+      throw new IllegalStateException("Map lost tickers");
+    }
+    report("Map<String, Map<LocalDate, Double>>", legacyBytes, tickers, rows.size());
+    legacy = null;
+
+    baseline = usedHeap();
+    PriceStore store = new PriceStore();
+    for (int t = 0; t < tickers; t++) {
+      PriceSeries.Builder prices = new PriceSeries.Builder();
+      for (String row : rows) {
+        String[] parts = row.split(",");
+        prices.add(LocalDate.parse(parts[timeIndex]), Double.parseDouble(parts[closeIndex]));
+      }
+      store.put("T" + t, prices.build());
+    }
+    long storeBytes = usedHeap() - baseline;
+    report("PriceStore", storeBytes, tickers, rows.size());
+
+    System.out.printf("Reduction: %.1fx%n", (double) legacyBytes / storeBytes);
+    if (store.tickers().size() != tickers) {
+      throw new IllegalStateException("Store lost tickers");
+    }
+  }
+
+  private static int indexOf(String[] header, String column) {
+    for (int i = 0; i < header.length; i++) {
+      if (header[i].trim().equalsIgnoreCase(column)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Missing column " + column);
+  }
+
+  private static void report(String layout, long bytes, int tickers, int rows) {
+    double perPoint = (double) bytes / ((long) tickers * rows);
+    System.out.printf("%-40s %,8.1f MB for %d tickers, %6.1f bytes/point, ~%,.0f MB at %,d "
+                    + "tickers%n", layout, bytes / 1e6, tickers, perPoint,
+            bytes / 1e6 * UNIVERSE / tickers, UNIVERSE);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -49,7 +49,8 @@ public class BasicPortfolioStockControllerIntegrationTest {
                   + "1. Get the gain/loss of stock over period of time\n"
                   + "2. Get x-day moving average of a stock\n"
                   + "3. Get x-day crossovers for a stock\n"
-                  + "4. Manage portfolios";
+                  + "4. Manage portfolios\n"
+                  + "5. Screen all stocks for crossovers or gains";
   String managePortfoliosMenu =
           "Please type the number that corresponds with the choice you would like to pick, or "
                   + "type 0 to return/exit\n"
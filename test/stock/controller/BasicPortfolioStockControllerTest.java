@@ -143,6 +143,11 @@ public class BasicPortfolioStockControllerTest extends BasicStockControllerTest
     public void printStockAverage(String ticker, LocalDate endDate, int days, double average) {
       mockViewHelper.printStockAverage(ticker, endDate, days, average);
     }
+
+    @Override
+    public void printScreenResults(String description, Map<String, Double> results) {
+      mockViewHelper.printScreenResults(description, results);
+    }
   }
 
   private boolean runTest(boolean throwException, Interaction... interactions) {
@@ -1426,7 +1431,6 @@ public class BasicPortfolioStockControllerTest extends BasicStockControllerTest
             prints("printPortfolioPerformance2023-12-232024-05-125.025.02024-01-062024-01-"
                     + "052024-01-042024-01-032024-01-022024-01-0120.015.015.010.0"),
             modelLog("getPortfolioPerformanceS&P5002023-12-232024-05-12"),
-            modelLog("getPortfolioPerformanceS&P5002023-12-232024-05-12"),
             prints("printMessage"), prints("printOptionsPrompt"),
             prints("printMenu"), inputs("0"),
 
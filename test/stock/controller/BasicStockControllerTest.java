@@ -10,8 +10,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import stock.model.CrossoverEngine;
+import stock.model.Indicator;
+import stock.model.IndicatorSeries;
+import stock.model.IndicatorTracker;
 import stock.model.PortfolioStockModel;
+import stock.model.PriceSeries;
+import stock.model.StockScreener;
 import stock.model.StockModel;
 import stock.view.BasicMenuOptions;
 import stock.view.PortfolioStockView;
@@ -51,6 +59,16 @@ public class BasicStockControllerTest {
       return 100;
     }
 
+    @Override
+    public double[] getDailyReturns(LocalDate startDate, LocalDate endDate, String ticker) {
+      return new double[] {0.01, -0.02};
+    }
+
+    @Override
+    public double[] getDailyLogReturns(LocalDate startDate, LocalDate endDate, String ticker) {
+      return new double[] {0.01, -0.02};
+    }
+
     // Dummy data 200
     @Override
     public double getMovingDayAverage(LocalDate endDate, int days, String ticker) throws
@@ -62,6 +80,12 @@ public class BasicStockControllerTest {
       return 200;
     }
 
+    @Override
+    public PriceSeries getMovingAverageSeries(LocalDate startDate, LocalDate endDate, int days,
+                                              String ticker) {
+      return new PriceSeries.Builder().add(endDate, 200).build();
+    }
+
     // Dummy data dates
     @Override
     public List<LocalDate> getCrossover(LocalDate endDate, int days, String ticker) throws
@@ -74,6 +98,32 @@ public class BasicStockControllerTest {
       return List.of(LocalDate.of(1, 1, 1), LocalDate.of(2, 2, 2));
     }
 
+    @Override
+    public List<CrossoverEngine.Crossover> getCrossovers(LocalDate startDate,
+            LocalDate endDate, String ticker, int... windows) {
+      return List.of();
+    }
+
+    @Override
+    public IndicatorSeries getIndicatorSeries(LocalDate startDate, LocalDate endDate,
+            String ticker, String name, Supplier<Indicator> indicator) {
+      return new IndicatorTracker(indicator.get())
+              .update(new PriceSeries.Builder().add(endDate, 200).build())
+              .getSeries(startDate, endDate);
+    }
+
+    @Override
+    public List<StockScreener.Result> screenStocks(StockScreener.Screen screen, int limit)
+            throws IOException {
+      if (throwIOException) {
+        log.append("screenStocksIOException\n");
+        throw new IOException("screenIOExceptionMessage");
+      }
+      log.append("screenStocks").append(limit).append("\n");
+      return List.of(new StockScreener.Result("AAPL", 12.5),
+              new StockScreener.Result("MSFT", 3.0));
+    }
+
     @Override
     public void createNewPortfolio(String name) {
       log.append("createNewPortfolio").append(name).append("\n");
@@ -102,6 +152,11 @@ public class BasicStockControllerTest {
       return Map.of("AAPL", 5.5, "AMZN", 10.5, "NFLX", 15.5);
     }
 
+    @Override
+    public Set<String> getPortfolioTickers(String name) throws IllegalArgumentException {
+      return Set.of("AAPL", "AMZN", "NFLX");
+    }
+
     @Override
     public void addStockToPortfolio(String name, String ticker, int shares, LocalDate date)
             throws IOException, IllegalArgumentException {
@@ -190,6 +245,11 @@ public class BasicStockControllerTest {
       return List.of("S&P500", "NASDAQ");
     }
 
+    @Override
+    public boolean portfolioExists(String name) {
+      return getPortfolios().contains(name);
+    }
+
     // Dummy data 400
     @Override
     public double getPortfolioValue(String name, LocalDate date) throws IOException {
@@ -257,6 +317,11 @@ public class BasicStockControllerTest {
       log.append("\n");
     }
 
+    @Override
+    public void printScreenResults(String description, Map<String, Double> results) {
+      log.append("printScreenResults").append(description).append(results).append("\n");
+    }
+
     @Override
     public void printXDayCrossovers(String ticker, LocalDate date, int days,
                                     List<LocalDate> dates) {
@@ -922,6 +987,63 @@ public class BasicStockControllerTest {
 
   }
 
+  @Test
+  public void screenForGainWorks() {
+    assertTrue(runTest(false, prints("printMainMenu"), inputs("5"),
+            prints("printMessagePlease enter the number of what you would like to screen the "
+                    + "stocks for:"),
+            prints("printMessage1. Crossed above their x-day moving average in the last few days"),
+            prints("printMessage2. Gained more than a percentage over a period of time"),
+            inputs("2"),
+
+            prints("printMessagePlease enter the starting date (inclusive)!"),
+            prints(yearPrompt), inputs("2020"),
+            prints(monthPrompt), inputs("1"),
+            prints(dayPrompt), inputs("2"),
+
+            prints("printMessagePlease enter the ending date (inclusive)!"),
+            prints(yearPrompt), inputs("2021"),
+            prints(monthPrompt), inputs("1"),
+            prints(dayPrompt), inputs("2"),
+
+            prints("printMessagePlease enter the percentage the gain has to be over."),
+            inputs("abc"),
+            prints("printMessageInvalid input: not a number, please try again."),
+            inputs("-2.5"),
+
+            prints("printMessagePlease enter the most stocks to show."), inputs("10"),
+            modelLog("screenStocks10"),
+            prints("printScreenResultsgained more than -2.50% from 2020-01-02 to 2021-01-02"
+                    + "{AAPL=12.5, MSFT=3.0}"),
+            prints("printMainMenu"), inputs("0")));
+  }
+
+  @Test
+  public void screenForCrossoverHandlesIOException() {
+    assertTrue(runTest(true, prints("printMainMenu"), inputs("5"),
+            prints("printMessagePlease enter the number of what you would like to screen the "
+                    + "stocks for:"),
+            prints("printMessage1. Crossed above their x-day moving average in the last few days"),
+            prints("printMessage2. Gained more than a percentage over a period of time"),
+            inputs("1"),
+
+            prints("printMessagePlease enter the number of days in the moving average."),
+            inputs("200"),
+
+            prints("printMessagePlease enter the ending date!"),
+            prints(yearPrompt), inputs("2021"),
+            prints(monthPrompt), inputs("1"),
+            prints(dayPrompt), inputs("4"),
+
+            prints("printMessagePlease enter how many days before the ending date to look for a "
+                    + "crossover."), inputs("5"),
+
+            prints("printMessagePlease enter the most stocks to show."), inputs("3"),
+            modelLog("screenStocksIOException"),
+            prints("printMessageError while fetching data: screenIOExceptionMessage"),
+            prints("printMainMenu"), inputs("0")));
+  }
+
   @Test
   public void controllerHandlesCrossoverIOException() {
     assertTrue(runTest(true, prints("printMainMenu"), inputs("3"),
@@ -1622,7 +1744,6 @@ public class BasicStockControllerTest {
             prints("printPortfolioPerformance2023-12-232024-05-125.025.02024-01-062024-01-"
                     + "052024-01-042024-01-032024-01-022024-01-0120.015.015.010.0"),
             modelLog("getPortfolioPerformanceS&P5002023-12-232024-05-12"),
-            modelLog("getPortfolioPerformanceS&P5002023-12-232024-05-12"),
             prints("printMessage"), prints("printOptionsPrompt"),
             prints("printMenu"), inputs("0"),
 
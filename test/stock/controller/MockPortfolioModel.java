@@ -4,8 +4,16 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import stock.model.CrossoverEngine;
+import stock.model.Indicator;
+import stock.model.IndicatorSeries;
+import stock.model.IndicatorTracker;
 import stock.model.PortfolioStockModel;
+import stock.model.PriceSeries;
+import stock.model.StockScreener;
 
 /**
  * A class that mocks StockPortfolioModel. It has hardedcoded data such as the valid stocks it
@@ -39,6 +47,11 @@ final class MockPortfolioModel implements PortfolioStockModel {
     return Map.of("AAPL", 5.5, "AMZN", 10.5, "NFLX", 15.5);
   }
 
+  @Override
+  public Set<String> getPortfolioTickers(String name) throws IllegalArgumentException {
+    return Set.of("AAPL", "AMZN", "NFLX");
+  }
+
   @Override
   public void addStockToPortfolio(String name, String ticker, int shares, LocalDate date)
           throws IOException, IllegalArgumentException {
@@ -73,6 +86,15 @@ final class MockPortfolioModel implements PortfolioStockModel {
     return 100;
   }
 
+  @Override
+  public double[] getDailyReturns(LocalDate startDate, LocalDate endDate, String ticker) {
+    return new double[] {0.01, -0.02};
+  }
+
+  @Override
+  public double[] getDailyLogReturns(LocalDate startDate, LocalDate endDate, String ticker) {
+    return new double[] {0.01, -0.02};
+  }
 
   @Override
   public double getMovingDayAverage(LocalDate endDate, int days, String ticker)
@@ -84,6 +106,12 @@ final class MockPortfolioModel implements PortfolioStockModel {
     return 200;
   }
 
+  @Override
+  public PriceSeries getMovingAverageSeries(LocalDate startDate, LocalDate endDate, int days,
+                                            String ticker) {
+    return new PriceSeries.Builder().add(endDate, 200).build();
+  }
+
   @Override
   public List<LocalDate> getCrossover(LocalDate endDate, int days, String ticker)
           throws IOException {
@@ -96,6 +124,33 @@ final class MockPortfolioModel implements PortfolioStockModel {
             LocalDate.of(2, 2, 2));
   }
 
+  @Override
+  public List<CrossoverEngine.Crossover> getCrossovers(LocalDate startDate,
+          LocalDate endDate, String ticker, int... windows) {
+    return List.of();
+  }
+
+  @Override
+  public IndicatorSeries getIndicatorSeries(LocalDate startDate, LocalDate endDate,
+                                            String ticker, String name,
+                                            Supplier<Indicator> indicator) {
+    return new IndicatorTracker(indicator.get())
+            .update(new PriceSeries.Builder().add(endDate, 200).build())
+            .getSeries(startDate, endDate);
+  }
+
+  @Override
+  public List<StockScreener.Result> screenStocks(StockScreener.Screen screen, int limit)
+          throws IOException {
+    if (throwIOException) {
+      log.append("screenStocksIOException\n");
+      throw new IOException("screenIOExceptionMessage");
+    }
+    log.append("screenStocks").append(limit).append("\n");
+    return List.of(new StockScreener.Result("AAPL", 12.5),
+            new StockScreener.Result("MSFT", 3.0));
+  }
+
   @Override
   public void createNewPortfolio(String name) {
     mockModelHelper.createNewPortfolio(name);
@@ -118,6 +173,11 @@ final class MockPortfolioModel implements PortfolioStockModel {
     return List.of("S&P500", "NASDAQ");
   }
 
+  @Override
+  public boolean portfolioExists(String name) {
+    return getPortfolios().contains(name);
+  }
+
   @Override
   public double getPortfolioValue(String name, LocalDate date)
           throws IOException, IllegalArgumentException {
@@ -10,9 +10,22 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLStreamHandlerFactory;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -117,4 +130,140 @@ public class AlphaVantageDataSourceTest {
   public void createStockDataURLMock() throws MalformedURLException {
     dataSource.createStockDataURLMock("AAPL");
   }
+
+  private static PriceSeries series(String... rows) {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (String row : rows) {
+      String[] parts = row.split(",");
+      builder.add(LocalDate.parse(parts[0]), Double.parseDouble(parts[1]));
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testMergeRecent() {
+    PriceSeries cached = series("2024-01-02,10", "2024-01-03,11", "2024-01-04,12");
+    PriceSeries recent = series("2024-01-03,11", "2024-01-04,12", "2024-01-05,13",
+            "2024-01-08,14");
+
+    PriceSeries merged = AlphaVantageDataSource.mergeRecent(cached, recent);
+    assertEquals(5, merged.size());
+    assertEquals(10, merged.getClose(LocalDate.of(2024, 1, 2)), 0.0);
+    assertEquals(13, merged.getClose(LocalDate.of(2024, 1, 5)), 0.0);
+    assertEquals(LocalDate.of(2024, 1, 8), merged.dateAt(4));
+  }
+
+  @Test
+  public void testMergeRecentNothingNew() {
+    PriceSeries cached = series("2024-01-02,10", "2024-01-03,11");
+    PriceSeries merged = AlphaVantageDataSource.mergeRecent(cached, series("2024-01-03,11"));
+    assertEquals(2, merged.size());
+  }
+
+  @Test
+  public void testMergeRecentGapTooLarge() {
+    PriceSeries cached = series("2024-01-02,10", "2024-01-03,11");
+    assertNull(AlphaVantageDataSource.mergeRecent(cached, series("2024-01-05,13")));
+    assertNull(AlphaVantageDataSource.mergeRecent(cached, series()));
+  }
+
+  @Test
+  public void testMergeRecentHistoryReadjusted() {
+    // a split halves every adjusted close, so the cached prices are no longer valid
+    PriceSeries cached = series("2024-01-02,10", "2024-01-03,11");
+    assertNull(AlphaVantageDataSource.mergeRecent(cached,
+            series("2024-01-03,5.5", "2024-01-04,6")));
+  }
+
+  @Test
+  public void testPrependRows() throws IOException {
+    Path file = Files.createTempFile("testPrependRows", ".csv");
+    try {
+      Files.write(file, List.of("timestamp,open,adjusted_close",
+              "2024-01-03,1,11", "2024-01-02,1,10"));
+      byte[] response = ("timestamp,open,adjusted_close\r\n2024-01-05,2,13\r\n"
+              + "2024-01-04,2,12\r\n2024-01-03,1,11\r\n").getBytes();
+
+      assertTrue(AlphaVantageDataSource.prependRows(file, response, LocalDate.of(2024, 1, 3)));
+      assertEquals(List.of("timestamp,open,adjusted_close", "2024-01-05,2,13",
+              "2024-01-04,2,12", "2024-01-03,1,11", "2024-01-02,1,10"),
+              Files.readAllLines(file));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testPrependRowsDifferentColumns() throws IOException {
+    Path file = Files.createTempFile("testPrependRows", ".csv");
+    try {
+      Files.write(file, List.of("timestamp,adjusted_close", "2024-01-02,10"));
+      byte[] response = "timestamp,open,adjusted_close\n2024-01-03,1,11\n".getBytes();
+
+      assertFalse(AlphaVantageDataSource.prependRows(file, response, LocalDate.of(2024, 1, 2)));
+      assertEquals(List.of("timestamp,adjusted_close", "2024-01-02,10"),
+              Files.readAllLines(file));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testConcurrentLookupsDownloadOnce() throws Exception {
+    Path folder = Files.createTempDirectory("testConcurrentLookups");
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    try {
+      CountingDataSource counting = new CountingDataSource();
+      counting.folderName = folder.toString();
+
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Double>> prices = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        prices.add(threads.submit(() -> {
+          start.await();
+          return counting.getClosingPrice(LocalDate.of(2021, 1, 4), "AAPL");
+        }));
+      }
+      start.countDown();
+
+      for (Future<Double> price : prices) {
+        assertEquals(129.41, price.get(10, TimeUnit.SECONDS), 0.001);
+      }
+      assertEquals(1, counting.inits.get());
+      assertEquals(1, counting.downloads.get());
+      assertTrue(Files.exists(folder.resolve("AAPL.csv")));
+    } finally {
+      threads.shutdownNow();
+      Files.walk(folder)
+              .sorted(Comparator.reverseOrder())
+              .map(Path::toFile)
+              .forEach(File::delete);
+    }
+  }
+
+  // Counts initializations and downloads, and makes each download slow enough for every thread
+  // to ask for the stock while it is running
+  private static final class CountingDataSource extends AlphaVantageDataSource {
+    private final AtomicInteger inits = new AtomicInteger();
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @Override
+    protected void init() throws IOException {
+      inits.incrementAndGet();
+      super.init();
+    }
+
+    @Override
+    protected PriceSeries downloadStockData(File folder, String ticker) throws IOException {
+      downloads.incrementAndGet();
+      try {
+        Thread.sleep(200);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      Files.write(new File(folder, ticker + ".csv").toPath(),
+              List.of("timestamp,adjusted_close", "2021-01-04,129.41"));
+      return series("2021-01-04,129.41");
+    }
+  }
 }
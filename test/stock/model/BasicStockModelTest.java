@@ -10,8 +10,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -52,6 +57,57 @@ public class BasicStockModelTest {
     assertEquals(10.0, gain, 0.001);
   }
 
+  @Test
+  public void testOutsideHistoryNeedsNoPrices() throws IOException {
+    PriceSeries history = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 5, 6), 150)
+            .add(LocalDate.of(2024, 5, 9), 160)
+            .build();
+    // only the summary of the history is given, so any price lookup fails the test
+    DataSource summaryOnly = new DataSource() {
+      @Override
+      public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end) {
+        throw new AssertionError("Prices were looked up for " + start + " to " + end);
+      }
+
+      @Override
+      public TickerMetadata getTickerMetadata(String ticker) {
+        return TickerMetadata.of(history, TickerMetadata.DEFAULT_GAP_DAYS);
+      }
+
+      @Override
+      public boolean stockInDataSource(String ticker) {
+        return true;
+      }
+
+      @Override
+      public Set<String> getLoadedTickers() {
+        return Set.of("GOOG");
+      }
+    };
+    StockModel strict = new BasicStockModel(summaryOnly);
+
+    assertEquals(0, strict.getGainOverTime(LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 5, 5), "GOOG"), 0.001);
+    assertEquals(0, strict.getGainOverTime(LocalDate.of(2024, 5, 10),
+            LocalDate.of(2024, 6, 1), "GOOG"), 0.001);
+    assertEquals(0, strict.getMovingDayAverage(LocalDate.of(2024, 5, 5), 30, "GOOG"), 0.001);
+    assertTrue(strict.getCrossover(LocalDate.of(2024, 5, 5), 30, "GOOG").isEmpty());
+  }
+
+  @Test
+  public void testGainClampedToHistory() throws IOException {
+    mockDataSource.setStockExistsAtDate(LocalDate.of(2024, 5, 6));
+    mockDataSource.setStockExistsAtDate(LocalDate.of(2024, 5, 9));
+    mockDataSource.setClosingPrice(LocalDate.of(2024, 5, 6), 150.0);
+    mockDataSource.setClosingPrice(LocalDate.of(2024, 5, 9), 160.0);
+
+    assertEquals(10.0, model.getGainOverTime(LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 12, 31), "GOOG"), 0.001);
+    assertEquals(0, model.getGainOverTime(LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 5, 5), "GOOG"), 0.001);
+  }
+
   @Test(expected = IOException.class)
   public void testGetGainOverTimeFailedWIthNoTicker() throws IOException {
     LocalDate startDate = LocalDate.of(2024, 05, 04);
@@ -170,6 +226,50 @@ public class BasicStockModelTest {
     assertEquals(5, gain, 0.001);
   }
 
+  @Test
+  public void testGetDailyReturns() throws IOException {
+    LocalDate first = LocalDate.of(2024, 5, 6);
+    LocalDate second = LocalDate.of(2024, 5, 7);
+    LocalDate third = LocalDate.of(2024, 5, 9);
+
+    mockDataSource.setStockExistsAtDate(first);
+    mockDataSource.setStockExistsAtDate(second);
+    mockDataSource.setStockExistsAtDate(third);
+    mockDataSource.setClosingPrice(first, 100.0);
+    mockDataSource.setClosingPrice(second, 110.0);
+    mockDataSource.setClosingPrice(third, 99.0);
+
+    double[] returns = model.getDailyReturns(LocalDate.of(2024, 5, 1),
+            LocalDate.of(2024, 5, 31), "GOOG");
+    assertArrayEquals(new double[] {0.1, -0.1}, returns, 0.0001);
+
+    double[] logReturns = model.getDailyLogReturns(LocalDate.of(2024, 5, 1),
+            LocalDate.of(2024, 5, 31), "GOOG");
+    assertArrayEquals(new double[] {Math.log(1.1), Math.log(0.9)}, logReturns, 0.0001);
+    assertEquals(Math.log(99.0 / 100.0), logReturns[0] + logReturns[1], 0.0001);
+  }
+
+  @Test
+  public void testGetDailyReturnsOneTradingDay() throws IOException {
+    LocalDate date = LocalDate.of(2024, 5, 6);
+    mockDataSource.setStockExistsAtDate(date);
+    mockDataSource.setClosingPrice(date, 100.0);
+
+    assertEquals(0, model.getDailyReturns(date, date, "GOOG").length);
+    assertEquals(0, model.getDailyLogReturns(LocalDate.of(2024, 5, 10),
+            LocalDate.of(2024, 5, 11), "GOOG").length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetDailyReturnsStartAfterEnd() throws IOException {
+    model.getDailyReturns(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 5, 1), "GOOG");
+  }
+
+  @Test(expected = IOException.class)
+  public void testGetDailyReturnsNoTicker() throws IOException {
+    model.getDailyLogReturns(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 6, 1), "AAPL");
+  }
+
   @Test
   public void testGetMovingDayAverage() throws IOException {
     LocalDate endDate = LocalDate.of(2024, 5, 9);
@@ -234,6 +334,217 @@ public class BasicStockModelTest {
     assertEquals(0, average, 0.1);
   }
 
+  @Test
+  public void testGetMovingAverageSeries() throws IOException {
+    LocalDate date = LocalDate.of(2024, 5, 6);
+    for (int i = 0; i < 4; i++) {
+      mockDataSource.setStockExistsAtDate(date.plusDays(i));
+      mockDataSource.setClosingPrice(date.plusDays(i), 10.0 * (i + 1));
+    }
+
+    PriceSeries averages = model.getMovingAverageSeries(LocalDate.of(2024, 5, 7),
+            LocalDate.of(2024, 5, 10), 2, "A");
+    assertEquals(3, averages.size());
+    assertEquals(LocalDate.of(2024, 5, 7), averages.dateAt(0));
+    assertArrayEquals(new double[] {15.0, 25.0, 35.0}, averages.toCloseArray(), 0.001);
+    for (int i = 0; i < averages.size(); i++) {
+      assertEquals(model.getMovingDayAverage(averages.dateAt(i), 2, "A"),
+              averages.closeAt(i), 0.001);
+    }
+
+    // too few earlier prices are still divided by the number of days
+    PriceSeries first = model.getMovingAverageSeries(date, date, 3, "A");
+    assertEquals(1, first.size());
+    assertEquals(10.0 / 3, first.closeAt(0), 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetMovingAverageSeriesNoDays() throws IOException {
+    model.getMovingAverageSeries(LocalDate.of(2024, 5, 6), LocalDate.of(2024, 5, 9), 0, "A");
+  }
+
+  @Test
+  public void testGetIndicatorSeries() throws IOException {
+    LocalDate date = LocalDate.of(2024, 5, 6);
+    for (int i = 0; i < 4; i++) {
+      mockDataSource.setStockExistsAtDate(date.plusDays(i));
+      mockDataSource.setClosingPrice(date.plusDays(i), 10.0 * (i + 1));
+    }
+
+    // the first day of the range is worked out from the day before it
+    IndicatorSeries series = model.getIndicatorSeries(LocalDate.of(2024, 5, 7),
+            LocalDate.of(2024, 5, 10), "A", "EMA(2)", () -> new ExponentialMovingAverage(2));
+    assertEquals(3, series.size());
+    assertEquals(LocalDate.of(2024, 5, 7), series.dateAt(0));
+    assertArrayEquals(new double[] {15.0, 25.0, 35.0}, series.toArray(0), 0.001);
+
+    assertEquals(3, model.getIndicatorSeries(date, date, "A", "MACD", Macd::new).lines());
+    assertEquals(Double.NaN, model.getIndicatorSeries(date, date, "A", "MACD", Macd::new)
+            .valueAt(0, 0), 0.001);
+  }
+
+  @Test
+  public void testIndicatorIsExtendedInPlace() throws IOException {
+    LocalDate date = LocalDate.of(2024, 5, 6);
+    for (int i = 0; i < 4; i++) {
+      mockDataSource.setStockExistsAtDate(date.plusDays(i));
+      mockDataSource.setClosingPrice(date.plusDays(i), 10.0 * (i + 1));
+    }
+    int[] made = new int[1];
+    int[] fed = new int[1];
+    Supplier<Indicator> ema = () -> {
+      made[0]++;
+      return new CountingIndicator(new ExponentialMovingAverage(2), fed);
+    };
+
+    model.getIndicatorSeries(date, date.plusDays(2), "A", "EMA(2)", ema);
+    IndicatorSeries series = model.getIndicatorSeries(date, date.plusDays(3), "A", "EMA(2)", ema);
+    assertEquals(1, made[0]);
+    assertEquals(4, fed[0]);
+    assertEquals(35.0, series.valueAt(0, 3), 0.001);
+
+    // a revised close means the history has to be gone over again
+    mockDataSource.setClosingPrice(date.plusDays(3), 60.0);
+    series = model.getIndicatorSeries(date, date.plusDays(3), "A", "EMA(2)", ema);
+    assertEquals(2, made[0]);
+    assertEquals(8, fed[0]);
+    assertEquals(48.333, series.valueAt(0, 3), 0.001);
+  }
+
+  @Test
+  public void testIndicatorIsFoundByName() throws IOException {
+    LocalDate date = LocalDate.of(2024, 5, 6);
+    for (int i = 0; i < 4; i++) {
+      mockDataSource.setStockExistsAtDate(date.plusDays(i));
+      mockDataSource.setClosingPrice(date.plusDays(i), 10.0 * (i + 1));
+    }
+    int[] made = new int[1];
+    int[] fed = new int[1];
+    for (int days = 2; days <= 3; days++) {
+      int window = days;
+      // a new supplier every time, as a caller asking for settings it was given would make
+      for (int i = 0; i < 2; i++) {
+        model.getIndicatorSeries(date, date.plusDays(3), "A", "EMA(" + window + ")", () -> {
+          made[0]++;
+          return new CountingIndicator(new ExponentialMovingAverage(window), fed);
+        });
+      }
+    }
+    assertEquals(2, made[0]);
+    assertEquals(8, fed[0]);
+  }
+
+  @Test
+  public void testDownloadedDaysExtendIndicator() throws IOException {
+    PriceStore store = new PriceStore();
+    StockModel storeModel = new BasicStockModel(new StoreDataSource(store));
+    LocalDate date = LocalDate.of(2024, 5, 6);
+    PriceSeries prices = new PriceSeries.Builder()
+            .add(date, 10.0)
+            .add(date.plusDays(1), 20.0)
+            .add(date.plusDays(2), 30.0)
+            .build();
+    store.put("A", prices);
+    int[] made = new int[1];
+    int[] fed = new int[1];
+    Supplier<Indicator> ema = () -> {
+      made[0]++;
+      return new CountingIndicator(new ExponentialMovingAverage(2), fed);
+    };
+    storeModel.getIndicatorSeries(date, date.plusDays(3), "A", "EMA(2)", ema);
+
+    // the newest day is merged onto the end, as it is when recent prices are downloaded
+    store.put("A", prices.append(new PriceSeries.Builder().add(date.plusDays(3), 40.0).build()));
+    IndicatorSeries series = storeModel.getIndicatorSeries(date, date.plusDays(3), "A", "EMA(2)",
+            ema);
+    assertEquals(1, made[0]);
+    assertEquals(4, fed[0]);
+    assertEquals(35.0, series.valueAt(0, 3), 0.001);
+
+    // a whole new history replaces the old one, so the indicator starts over
+    store.put("A", new PriceSeries.Builder()
+            .add(date, 10.0)
+            .add(date.plusDays(1), 20.0)
+            .add(date.plusDays(2), 30.0)
+            .add(date.plusDays(3), 60.0)
+            .build());
+    series = storeModel.getIndicatorSeries(date, date.plusDays(3), "A", "EMA(2)", ema);
+    assertEquals(2, made[0]);
+    assertEquals(8, fed[0]);
+    assertEquals(48.333, series.valueAt(0, 3), 0.001);
+  }
+
+  // Counts the prices given to an indicator
+  private static final class CountingIndicator implements Indicator {
+    private final Indicator indicator;
+    private final int[] fed;
+
+    private CountingIndicator(Indicator indicator, int[] fed) {
+      this.indicator = indicator;
+      this.fed = fed;
+    }
+
+    @Override
+    public void update(double close) {
+      fed[0]++;
+      indicator.update(close);
+    }
+
+    @Override
+    public int lines() {
+      return indicator.lines();
+    }
+
+    @Override
+    public String lineName(int line) {
+      return indicator.lineName(line);
+    }
+
+    @Override
+    public double value(int line) {
+      return indicator.value(line);
+    }
+  }
+
+  // A data source over prices that are already in memory, which reports every change to them
+  private static final class StoreDataSource implements DataSource {
+    private final PriceStore store;
+
+    private StoreDataSource(PriceStore store) {
+      this.store = store;
+    }
+
+    @Override
+    public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end)
+            throws IOException {
+      if (!store.contains(ticker)) {
+        throw new IOException("There is no such ticker");
+      }
+      return store.get(ticker).slice(start, end);
+    }
+
+    @Override
+    public boolean stockInDataSource(String ticker) {
+      return store.contains(ticker);
+    }
+
+    @Override
+    public Set<String> getLoadedTickers() {
+      return store.tickers();
+    }
+
+    @Override
+    public void addPriceListener(PriceListener listener) {
+      store.addListener(listener);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetIndicatorSeriesBackwards() throws IOException {
+    model.getIndicatorSeries(LocalDate.of(2024, 5, 9), LocalDate.of(2024, 5, 6), "A",
+            "RSI(14)", () -> new RelativeStrengthIndex(14));
+  }
+
   @Test
   public void testGetCrossover() throws IOException {
     LocalDate endDate = LocalDate.of(2024, 5, 9);
@@ -303,6 +614,42 @@ public class BasicStockModelTest {
     assertEquals(0, actualCrossOvers.size());
   }
 
+  @Test
+  public void testGetCrossovers() throws IOException {
+    double[] closes = {10, 10, 20, 20};
+    for (int i = 0; i < closes.length; i++) {
+      mockDataSource.setStockExistsAtDate(LocalDate.of(2024, 5, 6 + i));
+      mockDataSource.setClosingPrice(LocalDate.of(2024, 5, 6 + i), closes[i]);
+    }
+
+    List<CrossoverEngine.Crossover> crossovers = model.getCrossovers(LocalDate.of(2024, 5, 1),
+            LocalDate.of(2024, 5, 31), "GOOG", 2);
+    assertEquals(2, crossovers.size());
+    assertEquals(LocalDate.of(2024, 5, 8), crossovers.get(0).getDate());
+    assertEquals(CrossoverEngine.Type.PRICE_ABOVE_AVERAGE, crossovers.get(0).getType());
+    assertEquals(LocalDate.of(2024, 5, 9), crossovers.get(1).getDate());
+    assertEquals(CrossoverEngine.Type.PRICE_BELOW_AVERAGE, crossovers.get(1).getType());
+  }
+
+  @Test
+  public void testScreenStocks() throws IOException {
+    mockDataSource.setStockExistsAtDate(LocalDate.of(2024, 5, 6));
+    mockDataSource.setStockExistsAtDate(LocalDate.of(2024, 5, 9));
+    mockDataSource.setClosingPrice(LocalDate.of(2024, 5, 6), 100.0);
+    mockDataSource.setClosingPrice(LocalDate.of(2024, 5, 9), 110.0);
+
+    // every mock stock has the same prices, so they tie and are ranked alphabetically
+    List<StockScreener.Result> results = model.screenStocks(StockScreener.gainAbove(
+            LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31), 5), 2);
+    assertEquals(2, results.size());
+    assertEquals("A", results.get(0).getTicker());
+    assertEquals("AMZN", results.get(1).getTicker());
+    assertEquals(10.0, results.get(0).getScore(), 0.001);
+
+    assertEquals(0, model.screenStocks(StockScreener.gainAbove(LocalDate.of(2024, 5, 1),
+            LocalDate.of(2024, 5, 31), 10), 2).size());
+  }
+
   @Test
   public void testCreateNewPortolio() {
     assertEquals(Collections.emptyList(), model.getPortfolios());
@@ -376,6 +723,20 @@ public class BasicStockModelTest {
     assertEquals(List.of("first", "second", "third"), out);
   }
 
+  @Test
+  public void testPortfolioExists() {
+    model.createNewPortfolio("first");
+    assertTrue(model.portfolioExists("first"));
+    assertFalse(model.portfolioExists("second"));
+
+    model.renamePortfolio("first", "second");
+    assertFalse(model.portfolioExists("first"));
+    assertTrue(model.portfolioExists("second"));
+
+    model.deletePortfolio("second");
+    assertFalse(model.portfolioExists("second"));
+  }
+
   @Test
   public void testGetPortfoliosEmpty() {
     assertEquals(List.of(), model.getPortfolios());
@@ -9,11 +9,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -118,9 +121,142 @@ public class CSVDataSourceTest {
     assertTrue(dataSource.stockInDataSource("AAPL"));
   }
 
+  @Test
+  public void testParallelLoadMatchesSequential() throws IOException {
+    Path directory = Files.createTempDirectory("testParallelCsvData");
+    try {
+      for (String ticker : List.of("AAA", "BBB", "CCC", "DDD")) {
+        Files.write(directory.resolve(ticker + ".csv"), Arrays.asList(
+                "timestamp,open,high,low,adjusted_close,volume",
+                "2022-01-04,105,115,95," + ticker.length() * 10 + ",400",
+                "2022-01-03,105,115,95,120,300"));
+      }
+
+      CSVDataSource sequential = new CSVDataSource(directory.toString());
+      CSVDataSource parallel = new CSVDataSource(directory.toString(), 4);
+      for (String ticker : List.of("AAA", "BBB", "CCC", "DDD")) {
+        assertTrue(parallel.stockInDataSource(ticker));
+        assertEquals(sequential.getClosingPrice(LocalDate.of(2022, 1, 4), ticker),
+                parallel.getClosingPrice(LocalDate.of(2022, 1, 4), ticker), 0.001);
+      }
+
+      assertEquals(4, parallel.getLoadTimings().getFileTimes().size());
+      assertEquals(4, parallel.getLoadTimings().getParallelism());
+      assertEquals(1, sequential.getLoadTimings().getParallelism());
+    } finally {
+      Files.walk(directory)
+              .sorted(Comparator.reverseOrder())
+              .map(Path::toFile)
+              .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testLazyLoad() throws IOException {
+    Path directory = Files.createTempDirectory("testLazyCsvData");
+    try {
+      Files.write(directory.resolve("AAPL.csv"), Arrays.asList(
+              "timestamp,open,high,low,adjusted_close,volume",
+              "2022-01-04,105,115,95,110,400"));
+      // a bad file is only a problem once something asks for its prices
+      Files.write(directory.resolve("BAD.csv"), Arrays.asList(
+              "date,open,high,low,close,volume",
+              "2022-01-01,100,110,90,105,10000"));
+
+      CSVDataSource dataSource = CSVDataSource.lazy(directory.toString());
+      assertTrue(dataSource.stockInDataSource("AAPL"));
+      assertTrue(dataSource.stockInDataSource("BAD"));
+      assertFalse(dataSource.stockInDataSource("GOOG"));
+
+      assertTrue(dataSource.stockExistsAtDate(LocalDate.of(2022, 1, 4), "AAPL"));
+      assertEquals(110, dataSource.getClosingPrice(LocalDate.of(2022, 1, 4), "AAPL"), 0.001);
+      assertTrue(dataSource.stockInDataSource("AAPL"));
+    } finally {
+      Files.walk(directory)
+              .sorted(Comparator.reverseOrder())
+              .map(Path::toFile)
+              .forEach(File::delete);
+    }
+  }
+
+  @Test
+  public void testLazyLoadFromManyThreads() throws Exception {
+    CSVDataSource dataSource = CSVDataSource.lazy(tempDirectory.toString());
+    List<Thread> threads = new ArrayList<>();
+    List<Double> prices = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < 8; i++) {
+      threads.add(new Thread(() -> {
+        try {
+          prices.add(dataSource.getClosingPrice(LocalDate.of(2022, 1, 10), "AAPL"));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(8, prices.size());
+    for (double price : prices) {
+      assertEquals(120, price, 0.001);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelLoadInvalidParallelism() {
+    new CSVDataSource(tempDirectory.toString(), 0);
+  }
+
   @Test
   public void testStockNotInDataSource() throws IOException {
     CSVDataSource dataSource = new CSVDataSource(tempDirectory.toString());
     assertFalse(dataSource.stockInDataSource("GOOG"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testGetPriceRange() throws IOException {
+    // loaded lazily so that files other tests add to the directory are never parsed
+    CSVDataSource dataSource = CSVDataSource.lazy(tempDirectory.toString());
+    PriceSeries range = dataSource.getPriceRange("AAPL", LocalDate.of(2022, 1, 4),
+            LocalDate.of(2022, 1, 13));
+    assertEquals(4, range.size());
+    assertEquals(LocalDate.of(2022, 1, 4), range.dateAt(0));
+    assertEquals(LocalDate.of(2022, 1, 13), range.dateAt(3));
+    assertEquals(120.0, range.closeAt(2), 0.01);
+
+    assertEquals(0, dataSource.getPriceRange("AAPL", LocalDate.of(2022, 1, 6),
+            LocalDate.of(2022, 1, 9)).size());
+    assertEquals(0, dataSource.getPriceRange("AAPL", LocalDate.of(2022, 1, 5),
+            LocalDate.of(2022, 1, 4)).size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPriceRangeNotInDataSource() throws IOException {
+    CSVDataSource.lazy(tempDirectory.toString()).getPriceRange("GOOG",
+            LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31));
+  }
+
+  @Test
+  public void testGetClosingPriceAsOf() throws IOException {
+    CSVDataSource dataSource = CSVDataSource.lazy(tempDirectory.toString());
+    assertEquals(115.0, dataSource.getClosingPriceAsOf(LocalDate.of(2022, 1, 5), "AAPL"), 0.01);
+    assertEquals(115.0, dataSource.getClosingPriceAsOf(LocalDate.of(2022, 1, 9), "AAPL"), 0.01);
+    assertEquals(120.0, dataSource.getClosingPriceAsOf(LocalDate.of(2023, 1, 1), "AAPL"), 0.01);
+    assertEquals(0, dataSource.getClosingPriceAsOf(LocalDate.of(2021, 12, 31), "AAPL"), 0.01);
+  }
+
+  @Test
+  public void testGetTickerMetadata() throws IOException {
+    CSVDataSource dataSource = CSVDataSource.lazy(tempDirectory.toString());
+    TickerMetadata metadata = dataSource.getTickerMetadata("AAPL");
+    assertEquals(LocalDate.of(2022, 1, 1), metadata.getFirstDate());
+    assertEquals(LocalDate.of(2022, 1, 15), metadata.getLastDate());
+    assertEquals(9, metadata.getObservations());
+    assertEquals(0, metadata.getGaps().size());
+    assertSame(metadata, dataSource.getTickerMetadata("AAPL"));
+  }
+}
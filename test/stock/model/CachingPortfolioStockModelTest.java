@@ -0,0 +1,87 @@
+package stock.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link CachingPortfolioStockModel}. It checks that remembered distributions and
+ * performance series are handed out without being copied, and are dropped when the portfolio
+ * changes.
+ */
+public class CachingPortfolioStockModelTest {
+  private static final LocalDate START = LocalDate.of(2024, 5, 4);
+
+  private CachingPortfolioStockModel model;
+
+  /**
+   * Sets up a caching model over a portfolio of one stock with a week of prices.
+   * @throws IOException If there is an error creating the save directory.
+   */
+  @Before
+  public void setup() throws IOException {
+    MockDataSource dataSource = new MockDataSource();
+    for (int i = 0; i < 7; i++) {
+      dataSource.setStockExistsAtDate(START.plusDays(i));
+      dataSource.setClosingPrice(START.plusDays(i), 10.0 + i);
+    }
+    model = new CachingPortfolioStockModel(new PortfolioStockModelImpl(dataSource,
+            Files.createTempDirectory("testCachingPortfolio").toString()), dataSource);
+    model.createNewPortfolio("P");
+    model.addStockToPortfolio("P", "GOOG", 10, START);
+  }
+
+  @Test
+  public void testPerformanceHitIsNotCopied() throws IOException {
+    Map<LocalDate, Double> first = model.getPortfolioPerformance("P", START, START.plusDays(7));
+    Map<LocalDate, Double> second = model.getPortfolioPerformance("P", START, START.plusDays(7));
+
+    assertTrue(first instanceof PerformanceSeries);
+    assertSame(first, second);
+    assertEquals(1, model.getHits());
+  }
+
+  @Test
+  public void testDistributionHitIsNotCopied() throws IOException {
+    Map<String, Double> first = model.getPortfolioDistribution("P", START.plusDays(2));
+    assertSame(first, model.getPortfolioDistribution("P", START.plusDays(2)));
+    assertEquals(Map.of("GOOG", 120.0), first);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testDistributionCannotBeChanged() throws IOException {
+    model.getPortfolioDistribution("P", START).put("AAPL", 1.0);
+  }
+
+  @Test
+  public void testChangeDropsPerformance() throws IOException {
+    Map<LocalDate, Double> before = model.getPortfolioPerformance("P", START, START.plusDays(7));
+    model.addStockToPortfolio("P", "GOOG", 10, START.plusDays(3));
+    Map<LocalDate, Double> after = model.getPortfolioPerformance("P", START, START.plusDays(7));
+
+    assertNotSame(before, after);
+    assertEquals(150.0, before.get(START.plusDays(6)), 0.001);
+    assertEquals(300.0, after.get(START.plusDays(6)), 0.001);
+  }
+
+  @Test
+  public void testSoldStockStillDropsPerformance() throws IOException {
+    model.sellStockFromPortfolio("P", "GOOG", 10, START.plusDays(2));
+    Map<LocalDate, Double> first = model.getPortfolioPerformance("P", START, START.plusDays(7));
+
+    // the portfolio never held AMZN, but its performance was worked out from GOOG's prices
+    model.invalidateTicker("AMZN");
+    assertSame(first, model.getPortfolioPerformance("P", START, START.plusDays(7)));
+    model.invalidateTicker("GOOG");
+    assertNotSame(first, model.getPortfolioPerformance("P", START, START.plusDays(7)));
+  }
+}
@@ -0,0 +1,153 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link CachingStockModel}. It runs every BasicStockModel test through the cache,
+ * then checks that results are remembered, dropped when the least recently used, and dropped when
+ * a stock's prices or a portfolio change.
+ */
+public class CachingStockModelTest extends BasicStockModelTest {
+  private static final LocalDate START = LocalDate.of(2024, 5, 6);
+  private static final LocalDate END = LocalDate.of(2024, 5, 9);
+
+  private CachingStockModel cache;
+
+  @Override
+  public void setup() throws IOException {
+    mockDataSource = new MockDataSource();
+    cache = new CachingStockModel(new BasicStockModel(mockDataSource), mockDataSource, 2);
+    model = cache;
+  }
+
+  private void setPrices(double start, double end) {
+    mockDataSource.setStockExistsAtDate(START);
+    mockDataSource.setStockExistsAtDate(END);
+    mockDataSource.setClosingPrice(START, start);
+    mockDataSource.setClosingPrice(END, end);
+  }
+
+  @Test
+  public void testRepeatedCallsHit() throws IOException {
+    setPrices(150, 160);
+    assertEquals(10, cache.getGainOverTime(START, END, "GOOG"), 0.001);
+    assertEquals(10, cache.getGainOverTime(START, END, "GOOG"), 0.001);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    // any different argument is a different result
+    cache.getGainOverTime(START, END, "A");
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsDropped() throws IOException {
+    setPrices(150, 160);
+    cache.getGainOverTime(START, END, "GOOG");
+    cache.getGainOverTime(START, END, "A");
+    cache.getGainOverTime(START, END, "GOOG");
+    cache.getGainOverTime(START, END, "AMZN");
+    assertEquals(2, cache.size());
+
+    cache.getGainOverTime(START, END, "GOOG");
+    assertEquals(2, cache.getHits());
+    cache.getGainOverTime(START, END, "A");
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void testNewPricesDropResults() throws IOException {
+    setPrices(150, 160);
+    assertEquals(10, cache.getGainOverTime(START, END, "GOOG"), 0.001);
+    mockDataSource.setClosingPrice(END, 170);
+    assertEquals(20, cache.getGainOverTime(START, END, "GOOG"), 0.001);
+    assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  public void testInvalidateTickerKeepsOtherStocks() throws IOException {
+    setPrices(150, 160);
+    cache.getGainOverTime(START, END, "GOOG");
+    cache.getGainOverTime(START, END, "A");
+    cache.invalidateTicker("GOOG");
+    assertEquals(1, cache.size());
+    cache.getGainOverTime(START, END, "A");
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testChangingPortfolioDropsItsValue() throws IOException {
+    setPrices(150, 160);
+    cache.createNewPortfolio("Tech");
+    cache.addStockToPortfolio("Tech", "GOOG", 2);
+    assertEquals(320, cache.getPortfolioValue("Tech", END), 0.001);
+
+    cache.addStockToPortfolio("Tech", "GOOG", 1);
+    assertEquals(480, cache.getPortfolioValue("Tech", END), 0.001);
+    assertEquals(0, cache.getHits());
+    assertEquals(480, cache.getPortfolioValue("Tech", END), 0.001);
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testReturnedListsAreCopies() throws IOException {
+    setPrices(150, 160);
+    List<LocalDate> crossover = cache.getCrossover(END, 2, "GOOG");
+    assertEquals(List.of(END), crossover);
+    crossover.clear();
+    assertEquals(List.of(END), cache.getCrossover(END, 2, "GOOG"));
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testOtherStocksKeepPortfolioValue() throws IOException {
+    setPrices(150, 160);
+    cache.createNewPortfolio("Tech");
+    cache.addStockToPortfolio("Tech", "GOOG", 2);
+    cache.getPortfolioValue("Tech", END);
+
+    cache.invalidateTicker("AMZN");
+    cache.getPortfolioValue("Tech", END);
+    assertEquals(1, cache.getHits());
+
+    cache.invalidateTicker("GOOG");
+    cache.getPortfolioValue("Tech", END);
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testLoadingStocksKeepsResults() throws IOException {
+    Path directory = Files.createTempDirectory("testCachingLoads");
+    for (String ticker : List.of("GOOG", "AMZN")) {
+      Files.write(directory.resolve(ticker + ".csv"), List.of(
+              "timestamp,open,high,low,adjusted_close,volume",
+              "2024-05-09,105,115,95,160,200",
+              "2024-05-06,100,110,90,150,100"));
+    }
+    CSVDataSource dataSource = CSVDataSource.lazy(directory.toString());
+    CachingStockModel lazyCache = new CachingStockModel(new BasicStockModel(dataSource),
+            dataSource);
+    assertEquals(10, lazyCache.getGainOverTime(START, END, "GOOG"), 0.001);
+
+    // the portfolio's value loads AMZN for the first time, which changes nothing already known
+    lazyCache.createNewPortfolio("Tech");
+    lazyCache.addStockToPortfolio("Tech", "AMZN", 2);
+    assertEquals(320, lazyCache.getPortfolioValue("Tech", END), 0.001);
+    assertEquals(320, lazyCache.getPortfolioValue("Tech", END), 0.001);
+    assertEquals(10, lazyCache.getGainOverTime(START, END, "GOOG"), 0.001);
+    assertEquals(2, lazyCache.getHits());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoRoom() {
+    new CachingStockModel(new BasicStockModel(mockDataSource), mockDataSource, 0);
+  }
+}
@@ -0,0 +1,101 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link CrossoverEngine}. It checks price and golden/death crosses against
+ * averages worked out by hand, and that starting part way through a history gives the same
+ * crossovers as the whole history does.
+ */
+public class CrossoverEngineTest {
+  private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+  // 2-day averages: -, 10, 10, 10, 15, 20, 20, 12.5, 5, 5
+  // 3-day averages: -, -, 10, 10, 13.3, 16.7, 20, 15, 10, 5
+  private static PriceSeries prices() {
+    double[] closes = {10, 10, 10, 10, 20, 20, 20, 5, 5, 5};
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (int i = 0; i < closes.length; i++) {
+      builder.add(START.plusDays(i), closes[i]);
+    }
+    return builder.build();
+  }
+
+  private static void assertCrossover(CrossoverEngine.Crossover crossover, LocalDate date,
+                                      CrossoverEngine.Type type, int window, int longWindow) {
+    assertEquals(date, crossover.getDate());
+    assertEquals(type, crossover.getType());
+    assertEquals(window, crossover.getWindow());
+    assertEquals(longWindow, crossover.getLongWindow());
+  }
+
+  @Test
+  public void testCrossovers() {
+    List<CrossoverEngine.Crossover> events = new CrossoverEngine(3, 2)
+            .run(prices(), START, START.plusDays(9));
+
+    assertEquals(6, events.size());
+    assertCrossover(events.get(0), START.plusDays(4), CrossoverEngine.Type.PRICE_ABOVE_AVERAGE,
+            2, 0);
+    assertCrossover(events.get(1), START.plusDays(4), CrossoverEngine.Type.PRICE_ABOVE_AVERAGE,
+            3, 0);
+    assertCrossover(events.get(2), START.plusDays(4), CrossoverEngine.Type.GOLDEN_CROSS, 2, 3);
+    assertEquals(20, events.get(2).getClose(), 0.001);
+    assertCrossover(events.get(3), START.plusDays(5), CrossoverEngine.Type.PRICE_BELOW_AVERAGE,
+            2, 0);
+    assertCrossover(events.get(4), START.plusDays(6), CrossoverEngine.Type.PRICE_BELOW_AVERAGE,
+            3, 0);
+    assertCrossover(events.get(5), START.plusDays(6), CrossoverEngine.Type.DEATH_CROSS, 2, 3);
+  }
+
+  @Test
+  public void testStartPartWayThrough() {
+    CrossoverEngine engine = new CrossoverEngine(2, 3);
+    List<CrossoverEngine.Crossover> all = engine.run(prices(), START, START.plusDays(9));
+    List<CrossoverEngine.Crossover> later = engine.run(prices(), START.plusDays(5),
+            START.plusDays(6));
+
+    assertEquals(3, later.size());
+    for (int i = 0; i < later.size(); i++) {
+      assertEquals(all.get(i + 3).toString(), later.get(i).toString());
+    }
+  }
+
+  @Test
+  public void testNotEnoughHistory() {
+    CrossoverEngine engine = new CrossoverEngine(20);
+    assertTrue(engine.run(prices(), START, START.plusDays(9)).isEmpty());
+    assertTrue(engine.run(new PriceSeries.Builder().build(), START, START).isEmpty());
+    assertTrue(new CrossoverEngine(2).run(prices(), START.plusDays(9), START).isEmpty());
+  }
+
+  @Test
+  public void testWindowsAreSortedAndDistinct() {
+    assertArrayEquals(new int[] {20, 50, 200}, new CrossoverEngine(200, 20, 50, 20)
+            .getWindows());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoWindows() {
+    new CrossoverEngine();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWindowTooSmall() {
+    new CrossoverEngine(5, 0);
+  }
+
+  @Test
+  public void testDaysClosingAbove() {
+    assertEquals(List.of(START.plusDays(4), START.plusDays(5), START.plusDays(6)),
+            CrossoverEngine.daysClosingAbove(prices(), 10));
+    assertTrue(CrossoverEngine.daysClosingAbove(prices(), 20).isEmpty());
+  }
+}
@@ -0,0 +1,169 @@
+package stock.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link DownloadCache}. It checks freshness, that the index survives between
+ * runs, and that the least recently used tickers are evicted when the cache is full.
+ */
+public class DownloadCacheTest {
+  private static final Instant START = Instant.parse("2024-06-01T12:00:00Z");
+
+  private Path tempDirectory;
+
+  /**
+   * Creates an empty temporary directory for the cache.
+   * @throws IOException If there is an error creating the directory.
+   */
+  @Before
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("testDownloadCache");
+  }
+
+  /**
+   * Deletes the temporary directory and everything in it.
+   * @throws IOException when there is error occur in the folder.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.walk(tempDirectory)
+            .sorted(Comparator.reverseOrder())
+            .map(Path::toFile)
+            .forEach(File::delete);
+  }
+
+  private DownloadCache open(long maxBytes, Duration sinceStart) throws IOException {
+    Clock clock = Clock.fixed(START.plus(sinceStart), ZoneOffset.UTC);
+    return new DownloadCache(tempDirectory, Duration.ofHours(6), maxBytes, clock);
+  }
+
+  private void download(DownloadCache cache, String ticker, int bytes) throws IOException {
+    cache.recordFetch(write(cache, ticker, bytes));
+  }
+
+  @Test
+  public void testFreshUntilExpired() throws IOException {
+    DownloadCache cache = open(1000, Duration.ZERO);
+    assertFalse(cache.contains("AAPL"));
+    assertFalse(cache.isFresh("AAPL"));
+
+    download(cache, "AAPL", 10);
+    assertTrue(cache.contains("AAPL"));
+    assertTrue(cache.isFresh("AAPL"));
+    assertEquals(START.toEpochMilli(), cache.getFetchedAt("AAPL"));
+
+    assertTrue(open(1000, Duration.ofHours(5)).isFresh("AAPL"));
+    DownloadCache later = open(1000, Duration.ofHours(7));
+    assertTrue(later.contains("AAPL"));
+    assertFalse(later.isFresh("AAPL"));
+  }
+
+  @Test
+  public void testIndexSurvivesReopening() throws IOException {
+    DownloadCache cache = open(1000, Duration.ZERO);
+    download(cache, "AAPL", 10);
+    download(cache, "MSFT", 20);
+
+    DownloadCache reopened = open(1000, Duration.ofMinutes(1));
+    assertTrue(reopened.contains("AAPL"));
+    assertTrue(reopened.contains("MSFT"));
+    assertEquals(30, reopened.getTotalBytes());
+    assertFalse(reopened.contains("GOOG"));
+    assertEquals(-1, reopened.getFetchedAt("GOOG"));
+  }
+
+  @Test
+  public void testDeletedFileIsNotCached() throws IOException {
+    DownloadCache cache = open(1000, Duration.ZERO);
+    download(cache, "AAPL", 10);
+    Files.delete(cache.pathFor("AAPL"));
+
+    assertFalse(cache.contains("AAPL"));
+    assertFalse(cache.isFresh("AAPL"));
+    assertFalse(open(1000, Duration.ZERO).contains("AAPL"));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws IOException {
+    download(open(100, Duration.ZERO), "AAPL", 40);
+    download(open(100, Duration.ofMinutes(1)), "MSFT", 40);
+    open(100, Duration.ofMinutes(2)).recordUse("AAPL");
+
+    DownloadCache cache = open(100, Duration.ofMinutes(3));
+    List<String> evicted = cache.recordFetch(write(cache, "GOOG", 40));
+    assertEquals(List.of("MSFT"), evicted);
+    assertTrue(cache.contains("AAPL"));
+    assertTrue(cache.contains("GOOG"));
+    assertFalse(cache.contains("MSFT"));
+    assertFalse(Files.exists(cache.pathFor("MSFT")));
+    assertEquals(80, cache.getTotalBytes());
+  }
+
+  @Test
+  public void testQueriesCountAsUse() throws IOException {
+    download(open(100, Duration.ZERO), "AAPL", 40);
+    download(open(100, Duration.ofMinutes(1)), "MSFT", 40);
+    open(100, Duration.ofMinutes(2)).recordQuery("AAPL");
+
+    DownloadCache cache = open(100, Duration.ofMinutes(3));
+    assertEquals(List.of("MSFT"), cache.recordFetch(write(cache, "GOOG", 40)));
+    assertTrue(cache.contains("AAPL"));
+  }
+
+  @Test
+  public void testQueriesAreSavedAtMostOncePerInterval() throws IOException {
+    download(open(100, Duration.ZERO), "AAPL", 40);
+    download(open(100, Duration.ofMinutes(1)), "MSFT", 40);
+    DownloadCache cache = open(100, Duration.ofMinutes(2));
+    download(cache, "GOOG", 10);
+
+    // the index was just written, so this is only kept in memory
+    cache.recordQuery("AAPL");
+    DownloadCache reopened = open(100, Duration.ofMinutes(3));
+    assertEquals(List.of("AAPL"), reopened.recordFetch(write(reopened, "TSLA", 40)));
+  }
+
+  @Test
+  public void testFlushWritesQueries() throws IOException {
+    download(open(100, Duration.ZERO), "AAPL", 40);
+    download(open(100, Duration.ofMinutes(1)), "MSFT", 40);
+    DownloadCache cache = open(100, Duration.ofMinutes(2));
+    download(cache, "GOOG", 10);
+
+    cache.recordQuery("AAPL");
+    cache.flush();
+    DownloadCache reopened = open(100, Duration.ofMinutes(3));
+    assertEquals(List.of("MSFT"), reopened.recordFetch(write(reopened, "TSLA", 40)));
+  }
+
+  @Test
+  public void testNeverEvictsNewDownload() throws IOException {
+    DownloadCache cache = open(50, Duration.ZERO);
+    download(cache, "AAPL", 40);
+    List<String> evicted = cache.recordFetch(write(cache, "MSFT", 60));
+    assertEquals(List.of("AAPL"), evicted);
+    assertTrue(cache.contains("MSFT"));
+  }
+
+  private String write(DownloadCache cache, String ticker, int bytes) throws IOException {
+    Files.write(cache.pathFor(ticker), new byte[bytes]);
+    return ticker;
+  }
+}
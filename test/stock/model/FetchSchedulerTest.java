@@ -0,0 +1,256 @@
+package stock.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for {@link FetchScheduler}. It checks the per-minute and per-day quotas, that the
+ * day's usage is saved between runs, and the order waiting downloads run in.
+ */
+public class FetchSchedulerTest {
+  private Path usageFile;
+  private MutableClock clock;
+
+  /**
+   * Creates a temporary usage file location and a clock that only moves when told to.
+   * @throws IOException If there is an error creating the file.
+   */
+  @Before
+  public void setUp() throws IOException {
+    usageFile = Files.createTempFile("testFetchScheduler", ".txt");
+    Files.delete(usageFile);
+    clock = new MutableClock(Instant.parse("2024-06-01T12:00:00Z"));
+  }
+
+  /**
+   * Deletes the usage file.
+   * @throws IOException when the file cannot be deleted.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(usageFile);
+  }
+
+  @Test
+  public void testPerMinuteQuota() throws IOException {
+    FetchScheduler scheduler = new FetchScheduler(ticker -> true, 2, 100, usageFile, clock);
+    assertEquals(0, scheduler.acquire());
+    assertEquals(0, scheduler.acquire());
+    assertEquals(30_000, scheduler.acquire());
+
+    clock.advance(Duration.ofSeconds(20));
+    assertEquals(10_000, scheduler.acquire());
+    clock.advance(Duration.ofSeconds(10));
+    assertEquals(0, scheduler.acquire());
+    assertEquals(3, scheduler.getRequestsToday());
+  }
+
+  @Test
+  public void testPerDayQuotaIsSaved() throws IOException {
+    FetchScheduler scheduler = new FetchScheduler(ticker -> true, 100, 2, usageFile, clock);
+    assertEquals(0, scheduler.acquire());
+    assertEquals(0, scheduler.acquire());
+    assertEquals(-1, scheduler.acquire());
+
+    FetchScheduler nextRun = new FetchScheduler(ticker -> true, 100, 2, usageFile, clock);
+    assertEquals(2, nextRun.getRequestsToday());
+    assertEquals(-1, nextRun.acquire());
+
+    clock.advance(Duration.ofDays(1));
+    assertEquals(0, nextRun.getRequestsToday());
+    assertEquals(0, nextRun.acquire());
+    assertEquals(1, new FetchScheduler(ticker -> true, 100, 2, usageFile, clock)
+            .getRequestsToday());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidQuota() throws IOException {
+    new FetchScheduler(ticker -> true, 0, 10, usageFile);
+  }
+
+  @Test
+  public void testInteractiveBeforePrefetch() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    FetchScheduler scheduler = new FetchScheduler(ticker -> {
+      if (ticker.equals("FIRST")) {
+        started.countDown();
+        await(release);
+      }
+      order.add(ticker);
+      return true;
+    }, 100, 100, usageFile);
+
+    Future<Void> first = scheduler.submit("FIRST", FetchScheduler.Priority.PREFETCH);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Future<Void> last = scheduler.submit("AAPL", FetchScheduler.Priority.PREFETCH);
+    scheduler.submit("MSFT", FetchScheduler.Priority.PREFETCH);
+    scheduler.submit("GOOG", FetchScheduler.Priority.INTERACTIVE);
+    scheduler.submit("MSFT", FetchScheduler.Priority.INTERACTIVE);
+    release.countDown();
+
+    first.get(5, TimeUnit.SECONDS);
+    last.get(5, TimeUnit.SECONDS);
+    assertEquals(List.of("FIRST", "GOOG", "MSFT", "AAPL"), order);
+  }
+
+  @Test
+  public void testSameTickerJoinsWaitingRequest() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+    FetchScheduler scheduler = new FetchScheduler(ticker -> {
+      await(release);
+      fetched.add(ticker);
+      return true;
+    }, 100, 100, usageFile);
+
+    Future<Void> first = scheduler.submit("FIRST", FetchScheduler.Priority.PREFETCH);
+    Future<Void> a = scheduler.submit("AAPL", FetchScheduler.Priority.PREFETCH);
+    Future<Void> b = scheduler.submit("AAPL", FetchScheduler.Priority.PREFETCH);
+    assertSame(a, b);
+    release.countDown();
+
+    first.get(5, TimeUnit.SECONDS);
+    b.get(5, TimeUnit.SECONDS);
+    assertEquals(List.of("FIRST", "AAPL"), fetched);
+  }
+
+  @Test
+  public void testUnfinishedFetchIsRetried() throws IOException {
+    List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+    FetchScheduler scheduler = new FetchScheduler(ticker -> {
+      fetched.add(ticker);
+      return fetched.size() > 1;
+    }, 100, 100, usageFile);
+
+    scheduler.fetch("AAPL");
+    assertEquals(List.of("AAPL", "AAPL"), fetched);
+    assertEquals(2, scheduler.getRequestsToday());
+  }
+
+  @Test
+  public void testFailedFetch() throws IOException {
+    FetchScheduler scheduler = new FetchScheduler(ticker -> {
+      throw new IOException("API rate limit exceeded for " + ticker);
+    }, 100, 100, usageFile);
+
+    try {
+      scheduler.fetch("AAPL");
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertEquals("API rate limit exceeded for AAPL", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testDailyQuotaUsedUp() throws IOException {
+    FetchScheduler scheduler = new FetchScheduler(ticker -> true, 100, 1, usageFile);
+    scheduler.fetch("AAPL");
+    try {
+      scheduler.fetch("MSFT");
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("daily API request quota"));
+    }
+  }
+
+  @Test
+  public void testPrefetchesLeaveQuotaForLookups() throws IOException {
+    FetchScheduler scheduler = new FetchScheduler(ticker -> true, 100, 25, usageFile, clock);
+    for (int i = 0; i < 20; i++) {
+      assertEquals(0, scheduler.acquire(FetchScheduler.Priority.PREFETCH));
+    }
+    // 5 of the 25 requests are kept for lookups
+    assertEquals(-1, scheduler.acquire(FetchScheduler.Priority.PREFETCH));
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, scheduler.acquire(FetchScheduler.Priority.INTERACTIVE));
+    }
+    assertEquals(-1, scheduler.acquire(FetchScheduler.Priority.INTERACTIVE));
+  }
+
+  @Test
+  public void testLookupAfterLargePrefetch() throws Exception {
+    List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+    FetchScheduler scheduler = new FetchScheduler(ticker -> {
+      fetched.add(ticker);
+      return true;
+    }, 100, 5, usageFile);
+
+    List<Future<Void>> prefetches = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      prefetches.add(scheduler.submit("P" + i, FetchScheduler.Priority.PREFETCH));
+    }
+    int failed = 0;
+    for (Future<Void> prefetch : prefetches) {
+      try {
+        prefetch.get(5, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        failed++;
+      }
+    }
+    assertEquals(6, failed);
+
+    scheduler.fetch("AAPL");
+    assertEquals(5, fetched.size());
+    assertEquals("AAPL", fetched.get(4));
+  }
+
+  private static void await(CountDownLatch latch) throws IOException {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+  }
+
+  // A clock that only moves forward when told to
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    private void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
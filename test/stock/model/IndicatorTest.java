@@ -0,0 +1,130 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for the indicators ({@link ExponentialMovingAverage}, {@link RelativeStrengthIndex},
+ * {@link Macd} and {@link BollingerBands}) and {@link IndicatorTracker}. The indicators are
+ * checked against values worked out by hand, and the tracker is checked to give the same values
+ * whether the prices arrive all at once or a few days at a time.
+ */
+public class IndicatorTest {
+  private static final LocalDate START = LocalDate.of(2024, 1, 1);
+  private static final double[] CLOSES = {10, 12, 11, 15};
+
+  private static PriceSeries prices(int count) {
+    PriceSeries.Builder builder = new PriceSeries.Builder();
+    for (int i = 0; i < count; i++) {
+      builder.add(START.plusDays(i), CLOSES[i]);
+    }
+    return builder.build();
+  }
+
+  private static double[] run(Indicator indicator, int line) {
+    return new IndicatorTracker(indicator).update(prices(CLOSES.length))
+            .getSeries(START, START.plusDays(CLOSES.length)).toArray(line);
+  }
+
+  @Test
+  public void testExponentialMovingAverage() {
+    // starts at the simple average of the first 3 days, then moves half way to each close
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, 11, 13},
+            run(new ExponentialMovingAverage(3), 0), 0.001);
+    assertArrayEquals(CLOSES, run(new ExponentialMovingAverage(1), 0), 0.001);
+  }
+
+  @Test
+  public void testRelativeStrengthIndex() {
+    // changes of +2 and -1, then +4 smoothed in
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, 100 - 100 / 3.0, 100 - 100 / 11.0},
+            run(new RelativeStrengthIndex(2), 0), 0.001);
+
+    RelativeStrengthIndex flat = new RelativeStrengthIndex(1);
+    flat.update(10);
+    flat.update(10);
+    assertEquals(50, flat.value(), 0.001);
+    flat.update(11);
+    assertEquals(100, flat.value(), 0.001);
+  }
+
+  @Test
+  public void testMacd() {
+    Macd macd = new Macd(2, 3, 2);
+    assertEquals(3, macd.lines());
+    assertEquals("Signal", macd.lineName(1));
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, 0, 2 / 3.0}, run(macd, 0), 0.001);
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, Double.NaN, 1 / 3.0},
+            run(new Macd(2, 3, 2), 1), 0.001);
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, Double.NaN, 1 / 3.0},
+            run(new Macd(2, 3, 2), 2), 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMacdFastNotShorter() {
+    new Macd(26, 26, 9);
+  }
+
+  @Test
+  public void testBollingerBands() {
+    double deviation = Math.sqrt(2 / 3.0);
+    double laterDeviation = Math.sqrt(26 / 9.0);
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, 11, 38 / 3.0},
+            run(new BollingerBands(3, 2), 0), 0.001);
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, 11 + 2 * deviation,
+        38 / 3.0 + 2 * laterDeviation}, run(new BollingerBands(3, 2), 1), 0.001);
+    assertArrayEquals(new double[] {Double.NaN, Double.NaN, 11 - 2 * deviation,
+        38 / 3.0 - 2 * laterDeviation}, run(new BollingerBands(3, 2), 2), 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoDays() {
+    new ExponentialMovingAverage(0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testNoSuchLine() {
+    new RelativeStrengthIndex(14).value(1);
+  }
+
+  @Test
+  public void testTrackerOnlyAddsNewerDays() {
+    IndicatorTracker tracker = new IndicatorTracker(new BollingerBands(3, 2));
+    tracker.update(prices(2)).update(prices(3)).update(prices(4)).update(prices(4));
+
+    IndicatorSeries series = tracker.getSeries(START, START.plusDays(3));
+    assertEquals(4, series.size());
+    assertArrayEquals(run(new BollingerBands(3, 2), 1), series.toArray(1), 0.001);
+    assertEquals(START.plusDays(3), series.dateAt(3));
+  }
+
+  @Test
+  public void testTrackerRange() {
+    IndicatorTracker tracker = new IndicatorTracker(new ExponentialMovingAverage(3))
+            .update(prices(4));
+    IndicatorSeries series = tracker.getSeries(START.plusDays(1), START.plusDays(2));
+    assertEquals(2, series.size());
+    assertEquals("3-day EMA", series.lineName(0));
+    assertEquals(START.plusDays(1), series.dateAt(0));
+    assertEquals(11, series.valueAt(0, 1), 0.001);
+
+    assertEquals(0, tracker.getSeries(START.plusDays(3), START).size());
+    assertEquals(0, tracker.getSeries(START.plusDays(9), START.plusDays(10)).size());
+  }
+
+  @Test
+  public void testToPriceSeriesLeavesOutMissingDays() {
+    PriceSeries line = new IndicatorTracker(new ExponentialMovingAverage(3)).update(prices(4))
+            .getSeries(START, START.plusDays(3)).toPriceSeries(0);
+    assertEquals(2, line.size());
+    assertEquals(START.plusDays(2), line.dateAt(0));
+    assertArrayEquals(new double[] {11, 13}, line.toCloseArray(), 0.001);
+
+    assertEquals(0, new IndicatorTracker(new ExponentialMovingAverage(9)).update(prices(4))
+            .getSeries(START, START.plusDays(3)).toPriceSeries(0).size());
+  }
+}
@@ -10,6 +10,7 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -372,6 +373,66 @@ public class PortfolioStockModelImplTest extends BasicStockModelTest {
     }
   }
 
+  @Test
+  public void testGetPortfolioPerformanceMatchesValueInDateOrder() throws IOException {
+    LocalDate start = LocalDate.of(2024, 5, 3);
+    portModel.createNewPortfolio("sweep");
+    portModel.addStockToPortfolio("sweep", "A", 10, LocalDate.of(2024, 5, 4));
+    portModel.addStockToPortfolio("sweep", "GOOG", 5, LocalDate.of(2024, 5, 8));
+    for (int i = 0; i < 12; i++) {
+      mockDataSource.setStockExistsAtDate(start.plusDays(i));
+      mockDataSource.setClosingPrice(start.plusDays(i), 10.0 + i);
+    }
+    portModel.sellStockFromPortfolio("sweep", "A", 4, LocalDate.of(2024, 5, 12));
+
+    Map<LocalDate, Double> performance = portModel.getPortfolioPerformance("sweep", start,
+            start.plusDays(14));
+    assertEquals(14, performance.size());
+    LocalDate expectedDate = start;
+    for (Map.Entry<LocalDate, Double> entry : performance.entrySet()) {
+      assertEquals(expectedDate, entry.getKey());
+      assertEquals(portModel.getPortfolioValue("sweep", expectedDate), entry.getValue(), 0.001);
+      expectedDate = expectedDate.plusDays(1);
+    }
+    assertTrue(portModel.getPortfolioPerformance("sweep", start, start).isEmpty());
+  }
+
+  @Test
+  public void testParallelPerformanceMatchesSequential() throws IOException {
+    PortfolioStockModel sequential = new PortfolioStockModelImpl(mockDataSource,
+            testDir.toString(), new ForkJoinPool(1), Integer.MAX_VALUE);
+    PortfolioStockModel parallel = new PortfolioStockModelImpl(mockDataSource,
+            testDir.toString(), new ForkJoinPool(4), 1);
+    LocalDate start = LocalDate.of(2024, 1, 1);
+    for (int i = 0; i < 7; i++) {
+      LocalDate date = LocalDate.of(2024, 5, 4).plusDays(i * 2);
+      mockDataSource.setStockExistsAtDate(date);
+      mockDataSource.setClosingPrice(date, 100.0 + i);
+    }
+    for (PortfolioStockModel portfolioModel : List.of(sequential, parallel)) {
+      portfolioModel.createNewPortfolio("long");
+      portfolioModel.addStockToPortfolio("long", "A", 10, start.plusDays(20));
+      portfolioModel.addStockToPortfolio("long", "GOOG", 5, LocalDate.of(2024, 5, 9));
+      portfolioModel.sellStockFromPortfolio("long", "A", 3, start.plusDays(300));
+      portfolioModel.addStockToPortfolio("long", "AMZN", 7, start.plusDays(380));
+    }
+
+    Map<LocalDate, Double> expected = sequential.getPortfolioPerformance("long", start,
+            start.plusDays(500));
+    Map<LocalDate, Double> actual = parallel.getPortfolioPerformance("long", start,
+            start.plusDays(500));
+    assertEquals(500, actual.size());
+    assertEquals(expected, actual);
+    assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPortfolioPerformanceBackwards() throws IOException {
+    portModel.createNewPortfolio("sweep");
+    portModel.getPortfolioPerformance("sweep", LocalDate.of(2024, 5, 9),
+            LocalDate.of(2024, 5, 4));
+  }
+
   @Test
   public void testRebalancePortfolioForOneStock() throws IOException {
     portModel.createNewPortfolio("portfolio1");
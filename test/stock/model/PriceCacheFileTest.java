@@ -0,0 +1,122 @@
+package stock.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link PriceCacheFile}. It checks that prices survive a write and read, and that
+ * stale or damaged cache files are ignored.
+ */
+public class PriceCacheFileTest {
+  private Path tempDirectory;
+  private Path csvFile;
+
+  /**
+   * Creates a temporary directory with a small stock CSV file in it.
+   * @throws IOException If there is an error creating the file or writing to it.
+   */
+  @Before
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("testPriceCache");
+    csvFile = tempDirectory.resolve("AAPL.csv");
+    List<String> lines = Arrays.asList(
+            "timestamp,open,high,low,adjusted_close,volume",
+            "2022-01-05,105,115,95,115,500",
+            "2022-01-04,105,115,95,110,400",
+            "2022-01-03,105,115,95,120,300"
+    );
+    Files.write(csvFile, lines);
+  }
+
+  /**
+   * Deletes the temporary directory and everything in it.
+   * @throws IOException when there is error occur in the folder.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.walk(tempDirectory)
+            .sorted(Comparator.reverseOrder())
+            .map(Path::toFile)
+            .forEach(File::delete);
+  }
+
+  @Test
+  public void testPathFor() {
+    assertEquals(tempDirectory.resolve("AAPL.prices"), PriceCacheFile.pathFor(csvFile));
+  }
+
+  @Test
+  public void testNoCache() {
+    assertNull(PriceCacheFile.read(csvFile));
+  }
+
+  @Test
+  public void testWriteThenRead() throws IOException {
+    PriceSeries prices = new PriceSeries.Builder()
+            .add(LocalDate.of(2022, 1, 5), 115)
+            .add(LocalDate.of(2022, 1, 4), 110)
+            .add(LocalDate.of(2022, 1, 3), 120)
+            .build();
+    PriceCacheFile.write(csvFile, prices);
+
+    PriceSeries cached = PriceCacheFile.read(csvFile);
+    assertEquals(3, cached.size());
+    for (int i = 0; i < prices.size(); i++) {
+      assertEquals(prices.dayAt(i), cached.dayAt(i));
+      assertEquals(prices.closeAt(i), cached.closeAt(i), 0.0);
+    }
+  }
+
+  @Test
+  public void testStaleCacheIsIgnored() throws IOException {
+    PriceCacheFile.write(csvFile, new PriceSeries.Builder()
+            .add(LocalDate.of(2022, 1, 3), 120)
+            .build());
+
+    Files.write(csvFile, List.of("timestamp,adjusted_close", "2022-01-03,1"));
+    assertNull(PriceCacheFile.read(csvFile));
+  }
+
+  @Test
+  public void testTouchedCsvIsStale() throws IOException {
+    PriceCacheFile.write(csvFile, new PriceSeries.Builder()
+            .add(LocalDate.of(2022, 1, 3), 120)
+            .build());
+
+    FileTime modified = Files.getLastModifiedTime(csvFile);
+    Files.setLastModifiedTime(csvFile, FileTime.fromMillis(modified.toMillis() + 60000));
+    assertNull(PriceCacheFile.read(csvFile));
+  }
+
+  @Test
+  public void testDamagedCacheIsIgnored() throws IOException {
+    Files.write(PriceCacheFile.pathFor(csvFile), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    assertNull(PriceCacheFile.read(csvFile));
+  }
+
+  @Test
+  public void testDataSourceWritesAndUsesCache() throws IOException {
+    new CSVDataSource(tempDirectory.toString());
+    assertTrue(Files.exists(PriceCacheFile.pathFor(csvFile)));
+
+    // a second load reads the cache, which must give the same prices as the CSV
+    CSVDataSource dataSource = new CSVDataSource(tempDirectory.toString());
+    assertEquals(110, dataSource.getClosingPrice(LocalDate.of(2022, 1, 4), "AAPL"), 0.001);
+    assertEquals(0, dataSource.getClosingPrice(LocalDate.of(2022, 1, 6), "AAPL"), 0.001);
+  }
+}
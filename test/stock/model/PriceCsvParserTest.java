@@ -0,0 +1,113 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test class for {@link PriceCsvParser}. It checks that the byte-level parser reads the same
+ * dates and prices as LocalDate.parse and Double.parseDouble, and that it rejects the same files.
+ */
+public class PriceCsvParserTest {
+
+  private static PriceSeries parse(String csv) {
+    return PriceCsvParser.parse(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testParseAlphaVantageFormat() {
+    PriceSeries prices = parse("timestamp,open,high,low,close,adjusted_close,volume,"
+            + "dividend_amount,split_coefficient\n"
+            + "2024-06-03,192.9,194.99,192.52,194.03,194.03,50080539,0.0000,1.0\n"
+            + "2024-05-31,191.44,192.57,189.91,192.25,192.25,75158277,0.0000,1.0\n");
+
+    assertEquals(2, prices.size());
+    assertEquals(LocalDate.of(2024, 5, 31), prices.dateAt(0));
+    assertEquals(192.25, prices.closeAt(0), 0.0);
+    assertEquals(194.03, prices.getClose(LocalDate.of(2024, 6, 3)), 0.0);
+  }
+
+  @Test
+  public void testHeaderIsTrimmedAndCaseInsensitive() {
+    PriceSeries prices = parse(" TimeStamp , Adjusted_Close \r\n2022-01-01,100\r\n");
+    assertEquals(100, prices.getClose(LocalDate.of(2022, 1, 1)), 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingColumns() {
+    parse("date,open,high,low,close,volume\n2022-01-01,100,110,90,105,10000\n");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyFile() {
+    parse("");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRowMissingColumn() {
+    parse("timestamp,open,adjusted_close\n2022-01-01,100\n");
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testInvalidDate() {
+    parse("timestamp,adjusted_close\n2022-02-30,100\n");
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testInvalidPrice() {
+    parse("timestamp,adjusted_close\n2022-02-03,1x0\n");
+  }
+
+  @Test
+  public void testBlankPriceAndBlankLinesAreSkipped() {
+    PriceSeries prices = parse("timestamp,close,adjusted_close,volume\n"
+            + "2024-03-07,169.00,169.00,100\n"
+            + "2024-03-06,169.12,,68587707\n"
+            + "\n"
+            + "2024-03-05,170.12,170.12,100");
+
+    assertEquals(2, prices.size());
+    assertFalse(prices.contains(LocalDate.of(2024, 3, 6)));
+    assertEquals(170.12, prices.getClose(LocalDate.of(2024, 3, 5)), 0.0);
+  }
+
+  @Test
+  public void testMatchesStandardParsing() {
+    Random random = new Random(42);
+    StringBuilder csv = new StringBuilder("timestamp,adjusted_close\n");
+    LocalDate[] dates = new LocalDate[2000];
+    String[] closes = new String[dates.length];
+    long day = -719_000;
+    for (int i = 0; i < dates.length; i++) {
+      day += 1 + random.nextInt(1500);
+      dates[i] = LocalDate.ofEpochDay(day);
+      closes[i] = randomDecimal(random);
+      csv.append(dates[i]).append(',').append(closes[i]).append('\n');
+    }
+
+    PriceSeries prices = parse(csv.toString());
+    for (int i = 0; i < dates.length; i++) {
+      assertEquals(closes[i], Double.parseDouble(closes[i]), prices.getClose(dates[i]), 0.0);
+    }
+  }
+
+  private static String randomDecimal(Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return Double.toString(random.nextDouble() * 1000);
+      case 1:
+        return String.format("%.4f", random.nextDouble() * 100000);
+      case 2:
+        return Long.toString(random.nextLong());
+      default:
+        return "-" + random.nextInt(1000) + "." + random.nextInt(100000);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link PriceSeries}. It checks that rows added in any order are sorted by day,
+ * that duplicate days keep the last price added, and that lookups work on the sorted arrays.
+ */
+public class PriceSeriesTest {
+
+  @Test
+  public void testEmptySeries() {
+    PriceSeries series = new PriceSeries.Builder().build();
+    assertEquals(0, series.size());
+    assertFalse(series.contains(LocalDate.of(2024, 1, 1)));
+    assertEquals(0, series.getClose(LocalDate.of(2024, 1, 1)), 0.001);
+  }
+
+  @Test
+  public void testAscendingRows() {
+    PriceSeries series = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .add(LocalDate.of(2024, 1, 3), 11.0)
+            .add(LocalDate.of(2024, 1, 5), 12.0)
+            .build();
+
+    assertEquals(3, series.size());
+    assertEquals(LocalDate.of(2024, 1, 2), series.dateAt(0));
+    assertEquals(LocalDate.of(2024, 1, 5), series.dateAt(2));
+    assertEquals(11.0, series.getClose(LocalDate.of(2024, 1, 3)), 0.001);
+    assertFalse(series.contains(LocalDate.of(2024, 1, 4)));
+  }
+
+  @Test
+  public void testDescendingRowsAreReversed() {
+    PriceSeries series = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 5), 12.0)
+            .add(LocalDate.of(2024, 1, 3), 11.0)
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .build();
+
+    assertEquals(LocalDate.of(2024, 1, 2), series.dateAt(0));
+    assertEquals(10.0, series.closeAt(0), 0.001);
+    assertEquals(LocalDate.of(2024, 1, 5), series.dateAt(2));
+    assertEquals(12.0, series.closeAt(2), 0.001);
+  }
+
+  @Test
+  public void testUnorderedRowsAreSorted() {
+    PriceSeries series = new PriceSeries.Builder(1)
+            .add(LocalDate.of(2024, 1, 3), 11.0)
+            .add(LocalDate.of(2024, 1, 5), 12.0)
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .build();
+
+    assertEquals(3, series.size());
+    for (int i = 1; i < series.size(); i++) {
+      assertTrue(series.dayAt(i - 1) < series.dayAt(i));
+    }
+    assertEquals(12.0, series.getClose(LocalDate.of(2024, 1, 5)), 0.001);
+  }
+
+  @Test
+  public void testDuplicateDaysKeepLastPrice() {
+    PriceSeries ascending = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .add(LocalDate.of(2024, 1, 2), 20.0)
+            .add(LocalDate.of(2024, 1, 3), 30.0)
+            .build();
+    assertEquals(2, ascending.size());
+    assertEquals(20.0, ascending.getClose(LocalDate.of(2024, 1, 2)), 0.001);
+
+    PriceSeries descending = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 3), 30.0)
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .add(LocalDate.of(2024, 1, 2), 20.0)
+            .build();
+    assertEquals(2, descending.size());
+    assertEquals(20.0, descending.getClose(LocalDate.of(2024, 1, 2)), 0.001);
+  }
+
+  @Test
+  public void testExtremeDatesAreNeverFound() {
+    PriceSeries series = new PriceSeries.Builder()
+            .add(LocalDate.of(1, 1, 1), 10.0)
+            .build();
+
+    assertTrue(series.contains(LocalDate.of(1, 1, 1)));
+    assertFalse(series.contains(LocalDate.MIN));
+    assertFalse(series.contains(LocalDate.MAX));
+  }
+
+  private static PriceSeries fiveDays() {
+    return new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .add(LocalDate.of(2024, 1, 3), 11.0)
+            .add(LocalDate.of(2024, 1, 5), 12.0)
+            .add(LocalDate.of(2024, 1, 8), 13.0)
+            .add(LocalDate.of(2024, 1, 9), 14.0)
+            .build();
+  }
+
+  @Test
+  public void testFloorAndCeilingIndex() {
+    PriceSeries series = fiveDays();
+    int jan4 = (int) LocalDate.of(2024, 1, 4).toEpochDay();
+    assertEquals(1, series.floorIndex(jan4));
+    assertEquals(2, series.ceilingIndex(jan4));
+    assertEquals(2, series.floorIndex(jan4 + 1));
+    assertEquals(2, series.ceilingIndex(jan4 + 1));
+    assertEquals(-1, series.floorIndex(jan4 - 3));
+    assertEquals(0, series.ceilingIndex(jan4 - 3));
+    assertEquals(4, series.floorIndex(jan4 + 30));
+    assertEquals(5, series.ceilingIndex(jan4 + 30));
+  }
+
+  @Test
+  public void testSliceByDate() {
+    PriceSeries slice = fiveDays().slice(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 8));
+    assertEquals(3, slice.size());
+    assertEquals(LocalDate.of(2024, 1, 3), slice.dateAt(0));
+    assertEquals(13.0, slice.closeAt(2), 0.001);
+    assertTrue(slice.contains(LocalDate.of(2024, 1, 5)));
+    assertFalse(slice.contains(LocalDate.of(2024, 1, 2)));
+    assertFalse(slice.contains(LocalDate.of(2024, 1, 9)));
+    assertEquals(0, slice.getClose(LocalDate.of(2024, 1, 9)), 0.001);
+    assertEquals(-1, slice.indexOf((int) LocalDate.of(2024, 1, 9).toEpochDay()));
+    assertEquals(1, slice.indexOf((int) LocalDate.of(2024, 1, 5).toEpochDay()));
+    assertArrayEquals(new double[]{11.0, 12.0, 13.0}, slice.toCloseArray(), 0.001);
+    assertEquals(3, slice.toDayArray().length);
+
+    // a slice of a slice stays within the outer slice
+    PriceSeries inner = slice.slice(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 4));
+    assertEquals(1, inner.size());
+    assertEquals(11.0, inner.closeAt(0), 0.001);
+  }
+
+  @Test
+  public void testEmptySlice() {
+    PriceSeries series = fiveDays();
+    assertEquals(0, series.slice(LocalDate.of(2024, 1, 6), LocalDate.of(2024, 1, 7)).size());
+    assertEquals(0, series.slice(LocalDate.of(2024, 1, 9), LocalDate.of(2024, 1, 2)).size());
+    assertEquals(0, series.slice(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)).size());
+    assertEquals(5, series.slice(LocalDate.MIN, LocalDate.MAX).size());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testSliceIndexOutOfRange() {
+    PriceSeries slice = fiveDays().slice(1, 3);
+    slice.closeAt(2);
+  }
+
+  @Test
+  public void testGetCloseAsOf() {
+    PriceSeries series = fiveDays();
+    assertEquals(11.0, series.getCloseAsOf(LocalDate.of(2024, 1, 3)), 0.001);
+    assertEquals(11.0, series.getCloseAsOf(LocalDate.of(2024, 1, 4)), 0.001);
+    assertEquals(12.0, series.getCloseAsOf(LocalDate.of(2024, 1, 7)), 0.001);
+    assertEquals(14.0, series.getCloseAsOf(LocalDate.of(2030, 1, 1)), 0.001);
+    assertEquals(0, series.getCloseAsOf(LocalDate.of(2024, 1, 1)), 0.001);
+    assertEquals(0, new PriceSeries.Builder().build().getCloseAsOf(LocalDate.MAX), 0.001);
+
+    // a slice only knows about its own trading days
+    PriceSeries slice = series.slice(3, 5);
+    assertEquals(0, slice.getCloseAsOf(LocalDate.of(2024, 1, 7)), 0.001);
+    assertEquals(13.0, slice.getCloseAsOf(LocalDate.of(2024, 1, 8)), 0.001);
+  }
+
+  @Test
+  public void testSum() {
+    PriceSeries series = fiveDays();
+    assertEquals(60.0, series.sum(0, 5), 0.001);
+    assertEquals(23.0, series.sum(1, 3), 0.001);
+    assertEquals(0, series.sum(2, 2), 0.001);
+
+    // a slice adds up its own positions using the running totals of the whole series
+    PriceSeries slice = series.slice(2, 5);
+    assertEquals(25.0, slice.sum(0, 2), 0.001);
+    assertEquals(14.0, slice.sum(2, 3), 0.001);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testSumOutOfRange() {
+    fiveDays().slice(1, 3).sum(0, 3);
+  }
+
+  @Test
+  public void testAppendKeepsRunningTotals() {
+    PriceSeries series = fiveDays();
+    assertEquals(60.0, series.sum(0, 5), 0.001);
+    PriceSeries newer = new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 9), 99.0)
+            .add(LocalDate.of(2024, 1, 10), 15.0)
+            .add(LocalDate.of(2024, 1, 11), 16.0)
+            .build();
+
+    PriceSeries appended = series.append(newer);
+    assertEquals(7, appended.size());
+    assertEquals(14.0, appended.getClose(LocalDate.of(2024, 1, 9)), 0.001);
+    assertEquals(91.0, appended.sum(0, 7), 0.001);
+    assertEquals(31.0, appended.sum(5, 7), 0.001);
+
+    // appending to a slice only keeps the slice's own trading days
+    PriceSeries fromSlice = series.slice(1, 3).append(newer);
+    assertEquals(5, fromSlice.size());
+    assertEquals(LocalDate.of(2024, 1, 3), fromSlice.dateAt(0));
+    assertEquals(99.0, fromSlice.getClose(LocalDate.of(2024, 1, 9)), 0.001);
+    assertEquals(122.0, fromSlice.sum(0, 3), 0.001);
+    assertEquals(153.0, fromSlice.sum(0, 5), 0.001);
+  }
+}
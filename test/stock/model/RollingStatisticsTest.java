@@ -0,0 +1,99 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link RollingStatistics}. The statistics are checked against the same
+ * statistics worked out from scratch over every window of a long run of random prices, including
+ * runs with many repeated prices.
+ */
+public class RollingStatisticsTest {
+
+  // Every statistic of prices[from, to), worked out directly
+  private static double[] expected(double[] prices, int from, int to) {
+    double[] window = Arrays.copyOfRange(prices, from, to);
+    Arrays.sort(window);
+    int days = window.length;
+    double mean = 0;
+    for (double price : window) {
+      mean += price / days;
+    }
+    double squares = 0;
+    for (double price : window) {
+      squares += (price - mean) * (price - mean);
+    }
+    double median = days % 2 == 1 ? window[days / 2]
+            : (window[days / 2 - 1] + window[days / 2]) / 2;
+    return new double[] {window[0], window[days - 1], mean,
+        days == 1 ? 0 : Math.sqrt(squares / (days - 1)), median};
+  }
+
+  private static void checkAgainstDirect(double[] prices, int days) {
+    RollingStatistics statistics = new RollingStatistics(days);
+    for (int i = 0; i < prices.length; i++) {
+      statistics.update(prices[i]);
+      for (int line = 0; line < statistics.lines(); line++) {
+        if (i + 1 < days) {
+          assertTrue(Double.isNaN(statistics.value(line)));
+        } else {
+          assertEquals(statistics.lineName(line) + " on day " + i,
+                  expected(prices, i + 1 - days, i + 1)[line], statistics.value(line), 1e-6);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRandomPrices() {
+    Random random = new Random(20);
+    double[] prices = new double[500];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = 50 + random.nextDouble() * 100;
+    }
+    for (int days : new int[] {1, 2, 3, 7, 20, 64}) {
+      checkAgainstDirect(prices, days);
+    }
+  }
+
+  @Test
+  public void testRepeatedPrices() {
+    Random random = new Random(3);
+    double[] prices = new double[300];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = random.nextInt(4);
+    }
+    for (int days : new int[] {2, 5, 10}) {
+      checkAgainstDirect(prices, days);
+    }
+  }
+
+  @Test
+  public void testRisingAndFalling() {
+    double[] prices = new double[100];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = i < 50 ? i : 100 - i;
+    }
+    checkAgainstDirect(prices, 9);
+  }
+
+  @Test
+  public void testFlatPricesHaveNoDeviation() {
+    RollingStatistics statistics = new RollingStatistics(3);
+    for (int i = 0; i < 5; i++) {
+      statistics.update(0.1);
+    }
+    assertEquals(0, statistics.value(3), 0);
+    assertEquals(0.1, statistics.value(4), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoDays() {
+    new RollingStatistics(0);
+  }
+}
@@ -0,0 +1,148 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link StockScreener}. It screens enough stocks to be split between several
+ * tasks, and checks that the results are ranked and cut off the same way as a single task would.
+ */
+public class StockScreenerTest {
+  private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+  // Stock Sn rises by n% over ten days
+  private static PriceStore risingStocks(int count) {
+    PriceStore store = new PriceStore();
+    for (int n = 0; n < count; n++) {
+      PriceSeries.Builder prices = new PriceSeries.Builder();
+      for (int day = 0; day < 10; day++) {
+        prices.add(START.plusDays(day), 100 + n * day / 9.0);
+      }
+      store.put(String.format("S%03d", n), prices.build());
+    }
+    return store;
+  }
+
+  @Test
+  public void testGainAboveRanksBestFirst() {
+    PriceStore store = risingStocks(200);
+    StockScreener screener = new StockScreener(new StoreDataSource(store), new ForkJoinPool(4));
+    List<StockScreener.Result> results = screener.screen(store.tickers(),
+            StockScreener.gainAbove(START, START.plusDays(9), 50), 3);
+
+    assertEquals(3, results.size());
+    assertEquals("S199", results.get(0).getTicker());
+    assertEquals(199, results.get(0).getScore(), 0.001);
+    assertEquals("S198", results.get(1).getTicker());
+    assertEquals("S197", results.get(2).getTicker());
+  }
+
+  @Test
+  public void testFewerPassThanLimit() {
+    PriceStore store = risingStocks(100);
+    List<StockScreener.Result> results = new StockScreener(new StoreDataSource(store))
+            .screen(store.tickers(), StockScreener.gainAbove(START, START.plusDays(9), 95), 10);
+
+    assertEquals(4, results.size());
+    assertEquals("S099", results.get(0).getTicker());
+    assertEquals("S096", results.get(3).getTicker());
+  }
+
+  @Test
+  public void testTiesAreAlphabetical() {
+    PriceStore store = new PriceStore();
+    for (String ticker : List.of("MSFT", "AAPL", "GOOG")) {
+      store.put(ticker, new PriceSeries.Builder().add(START, 10).add(START.plusDays(1), 11)
+              .build());
+    }
+    List<StockScreener.Result> results = new StockScreener(new StoreDataSource(store))
+            .screen(store.tickers(), StockScreener.gainAbove(START, START.plusDays(1), 0), 2);
+
+    assertEquals("AAPL", results.get(0).getTicker());
+    assertEquals("GOOG", results.get(1).getTicker());
+  }
+
+  @Test
+  public void testUnknownTickersAreSkipped() {
+    PriceStore store = risingStocks(3);
+    List<String> tickers = new ArrayList<>(store.tickers());
+    tickers.add("NOPE");
+    List<StockScreener.Result> results = new StockScreener(new StoreDataSource(store))
+            .screen(tickers, (ticker, prices) -> prices.size(), 10);
+
+    assertEquals(3, results.size());
+  }
+
+  @Test
+  public void testCrossedAboveAverage() {
+    PriceStore store = new PriceStore();
+    double[] crosses = {10, 10, 10, 10, 20};
+    double[] stays = {10, 10, 10, 10, 10};
+    double[] crossedEarly = {10, 20, 20, 20, 20};
+    for (int i = 0; i < 3; i++) {
+      double[] closes = List.of(crosses, stays, crossedEarly).get(i);
+      PriceSeries.Builder prices = new PriceSeries.Builder();
+      for (int day = 0; day < closes.length; day++) {
+        prices.add(START.plusDays(day), closes[day]);
+      }
+      store.put(List.of("CROSS", "FLAT", "EARLY").get(i), prices.build());
+    }
+
+    List<StockScreener.Result> results = new StockScreener(new StoreDataSource(store))
+            .screen(store.tickers(),
+                    StockScreener.crossedAboveAverage(3, START.plusDays(4), 2), 10);
+    assertEquals(1, results.size());
+    assertEquals("CROSS", results.get(0).getTicker());
+    // closed at 20 against an average of 40 / 3
+    assertEquals(50, results.get(0).getScore(), 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLimitTooSmall() {
+    new StockScreener(new StoreDataSource(new PriceStore()))
+            .screen(List.of(), (ticker, prices) -> 0, 0);
+  }
+
+  @Test
+  public void testNothingToScreen() {
+    assertTrue(new StockScreener(new StoreDataSource(new PriceStore()))
+            .screen(List.of(), (ticker, prices) -> 0, 5).isEmpty());
+  }
+
+  // A data source over prices that are already in memory
+  private static final class StoreDataSource implements DataSource {
+    private final PriceStore store;
+
+    private StoreDataSource(PriceStore store) {
+      this.store = store;
+    }
+
+    @Override
+    public PriceSeries getPriceRange(String ticker, LocalDate start, LocalDate end)
+            throws IOException {
+      if (!store.contains(ticker)) {
+        throw new IOException("There is no such ticker");
+      }
+      return store.get(ticker).slice(start, end);
+    }
+
+    @Override
+    public boolean stockInDataSource(String ticker) {
+      return store.contains(ticker);
+    }
+
+    @Override
+    public Set<String> getLoadedTickers() {
+      return store.tickers();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link SymbolTable}.
+ */
+public class SymbolTableTest {
+
+  @Test
+  public void testIdsAreDenseInOrderSeen() {
+    SymbolTable table = new SymbolTable();
+    assertEquals(0, table.intern("AAPL"));
+    assertEquals(1, table.intern("MSFT"));
+    assertEquals(2, table.intern("GOOG"));
+    assertEquals(3, table.size());
+    assertEquals("MSFT", table.symbol(1));
+  }
+
+  @Test
+  public void testInternTwiceGivesSameId() {
+    SymbolTable table = new SymbolTable();
+    int id = table.intern("AAPL");
+    table.intern("MSFT");
+    assertEquals(id, table.intern("AAPL"));
+    assertEquals(id, table.idOf("AAPL"));
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  public void testIdOfUnknownSymbol() {
+    SymbolTable table = new SymbolTable();
+    assertEquals(-1, table.idOf("AAPL"));
+    assertEquals(0, table.size());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testSymbolOfUnknownId() {
+    new SymbolTable().symbol(0);
+  }
+
+  @Test
+  public void testGrowsPastFirstArray() {
+    SymbolTable table = new SymbolTable();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, table.intern("T" + i));
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("T" + i, table.symbol(i));
+    }
+  }
+
+  @Test
+  public void testConcurrentInternsAgree() throws Exception {
+    SymbolTable table = new SymbolTable();
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    List<Future<int[]>> results = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      results.add(threads.submit(() -> {
+        int[] ids = new int[500];
+        for (int i = 0; i < ids.length; i++) {
+          ids[i] = table.intern("T" + i);
+        }
+        return ids;
+      }));
+    }
+    int[] first = results.get(0).get();
+    for (Future<int[]> result : results) {
+      int[] ids = result.get();
+      for (int i = 0; i < ids.length; i++) {
+        assertEquals(first[i], ids[i]);
+        assertEquals("T" + i, table.symbol(ids[i]));
+      }
+    }
+    threads.shutdown();
+    assertEquals(500, table.size());
+  }
+}
@@ -0,0 +1,84 @@
+package stock.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link TickerMetadata}. It checks the first and last trading days, the number
+ * of trading days, and which gaps between trading days are recorded.
+ */
+public class TickerMetadataTest {
+
+  private static PriceSeries history() {
+    return new PriceSeries.Builder()
+            .add(LocalDate.of(2024, 1, 2), 10.0)
+            .add(LocalDate.of(2024, 1, 5), 11.0)
+            // Friday to Tuesday is a long weekend, not a gap
+            .add(LocalDate.of(2024, 1, 9), 12.0)
+            .add(LocalDate.of(2024, 1, 19), 13.0)
+            .add(LocalDate.of(2024, 1, 22), 14.0)
+            .add(LocalDate.of(2024, 3, 1), 15.0)
+            .build();
+  }
+
+  @Test
+  public void testSummary() {
+    TickerMetadata metadata = TickerMetadata.of(history(), TickerMetadata.DEFAULT_GAP_DAYS);
+    assertFalse(metadata.isEmpty());
+    assertEquals(LocalDate.of(2024, 1, 2), metadata.getFirstDate());
+    assertEquals(LocalDate.of(2024, 3, 1), metadata.getLastDate());
+    assertEquals(6, metadata.getObservations());
+    assertEquals(5, metadata.getMinGapDays());
+
+    assertEquals(2, metadata.getGaps().size());
+    assertEquals(LocalDate.of(2024, 1, 9), metadata.getGaps().get(0).getLastBefore());
+    assertEquals(LocalDate.of(2024, 1, 19), metadata.getGaps().get(0).getFirstAfter());
+    assertEquals(10, metadata.getGaps().get(0).getDays());
+    assertEquals(39, metadata.getGaps().get(1).getDays());
+  }
+
+  @Test
+  public void testGapLength() {
+    assertEquals(3, TickerMetadata.of(history(), 3).getGaps().size());
+    assertEquals(1, TickerMetadata.of(history(), 10).getGaps().size());
+    assertEquals(0, TickerMetadata.of(history(), 39).getGaps().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidGapLength() {
+    TickerMetadata.of(history(), 0);
+  }
+
+  @Test
+  public void testEmpty() {
+    TickerMetadata metadata = TickerMetadata.of(new PriceSeries.Builder().build(), 5);
+    assertTrue(metadata.isEmpty());
+    assertNull(metadata.getFirstDate());
+    assertNull(metadata.getLastDate());
+    assertEquals(0, metadata.getObservations());
+    assertFalse(metadata.covers(LocalDate.of(2024, 1, 2)));
+    assertFalse(metadata.overlaps(LocalDate.MIN, LocalDate.MAX));
+  }
+
+  @Test
+  public void testCoversAndOverlaps() {
+    TickerMetadata metadata = TickerMetadata.of(history(), 5);
+    assertTrue(metadata.covers(LocalDate.of(2024, 1, 2)));
+    assertTrue(metadata.covers(LocalDate.of(2024, 2, 1)));
+    assertTrue(metadata.covers(LocalDate.of(2024, 3, 1)));
+    assertFalse(metadata.covers(LocalDate.of(2024, 1, 1)));
+    assertFalse(metadata.covers(LocalDate.of(2024, 3, 2)));
+
+    assertTrue(metadata.overlaps(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 2)));
+    assertTrue(metadata.overlaps(LocalDate.of(2024, 3, 1), LocalDate.of(2025, 1, 1)));
+    assertFalse(metadata.overlaps(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1)));
+    assertFalse(metadata.overlaps(LocalDate.of(2024, 3, 2), LocalDate.of(2025, 1, 1)));
+    assertFalse(metadata.overlaps(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 10)));
+  }
+}
@@ -0,0 +1,79 @@
+package stock.model.portfolio;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import stock.model.SymbolTable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that helps to test the functionalities of Holdings class.
+ */
+public class HoldingsTest {
+  private final int aapl = SymbolTable.shared().intern("AAPL");
+  private final int goog = SymbolTable.shared().intern("GOOG");
+
+  @Test
+  public void transactionsChangeHoldingsInPlace() {
+    Holdings holdings = new Holdings();
+    new BuyTransaction(LocalDate.of(1, 1, 1), 10.0, "AAPL").apply(holdings);
+    new BuyTransaction(LocalDate.of(1, 1, 1), 4.0, "GOOG").apply(holdings);
+    new SellTransaction(LocalDate.of(1, 1, 1), 4.0, "GOOG").apply(holdings);
+
+    assertEquals(1, holdings.size());
+    assertTrue(holdings.holds(aapl));
+    assertFalse(holdings.holds(goog));
+    assertEquals(10.0, holdings.getShares(aapl), 0.001);
+    assertEquals(Map.of("AAPL", 10.0), holdings.toMap());
+  }
+
+  @Test
+  public void valueIsDotProductWithPrices() {
+    Holdings holdings = Holdings.fromMap(Map.of("AAPL", 10.0, "GOOG", 2.0));
+    double[] prices = new double[holdings.idBound()];
+    prices[aapl] = 3.0;
+    prices[goog] = 50.0;
+
+    assertEquals(130.0, holdings.value(prices), 0.001);
+
+    double[] values = new double[holdings.idBound()];
+    holdings.distribution(prices, values);
+    double[] expected = new double[holdings.idBound()];
+    expected[aapl] = 30.0;
+    expected[goog] = 100.0;
+    assertArrayEquals(expected, values, 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void valueThrowsExceptionWhenPriceMissing() {
+    Holdings holdings = Holdings.fromMap(Map.of("AAPL", 10.0));
+    holdings.value(new double[0]);
+  }
+
+  @Test
+  public void copyIsIndependent() {
+    Holdings holdings = Holdings.fromMap(Map.of("AAPL", 10.0));
+    Holdings copy = new Holdings(holdings);
+    copy.set(goog, 1.0);
+    copy.remove(aapl);
+
+    assertEquals(Map.of("AAPL", 10.0), holdings.toMap());
+    assertEquals(Map.of("GOOG", 1.0), copy.toMap());
+  }
+
+  @Test
+  public void heldWithZeroSharesIsStillHeld() {
+    Holdings holdings = new Holdings();
+    holdings.set(aapl, 0.0);
+
+    assertTrue(holdings.holds(aapl));
+    assertEquals(1, holdings.size());
+    assertEquals(0.0, holdings.value(new double[holdings.idBound()]), 0.001);
+  }
+}
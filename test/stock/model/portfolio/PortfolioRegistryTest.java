@@ -0,0 +1,149 @@
+package stock.model.portfolio;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that helps to test the functionalities of PortfolioRegistry class.
+ */
+public class PortfolioRegistryTest {
+
+  @Test
+  public void namesAreInOrderAdded() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("B");
+    registry.create("A");
+    registry.create("C");
+
+    assertEquals(List.of("B", "A", "C"), registry.names());
+  }
+
+  @Test
+  public void getFindsPortfolioByName() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    Portfolio port = registry.create("A");
+    port.buyStock("AAPL", LocalDate.of(2024, 1, 1), 5);
+
+    assertSame(port, registry.get("A"));
+    assertTrue(registry.contains("A"));
+    assertFalse(registry.contains("B"));
+    assertFalse(registry.contains(null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getThrowsExceptionForUnknownName() {
+    new PortfolioRegistry().get("A");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void createThrowsExceptionForTakenName() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("A");
+    registry.create("A");
+  }
+
+  @Test
+  public void renameKeepsPlaceAndMovesLookup() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("A");
+    Portfolio port = registry.create("B");
+    registry.create("C");
+    registry.rename("B", "D");
+
+    assertEquals(List.of("A", "D", "C"), registry.names());
+    assertSame(port, registry.get("D"));
+    assertEquals("D", port.getName());
+    assertFalse(registry.contains("B"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void renameThrowsExceptionForTakenName() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("A");
+    registry.create("B");
+    registry.rename("A", "B");
+  }
+
+  @Test
+  public void removeDropsNameAndLookup() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("A");
+    registry.create("B");
+    registry.remove("A");
+
+    assertEquals(List.of("B"), registry.names());
+    assertFalse(registry.contains("A"));
+  }
+
+  @Test
+  public void namesAreOnlyMadeAgainOnChange() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("A");
+    List<String> names = registry.names();
+
+    assertSame(names, registry.names());
+    registry.create("B");
+    assertEquals(List.of("A"), names);
+    assertEquals(List.of("A", "B"), registry.names());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void namesCannotBeChanged() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.create("A");
+    registry.names().add("B");
+  }
+
+  @Test
+  public void getOrCreateOnlyCreatesOnce() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    Portfolio port = registry.getOrCreate("A");
+
+    assertSame(port, registry.getOrCreate("A"));
+    assertEquals(List.of("A"), registry.names());
+  }
+
+  @Test
+  public void concurrentWritersAndReadersAgree() throws Exception {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    List<Future<?>> results = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      results.add(threads.submit(() -> {
+        for (int i = 0; i < 200; i++) {
+          String name = "P" + thread + "_" + i;
+          registry.create(name);
+          registry.rename(name, name + "R");
+          if (!registry.names().contains(name + "R") || registry.contains(name)) {
+            throw new IllegalStateException("The registry lost track of " + name);
+          }
+          if (i % 2 == 0) {
+            registry.remove(name + "R");
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    threads.shutdown();
+
+    assertEquals(400, registry.names().size());
+    for (String name : registry.names()) {
+      assertSame(name, registry.get(name).getName());
+    }
+  }
+}
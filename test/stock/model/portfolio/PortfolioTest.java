@@ -12,9 +12,11 @@ import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 
@@ -54,6 +56,18 @@ public class PortfolioTest {
     assertEquals("port2", port.getName());
   }
 
+  @Test
+  public void getTickersWorks() {
+    var port = new Portfolio("portfolio1");
+    assertEquals(List.of(), List.copyOf(port.getTickers()));
+
+    port.buyStock("MSFT", LocalDate.of(2020, 1, 1), 5);
+    port.buyStock("AAPL", LocalDate.of(2020, 1, 2), 5);
+    port.sellStock("MSFT", LocalDate.of(2020, 1, 3), 5);
+    port.buyStock("MSFT", LocalDate.of(2020, 1, 4), 1);
+    assertEquals(List.of("MSFT", "AAPL"), List.copyOf(port.getTickers()));
+  }
+
   @Test
   public void getCompositionWorksForEmptyPort() {
     var port = new Portfolio("portfolio1");
@@ -653,4 +667,92 @@ public class PortfolioTest {
     assertEquals(Map.of(), portfolio.getComposition(LocalDate.of(2023, 6, 1)));
   }
 
+  @Test
+  public void checkpointsMatchReplayingEverything() {
+    // checkpoints every 3 transactions, against one that never reaches a checkpoint
+    Portfolio checkpointed = new Portfolio("portfolio4", 3);
+    Portfolio replayed = new Portfolio("portfolio4", Integer.MAX_VALUE);
+    LocalDate start = LocalDate.of(2023, 1, 1);
+    Random random = new Random(21);
+
+    for (int i = 0; i < 200; i++) {
+      // mostly in order, with some transactions going back before earlier ones
+      LocalDate date = start.plusDays(i / 2 - (random.nextInt(5) == 0 ? random.nextInt(40) : 0));
+      String ticker = random.nextBoolean() ? "AAPL" : "GOOG";
+      checkpointed.buyStock(ticker, date, i + 1);
+      replayed.buyStock(ticker, date, i + 1);
+
+      LocalDate asOf = start.plusDays(random.nextInt(110));
+      assertEquals(replayed.getComposition(asOf), checkpointed.getComposition(asOf));
+    }
+    for (int day = 0; day < 110; day++) {
+      assertEquals(replayed.getComposition(start.plusDays(day)),
+              checkpointed.getComposition(start.plusDays(day)));
+    }
+  }
+
+  @Test
+  public void sellBeforeLaterCheckpoint() {
+    Portfolio portfolio = new Portfolio("portfolio5", 2);
+    for (int day = 1; day <= 6; day++) {
+      portfolio.buyStock("AAPL", LocalDate.of(2023, 6, day), 10.0);
+    }
+    assertEquals(Map.of("AAPL", 60.0), portfolio.getComposition(LocalDate.of(2023, 6, 6)));
+
+    portfolio.sellStock("AAPL", LocalDate.of(2023, 6, 2), 15.0);
+    assertEquals(Map.of("AAPL", 5.0), portfolio.getComposition(LocalDate.of(2023, 6, 2)));
+    assertEquals(Map.of("AAPL", 45.0), portfolio.getComposition(LocalDate.of(2023, 6, 6)));
+  }
+
+  @Test
+  public void sweepMovesCompositionForward() {
+    Portfolio portfolio = new Portfolio("portfolio7", 2);
+    portfolio.buyStock("AAPL", LocalDate.of(2023, 6, 1), 10.0);
+    portfolio.buyStock("GOOG", LocalDate.of(2023, 6, 3), 5.0);
+    portfolio.sellStock("AAPL", LocalDate.of(2023, 6, 5), 10.0);
+
+    Portfolio.Sweep sweep = portfolio.sweepFrom(LocalDate.of(2023, 6, 2));
+    assertEquals(Map.of("AAPL", 10.0), sweep.getComposition());
+    assertFalse(sweep.advanceTo(LocalDate.of(2023, 6, 2)));
+    assertTrue(sweep.advanceTo(LocalDate.of(2023, 6, 4)));
+    assertEquals(Map.of("AAPL", 10.0, "GOOG", 5.0), sweep.getComposition());
+    assertTrue(sweep.advanceTo(LocalDate.of(2023, 6, 30)));
+    assertEquals(Map.of("GOOG", 5.0), sweep.getComposition());
+  }
+
+  @Test
+  public void sweepIgnoresLaterChanges() {
+    Portfolio portfolio = new Portfolio("portfolio9", 2);
+    portfolio.buyStock("AAPL", LocalDate.of(2023, 6, 1), 10.0);
+    portfolio.buyStock("GOOG", LocalDate.of(2023, 6, 5), 5.0);
+
+    Portfolio.Sweep sweep = portfolio.sweepFrom(LocalDate.of(2023, 6, 2));
+    // inserted ahead of the GOOG buy, which would shift it if the sweep read the live list
+    portfolio.buyStock("MSFT", LocalDate.of(2023, 6, 3), 1.0);
+    portfolio.buyStock("MSFT", LocalDate.of(2023, 6, 4), 1.0);
+
+    assertTrue(sweep.advanceTo(LocalDate.of(2023, 6, 5)));
+    assertEquals(Map.of("AAPL", 10.0, "GOOG", 5.0), sweep.getComposition());
+    assertEquals(Map.of("AAPL", 10.0, "GOOG", 5.0, "MSFT", 2.0),
+            portfolio.getComposition(LocalDate.of(2023, 6, 5)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sweepCannotGoBack() {
+    new Portfolio("portfolio8").sweepFrom(LocalDate.of(2023, 6, 2))
+            .advanceTo(LocalDate.of(2023, 6, 1));
+  }
+
+  @Test
+  public void loadSaveKeepsDateOrder() throws IOException {
+    Path save = testDir.resolve("portfolio6.txt");
+    Files.write(save, List.of("BUY:06/05/2023,10.0,AAPL", "SELL:06/07/2023,4.0,AAPL",
+            "BUY:06/01/2023,5.0,AAPL"));
+    Portfolio portfolio = new Portfolio("portfolio6", 2);
+    portfolio.loadSave(testDir.toString(), "portfolio6.txt");
+
+    assertEquals(Map.of("AAPL", 5.0), portfolio.getComposition(LocalDate.of(2023, 6, 4)));
+    assertEquals(Map.of("AAPL", 11.0), portfolio.getComposition(LocalDate.of(2023, 6, 7)));
+  }
+
 }
\ No newline at end of file
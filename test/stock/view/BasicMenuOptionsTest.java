@@ -24,7 +24,8 @@ public class BasicMenuOptionsTest {
             "Get the gain/loss of stock over period of time",
             "Get x-day moving average of a stock",
             "Get x-day crossovers for a stock",
-            "Manage portfolios"
+            "Manage portfolios",
+            "Screen all stocks for crossovers or gains"
     );
     assertEquals(expectedMainMenu, BasicMenuOptions.mainMenu());
   }
@@ -45,7 +45,8 @@ public class BasicStockViewTest {
             + "1. Get the gain/loss of stock over period of time\n"
             + "2. Get x-day moving average of a stock\n"
             + "3. Get x-day crossovers for a stock\n"
-            + "4. Manage portfolios\n";
+            + "4. Manage portfolios\n"
+            + "5. Screen all stocks for crossovers or gains\n";
     assertEquals(expectedOutput, sb.toString());
   }
 